@@ -1,291 +1,576 @@
-import java.util.ArrayDeque;
-import java.util.Comparator;
 import java.util.LinkedList;
-import java.util.PriorityQueue;
 import java.util.ArrayList;
 
 /**
  * Class containing pathfinding algorithms, and algorithms for recreating the shortest path.
+ * All algorithms keep their node state in a SearchContext, which can be reused between runs.
  */
 public class Algorithm {
     
+    /**
+      * Computes length of shortest path from specified start node to specified end node using A* pathfinding,
+      * with a 4-ary heap as open list.
+      * @see #A_Star(GridGraph, int[], int[], SearchContext, OpenListType, LinkedList, boolean)
+      */
+    public static SearchContext A_Star(GridGraph graph, int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        return A_Star(graph, start, end, context, OpenListType.QUATERNARY_HEAP, vizualization, saveVizualization);
+    }
+
     /**
       * Computes length of shortest path from specified start node to specified end node using A* pathfinding.
-      * Returns a matrix representing the final node and depth, as well as parent of each color,
-      * which allows for reconstruction of shortest path to end node .
-      * @param graph - Graph in adjacency matrix form
+      * Fills the context with the g and f values, as well as parent of each node,
+      * which allows for reconstruction of shortest path to end node.
+      * Moving onto a cell costs the cell's movement cost, and the grid distance scaled by the smallest cost
+      * is used as heuristic.
+      * @param graph - Graph storing neighbor bitmasks
       * @param start - Start node
       * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
+      * @param openListType - Implementation of the open list to use for this run
       * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
       * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
-      * @return
+      * @return - the context holding the results
       */
-    public static int[][][] A_Star(int[][][][] graph, int[] start, int[] end, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+    public static SearchContext A_Star(GridGraph graph, int[] start, int[] end, SearchContext context, OpenListType openListType, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        return A_Star(graph, start, end, context, openListType, null, vizualization, saveVizualization);
+    }
+
+    /**
+      * Computes length of shortest path from specified start node to specified end node using A* pathfinding,
+      * optionally with the ALT heuristic.
+      * @param landmarks - Landmark tables built for graph (see Landmarks.refresh()), or null for the grid distance
+      * @see #A_Star(GridGraph, int[], int[], SearchContext, OpenListType, LinkedList, boolean)
+      */
+    public static SearchContext A_Star(GridGraph graph, int[] start, int[] end, SearchContext context, OpenListType openListType, Landmarks landmarks, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
         
-        // Define matrix to store node information
-        int[][][] nodes = new int[graph.length][graph[0].length][8];
-        //                                                      ^ {openness, f, g, h, parentX, parentY, thisX, thisY}
-        //                                                         0 = open, 1 = closed, 2 = unspecified
-
-        // Fill out matrix with values
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                nodes[i][j] = new int[]{2, Integer.MAX_VALUE, Integer.MAX_VALUE, Math.abs(i - end[0]) + Math.abs(j - end[1]), -1, -1, i, j}; // Use Manhattan distance for g values
-            }
-        }
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
 
-        // Create comparator for priorityqueues
-        Comparator<int[]> qc = new Comparator<int[]>() {
-            public int compare(int[] a, int[] b) {
-                return a[1] - b[1]; // Compare using calculated f values for nodes
-            }
-        };
+        // Get open list keyed by cell index. f grows by at most maxCost + minCost per edge (g by the cost, h by minCost).
+        // A consistent h may also grow by the cost of the reverse edge, which bounds landmark heuristics
+        int minCost = graph.getMinCost();
+        int spread = landmarks == null ? graph.getMaxCost() + minCost : 2 * graph.getMaxCost();
+        OpenList open = context.getOpenList(openListType, spread);
 
-        // Create priorityqueues for open and closed nodes
-        PriorityQueue<int[]> open = new PriorityQueue<>(qc);
-        PriorityQueue<int[]> closed = new PriorityQueue<>(qc);
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
 
-        // Enqueue start node
-        nodes[start[0]][start[1]] = new int[]{0, 0, 0, nodes[start[0]][start[1]][3], -1, -1, start[0], start[1]};
-        open.add(nodes[start[0]][start[1]]);
+        // Enqueue start node, using grid distance times the smallest cost (or the landmark bound) for h values
+        int h = landmarks == null ? graph.distance(start[0], start[1], end[0], end[1]) * minCost : landmarks.heuristic(s, t);
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        open.insert(s, h);
 
         // Iterate while there are still open nodes
         while (!open.isEmpty()) {
 
             // Remove first node in queue
-            int[] cnode = open.poll();
+            int c = open.poll();
 
-            // Check if cnode is end/target node
-            if (cnode[6] == end[0] && cnode[7] == end[1]) {
+            // Check if c is end/target node
+            if (c == t) {
                 break;
             }
 
-            // Get adjacent nodes
-            int[][] adjacent = graph[cnode[6]][cnode[7]];
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
 
-            // Iterate over each adjacent node
-            for (int[] n : adjacent) {
+            int g = context.getG(c);
 
-                // If there is an actual edge to adjacent node
-                if (n[2] == 0) {continue;}
+            // Iterate over each adjacent node (there always exists an edge)
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
 
-                // Get information on adjacent node
-                int list = nodes[n[0]][n[1]][0];
-                int pref = nodes[n[0]][n[1]][1];
-                int newg = nodes[cnode[6]][cnode[7]][2] + 1;
-                int newf = nodes[n[0]][n[1]][3] + newg;
+                // Compute new g and f values of adjacent node
+                int newg = g + graph.getCost(n);
+                int newf = newg + (landmarks == null ? graph.distance(graph.getX(n), graph.getY(n), end[0], end[1]) * minCost : landmarks.heuristic(n, t));
 
                 // If newf isnt better than the adjacent node's previous f, dont do anything
-                if (newf >= pref) {continue;}
-
-                // Compute new node spec
-                int[] newspec = new int[]{0, newf, newg, nodes[n[0]][n[1]][3], cnode[6], cnode[7], n[0], n[1]};
+                if (newf >= context.getF(n)) {continue;}
 
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
 
-                // Act depending on if the node is in the open or closed list
-                if (list == 2) {
-                    // Update node with new f, g, and parentX, parentY values based on current node
-                    nodes[n[0]][n[1]] = newspec;
-                    // Add node to list of open nodes
-                    open.add(nodes[n[0]][n[1]]);
+                // Update node with new f, g and parent values based on current node
+                context.set(n, newg, newf, c, SearchContext.OPEN);
 
-                } else if (list == 1) {
-
-                    if (saveVizualization) {
-                        // Remove node from list of closed nodes
-                        closed.remove(nodes[n[0]][n[1]]);
-                    }
-                    // Update node with new f, g, and parentX, parentY values based on current node
-                    nodes[n[0]][n[1]] = newspec;
-                    // Add node to list of open nodes
-                    open.add(nodes[n[0]][n[1]]);
-
-                } else if (list == 0) {
-                    // Remove node from queue
-                    open.remove(nodes[n[0]][n[1]]);
-                    // Update node with new f, g, and parentX, parentY values based on current node
-                    nodes[n[0]][n[1]] = newspec;
-                    // Add node back to queue
-                    open.add(nodes[n[0]][n[1]]);
+                if (wasOpen) {
+                    // Move node forward in queue
+                    open.decreaseKey(n, newf);
+                } else {
+                    // Add node to list of open nodes (reopening it if it was closed)
+                    open.insert(n, newf);
                 }
             }
 
-            // Remove self from open queue
-            open.remove(cnode);
+            if (saveVizualization) {
+                // Add copy of open and closed nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+            
+        }
+
+        return context;
+    }
 
-            // Update node as closed
-            nodes[cnode[6]][cnode[7]][0] = 1;
+    /**
+      * Computes the cheapest path from specified start node to specified end node using Dijkstra's algorithm
+      * with Dial's bucket queue. Since all costs are small integers, the open list is a ring of
+      * maxCost + 1 buckets and every operation takes constant time.
+      * Fills the context with the g value (cost from start), as well as parent of each node.
+      * @param graph - Graph storing neighbor bitmasks and movement costs
+      * @param start - Start node
+      * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
+      * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+      * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+      * @return - the context holding the results
+      */
+    public static SearchContext Dijkstra(GridGraph graph, int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
 
-            if (saveVizualization) {
-                // Add node to closed nodes
-                closed.add(cnode);
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
 
-                // Add copy of queues to visualization list
-                ArrayList<int[]> o = new ArrayList<>();
-                for (int[] n : open) {
-                    o.add(new int[] {n[6], n[7]});
-                }
+        // Keys of open nodes lie between the smallest key and the smallest key plus maxCost
+        OpenList open = context.getOpenList(OpenListType.BUCKET, graph.getMaxCost());
 
-                ArrayList<int[]> c = new ArrayList<>();
-                for (int[] n : closed) {
-                    c.add(new int[] {n[6], n[7]});
-                }
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node
+        context.set(s, 0, 0, -1, SearchContext.OPEN);
+        open.insert(s, 0);
+
+        // Iterate while there are still open nodes
+        while (!open.isEmpty()) {
 
-                ArrayList<ArrayList<int[]>> openclosed = new ArrayList<>();
-                openclosed.add(o);
-                openclosed.add(c);
+            // Remove cheapest node in queue
+            int c = open.poll();
 
-                vizualization.addLast(openclosed);
+            // Check if c is end/target node
+            if (c == t) {
+                break;
             }
-            
-        }
 
-        return nodes;
-    }
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
 
-    public static ArrayList<int[]> A_Star_path(int[][][] result, int[] start, int[] end) {
+            int g = context.getG(c);
 
-        // Prepare ArrayList to hold path
-        ArrayList<int[]> path = new ArrayList<>();
-        
-        // Set initial node to parent of end node
-        int[] node = new int[] {result[end[0]][end[1]][4], result[end[0]][end[1]][5]};
+            // Iterate over each adjacent node (there always exists an edge)
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                int newg = g + graph.getCost(n);
 
-        // If end node has no parent, no path has been found
-        if (node[0] == -1 && node[1] == -1) {return path;}
+                // If newg isnt better than the adjacent node's previous g, dont do anything
+                if (newg >= context.getG(n)) {continue;}
 
-        while (node[0] != start[0] || node[1] != start[1]) {
-            // Add node to path
-            path.add(node);
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+                context.set(n, newg, newg, c, SearchContext.OPEN);
 
-            // Set node to parent of current node
-            node = new int[] {result[node[0]][node[1]][4], result[node[0]][node[1]][5]};
+                if (wasOpen) {
+                    // Move node to its new bucket
+                    open.decreaseKey(n, newg);
+                } else {
+                    open.insert(n, newg);
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
         }
 
-        // Return path
-        return path;
+        return context;
+    }
+
+    /**
+     * Recreates the shortest path found by A_Star.
+     * @param result - context filled by A_Star
+     * @param graph - Graph that was searched
+     * @param start - Start node
+     * @param end - End node
+     * @return - Nodes on the path excluding start and end, from end to start. Empty if there is no path.
+     */
+    public static ArrayList<int[]> A_Star_path(SearchContext result, GridGraph graph, int[] start, int[] end) {
+        return result.getPath(graph, start, end);
     }
 
       /**
       * Computes length of shortest path from specified start node to specified end node using Breadth First Search.
-      * Returns a matrix representing the final node and depth, as well as parent of each color,
+      * Fills the context with the depth, as well as parent of each node,
       * which allows for reconstruction of shortest path to end node.
-      * @param graph - Graph in adjacency matrix form
+      * Node colors are stored as statuses: white = UNSEEN, gray = OPEN, black = CLOSED.
+      * @param graph - Graph storing neighbor bitmasks
       * @param start - Start node
       * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
       * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
       * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
-      * @return
+      * @return - the context holding the results
       */
-    public static int[][][] BFS(int[][][][] graph, int[] start, int[] end, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
-        // Define matrix to store node information
-        int[][][] nodes = new int[graph.length][graph[0].length][4];
-        //                                                       ^ {color, depth, parentX, parentY}
-        //                                                          colors: 0=white, 1=gray, 2=black
-
-        // Fill out matrix with empty values
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                nodes[i][j] = new int[]{0, Integer.MAX_VALUE, -1, -1}; // Standard values for all nodes.
-            }
-        }
+    public static SearchContext BFS(GridGraph graph, int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
 
-        // Define queue to hold currently reviewed nodes
-        ArrayDeque<int[]> q = new ArrayDeque<int[]>();
-
-        // Enqueue start node
-        nodes[start[0]][start[1]] = new int[]{1, 0, -1, -1};
-        q.addLast(start);
+        // Use scratch array of context as queue, every node is enqueued at most once
+        int[] q = context.getQueue();
+        int head = 0;
+        int tail = 0;
 
-        // Define ArrayList to hold black nodes
-        ArrayList<int[]> blacknodes = new ArrayList<>();
+        int t = graph.index(end[0], end[1]);
 
-        // Define ArrayList to hold gray nodes
-        ArrayList<int[]> graynodes = new ArrayList<>();
+        // Enqueue start node
+        int s = graph.index(start[0], start[1]);
+        context.set(s, 0, 0, -1, SearchContext.OPEN);
+        q[tail++] = s;
 
         // While queue not empty
-        while (q.size() > 0) {
+        while (head < tail) {
 
             // Remove first node in queue
-            int[] cnode = q.removeFirst();
-
-            // Fetch adjacent nodes using adjacency map
-            int[][] adjacent = graph[cnode[0]][cnode[1]];
+            int c = q[head++];
+            int depth = context.getG(c) + 1;
+            context.countExpansion();
 
             // Iterate over each adjacent node (there exists an edge)
-            for (int[] n : adjacent) {
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
 
-                // Only consider node, if there is an edge to it, and its color is white.
-                if ((n[2] != 0) && (nodes[n[0]][n[1]][0] == 0)) {
-                    // Enqueue new node
-                    q.addLast(new int[]{n[0], n[1]});
+                // Only consider node if its color is white.
+                if (context.getStatus(n) == SearchContext.UNSEEN) {
+                    // Set color to gray, as well as depth and parent
+                    context.set(n, depth, depth, c, SearchContext.OPEN);
 
-                    // Set color, depth and parent
-                    nodes[n[0]][n[1]] = new int[] {1, nodes[cnode[0]][cnode[1]][1] + 1, cnode[0], cnode[1]}; // Set color to gray
-
-                    if (saveVizualization) {
-                        // Add to gray nodes
-                        graynodes.add(new int[]{n[0], n[1]});
-                    }
-                }  
+                    // Enqueue new node
+                    q[tail++] = n;
+                }
             }
 
             // Set color to black
-            nodes[cnode[0]][cnode[1]][0] = 2;
+            context.setStatus(c, SearchContext.CLOSED);
 
             if (saveVizualization) {
-                // Remove from gray nodes and add to black nodes
-                graynodes.remove(cnode); // Might cause problems, because references
-                blacknodes.add(cnode);
-
-                // Copy arraylists
-                ArrayList<int[]> gnc = new ArrayList<>();
-                for (int[] n : graynodes) {
-                    gnc.add(n.clone());
-                }
+                // Add copy of gray and black nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+
+            // Check if end node has been reached
+            if (context.isSeen(t)) {
+                return context;
+            }
+        }
+
+        // Returns context
+        return context;
+    }
+
+    /**
+     * Recreates the shortest path found by BFS.
+     * @param result - context filled by BFS
+     * @param graph - Graph that was searched
+     * @param start - Start node
+     * @param end - End node
+     * @return - Nodes on the path excluding start and end, from end to start. Empty if there is no path.
+     */
+    public static ArrayList<int[]> BFS_path(SearchContext result, GridGraph graph, int[] start, int[] end) {
+        return result.getPath(graph, start, end);
+    }
 
-                // Copy arraylists
-                ArrayList<int[]> bnc = new ArrayList<>();
-                for (int[] n : blacknodes) {
-                    bnc.add(n.clone());
+    /**
+      * Computes a path from specified start node to specified end node using weighted A*, which inflates the
+      * heuristic by a factor w >= 1. Nodes close to the end are preferred even if they are more expensive, so far
+      * fewer nodes are expanded, and the cost of the path is at most w times the optimal cost.
+      * Closed nodes are never reopened, which keeps the bound since the heuristic is consistent.
+      * @param graph - Graph storing neighbor bitmasks and movement costs
+      * @param start - Start node
+      * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
+      * @param weight - Suboptimality bound w, at least 1
+      * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+      * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+      * @return - the context holding the results
+      */
+    public static SearchContext Weighted_A_Star(GridGraph graph, int[] start, int[] end, SearchContext context, double weight, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("Weight must be at least 1, was " + weight);
+        }
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+
+        // Keys grow by more than the edge cost when h is inflated, so use a heap rather than buckets
+        int minCost = graph.getMinCost();
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node, with f = g + w * h rounded down, which can only tighten the bound
+        int h = (int) (weight * graph.distance(start[0], start[1], end[0], end[1]) * minCost);
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        open.insert(s, h);
+
+        // Iterate while there are still open nodes
+        while (!open.isEmpty()) {
+
+            // Remove first node in queue
+            int c = open.poll();
+
+            // Check if c is end/target node
+            if (c == t) {
+                break;
+            }
+
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
+
+            int g = context.getG(c);
+
+            // Iterate over each adjacent node (there always exists an edge)
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+
+                // Closed nodes are final
+                if (context.getStatus(n) == SearchContext.CLOSED) {continue;}
+
+                // If newg isnt better than the adjacent node's previous g, dont do anything
+                int newg = g + graph.getCost(n);
+                if (newg >= context.getG(n)) {continue;}
+
+                int newf = newg + (int) (weight * graph.distance(graph.getX(n), graph.getY(n), end[0], end[1]) * minCost);
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+                context.set(n, newg, newf, c, SearchContext.OPEN);
+
+                if (wasOpen) {
+                    // Move node forward in queue
+                    open.decreaseKey(n, newf);
+                } else {
+                    open.insert(n, newf);
                 }
+            }
 
-                // Add to linkedlist
-                ArrayList<ArrayList<int[]>> bgn = new ArrayList<>();
-                bgn.add(gnc);
-                bgn.add(bnc);
-                vizualization.addLast(bgn);
+            if (saveVizualization) {
+                // Add copy of open and closed nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
             }
+        }
 
-            // Check if end node has been reached
-            int[] endparent = new int[]{nodes[end[0]][end[1]][2], nodes[end[0]][end[1]][3]};
-            if (endparent[0] != -1 && endparent[1] != -1) {
-                return nodes;
+        return context;
+    }
+
+    /**
+      * Computes a path from specified start node to specified end node using focal search (A*epsilon).
+      * Open nodes are ordered by f = g + h as in A*, and every open node with f at most w times a lower bound on the
+      * optimal cost is in the focal list. The focal node closest to the end (by grid distance) is expanded next, so
+      * the search heads for the end while the cost of the path stays at most w times the optimal cost.
+      * Closed nodes that get a cheaper path are not expanded again right away, as in ARA* they wait in an
+      * inconsistent list which still counts towards the lower bound, and are only taken up when the focal list
+      * runs empty. Reopening every improved node instead makes the search expand nodes many times on weighted boards.
+      * A closed node only takes its cheaper path then, and passes it on to the closed nodes behind it at once,
+      * so the g values of closed nodes always agree with their parents and the g of the end node is the path cost.
+      * The orderings are kept in heaps from the context: open nodes by f, open nodes not yet admitted to the focal
+      * list by f, the focal list by distance to the end, inconsistent nodes by their cheaper f, and closed nodes
+      * whose cheaper path is being passed on by g.
+      * @param graph - Graph storing neighbor bitmasks and movement costs
+      * @param start - Start node
+      * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
+      * @param weight - Suboptimality bound w, at least 1
+      * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+      * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+      * @return - the context holding the results
+      */
+    public static SearchContext Focal_Search(GridGraph graph, int[] start, int[] end, SearchContext context, double weight, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("Weight must be at least 1, was " + weight);
+        }
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+        FocalLists lists = new FocalLists(graph, end, context);
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node
+        int h = lists.h(s);
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        lists.open.insert(s, h);
+        lists.waiting.insert(s, h);
+
+        while (!lists.open.isEmpty()) {
+
+            // The smallest f over open and inconsistent nodes is a lower bound on the optimal cost, admit the open
+            // nodes within w times that bound. The bound never has to shrink, every lower bound seen still holds
+            long fmin = lists.open.peekKey();
+            if (!lists.inconsistent.isEmpty()) {
+                fmin = Math.min(fmin, lists.inconsistent.peekKey());
+            }
+            lists.bound = Math.max(lists.bound, (long) (weight * fmin));
+            while (!lists.waiting.isEmpty() && lists.waiting.peekKey() <= lists.bound) {
+                int n = lists.waiting.poll();
+                lists.focal.insert(n, lists.distance(n));
+            }
+
+            if (lists.focal.isEmpty()) {
+                // Only an inconsistent node holds the bound down, let it take its cheaper path
+                lists.settle(lists.inconsistent.poll());
+                continue;
+            }
+
+            // Remove the focal node closest to the end
+            int c = lists.focal.poll();
+            lists.open.remove(c);
+
+            // Check if c is end/target node
+            if (c == t) {break;}
+
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
+            lists.relax(c, false);
+
+            if (saveVizualization) {
+                // Add copy of open and closed nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
             }
         }
 
-        // Returns nodes matrix
-        return nodes;
+        return context;
     }
 
-    public static ArrayList<int[]> BFS_path(int[][][] result, int[] start, int[] end) {
+    /**
+     * Orderings of the nodes of one focal search, kept in the context's heaps.
+     */
+    private static final class FocalLists {
+        final GridGraph graph;
+        final int[] end;
+        final int minCost;
+        final SearchContext context;
+
+        // Open nodes by f, open nodes not admitted to focal yet by f, and focal nodes by distance to the end
+        final IndexedHeap open;
+        final IndexedHeap waiting;
+        final IndexedHeap focal;
+
+        // Closed nodes with a cheaper path by its f, and closed nodes passing their cheaper path on by g
+        final IndexedHeap inconsistent;
+        final IndexedHeap improved;
+
+        // Largest f admitted to focal so far
+        long bound = -1;
+
+        FocalLists(GridGraph graph, int[] end, SearchContext context) {
+            this.graph = graph;
+            this.end = end;
+            this.minCost = graph.getMinCost();
+            this.context = context;
+            this.open = context.getHeap(0);
+            this.waiting = context.getHeap(1);
+            this.focal = context.getHeap(2);
+            this.inconsistent = context.getHeap(3);
+            this.improved = context.getHeap(4);
+        }
 
-        // Set initial node to parent of end node
-        int[] node = new int[] {result[end[0]][end[1]][2], result[end[0]][end[1]][3]};
+        int distance(int n) {
+            return graph.distance(graph.getX(n), graph.getY(n), end[0], end[1]);
+        }
 
-        // Prepare ArrayList to hold path
-        ArrayList<int[]> path = new ArrayList<>();
+        int h(int n) {
+            return distance(n) * minCost;
+        }
 
-        while (node[0] != start[0] || node[1] != start[1]) {
-            // Add node to path
-            path.add(node);
+        /**
+         * Lets an inconsistent node take its cheaper path, from the closed neighbor that offered it, and passes it
+         * on to the closed nodes behind it.
+         */
+        void settle(int n) {
+            int g = SearchContext.INFINITY;
+            int parent = -1;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(n)]) {
+                int c = n + graph.getOffset(dir);
+                if (context.getStatus(c) == SearchContext.CLOSED && context.getG(c) + graph.getCost(n) < g) {
+                    g = context.getG(c) + graph.getCost(n);
+                    parent = c;
+                }
+            }
+            if (g >= context.getG(n)) {return;}
 
-            // Set node to parent of current node
-            node = new int[] {result[node[0]][node[1]][2], result[node[0]][node[1]][3]};
+            context.set(n, g, g + h(n), parent, SearchContext.CLOSED);
+            improved.insert(n, g);
+            while (!improved.isEmpty()) {
+                relax(improved.poll(), true);
+            }
         }
 
-        // Return path
-        return path;
+        /**
+         * Relaxes the edges from a closed node to all its neighbors.
+         * @param eager - whether closed neighbors take a cheaper path at once, instead of becoming inconsistent
+         */
+        void relax(int c, boolean eager) {
+            int g = context.getG(c);
+
+            // Iterate over each adjacent node (there always exists an edge)
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+
+                // If newg isnt better than the adjacent node's previous g, dont do anything
+                int newg = g + graph.getCost(n);
+                if (newg >= context.getG(n)) {continue;}
+
+                int newf = newg + h(n);
+                byte status = context.getStatus(n);
+
+                if (status == SearchContext.CLOSED && eager) {
+                    // Take the cheaper path now, the inconsistent entry is no better if there is one
+                    context.set(n, newg, newf, c, SearchContext.CLOSED);
+                    if (inconsistent.contains(n)) {
+                        inconsistent.remove(n);
+                    }
+                    if (improved.contains(n)) {
+                        improved.decreaseKey(n, newg);
+                    } else {
+                        improved.insert(n, newg);
+                    }
+                    continue;
+                }
+
+                if (status == SearchContext.CLOSED) {
+                    // Keep the node and its g as they are, but let the cheaper f count towards the lower bound
+                    if (!inconsistent.contains(n)) {
+                        inconsistent.insert(n, newf);
+                    } else if (newf < inconsistent.getKey(n)) {
+                        inconsistent.decreaseKey(n, newf);
+                    }
+                    continue;
+                }
+
+                context.set(n, newg, newf, c, SearchContext.OPEN);
+                if (status == SearchContext.OPEN) {
+                    open.decreaseKey(n, newf);
+                } else {
+                    open.insert(n, newf);
+                }
+
+                // Nodes within the bound go to focal straight away, the others wait until the bound has grown.
+                // Focal nodes stay within the bound, since f only gets lower
+                if (newf <= bound) {
+                    if (waiting.contains(n)) {
+                        waiting.remove(n);
+                    }
+                    if (!focal.contains(n)) {
+                        focal.insert(n, distance(n));
+                    }
+                } else if (waiting.contains(n)) {
+                    waiting.decreaseKey(n, newf);
+                } else {
+                    waiting.insert(n, newf);
+                }
+            }
+        }
     }
 
     /**
@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Anytime Repairing A* (ARA*) with a time budget.
+ * The first iteration runs weighted A* with a large weight, which finds a path quickly. Every further iteration
+ * lowers the weight and repairs the previous search instead of starting over: only nodes whose g improved since
+ * they were expanded are expanded again. Each finished iteration with weight w leaves a path costing at most w
+ * times the optimal cost, and the search stops once the weight reaches 1 or the budget runs out.
+ *
+ * Nodes whose g improves after they were expanded in the current iteration aren't reopened until the next
+ * iteration, they wait in an inconsistent list instead. The smallest g + h over the open and inconsistent nodes is
+ * a lower bound on the optimal cost at any moment, so even a search cut off mid-iteration reports a bound for the
+ * best path found so far, which is often tighter than the weight of the last finished iteration.
+ *
+ * An instance reuses its arrays between queries but may only run one query at a time.
+ */
+public class AnytimeSearch {
+
+    public static final double DEFAULT_INITIAL_WEIGHT = 3.0;
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;
+
+    // Number of expansions between two reads of the clock
+    private static final int CLOCK_INTERVAL = 64;
+
+    private final double initialWeight;
+    private final double weightStep;
+
+    // Iteration in which each node was last expanded, and in which it was last added to the inconsistent list.
+    // Iterations are numbered across queries, so the arrays never have to be cleared
+    private int[] closedIn = new int[0];
+    private int[] inconsistentIn = new int[0];
+    private int iteration = 0;
+
+    // Nodes whose g improved after their expansion in the current iteration
+    private int[] inconsistent = new int[16];
+    private int inconsistentCount = 0;
+
+    // Scratch list of the open nodes, used when the open list is rebuilt
+    private int[] drained = new int[16];
+
+    // Weight of the last finished iteration of the previous query
+    private double lastWeight;
+
+    /**
+     * Creates a search starting at weight DEFAULT_INITIAL_WEIGHT, lowered by DEFAULT_WEIGHT_STEP per iteration.
+     */
+    public AnytimeSearch() {
+        this(DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP);
+    }
+
+    /**
+     * Creates a search with a custom weight schedule.
+     * @param initialWeight - Weight of the first iteration, at least 1
+     * @param weightStep - Amount the weight is lowered by after each iteration, more than 0
+     */
+    public AnytimeSearch(double initialWeight, double weightStep) {
+        if (!(initialWeight >= 1)) {
+            throw new IllegalArgumentException("Initial weight must be at least 1, was " + initialWeight);
+        }
+        if (!(weightStep > 0)) {
+            throw new IllegalArgumentException("Weight step must be more than 0, was " + weightStep);
+        }
+        this.initialWeight = initialWeight;
+        this.weightStep = weightStep;
+    }
+
+    /**
+     * Returns the weight of the last iteration the previous query finished, or infinity if it finished none.
+     * @return
+     */
+    public double getLastWeight() {
+        return lastWeight;
+    }
+
+    /**
+     * Computes the best path from start to end that can be found within a time budget.
+     * @param graph - Graph storing neighbor bitmasks and movement costs
+     * @param start - Start node
+     * @param end - End node
+     * @param context - Search context to store node state in, reset by this method
+     * @param budgetMillis - Time budget in milliseconds, the search returns shortly after it runs out
+     * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     * @return - the best path found, with the suboptimality bound it is guaranteed to meet. If no path was found, the
+     *           bound is 1 when there is none and infinity when the budget ran out first.
+     */
+    public PathResult search(GridGraph graph, int[] start, int[] end, SearchContext context, long budgetMillis, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+
+        // Invalidate node information from previous runs
+        int size = graph.size();
+        context.reset(size);
+        if (closedIn.length < size) {
+            closedIn = new int[size];
+            inconsistentIn = new int[size];
+            iteration = 0;
+        }
+        inconsistentCount = 0;
+        lastWeight = Double.POSITIVE_INFINITY;
+
+        // Keys grow by more than the edge cost when h is inflated, so use a heap rather than buckets
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+        int minCost = graph.getMinCost();
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Start and end are the same cell, an empty path is the cheapest
+        if (s == t) {
+            lastWeight = 1;
+            return new PathResult(new ArrayList<>(), 0, 0, 1.0);
+        }
+
+        double weight = initialWeight;
+        iteration++;
+        int key = key(graph, s, 0, weight, end, minCost);
+        context.set(s, 0, key, -1, SearchContext.OPEN);
+        open.insert(s, key);
+
+        boolean timedOut = false;
+        while (true) {
+
+            // Expand nodes until no open node could lead to a path cheaper than the current one, under the weight
+            while (!open.isEmpty() && context.getG(t) > open.peekKey()) {
+                if (context.getExpandedCount() % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                    timedOut = true;
+                    break;
+                }
+
+                // Remove first node in queue and close it for this iteration
+                int c = open.poll();
+                context.setStatus(c, SearchContext.CLOSED);
+                context.countExpansion();
+                closedIn[c] = iteration;
+
+                int g = context.getG(c);
+
+                // Iterate over each adjacent node (there always exists an edge)
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                    int n = c + graph.getOffset(dir);
+
+                    // If newg isnt better than the adjacent node's previous g, dont do anything
+                    int newg = g + graph.getCost(n);
+                    if (newg >= context.getG(n)) {continue;}
+
+                    int newKey = key(graph, n, newg, weight, end, minCost);
+                    if (closedIn[n] == iteration) {
+                        // Already expanded in this iteration, repair it in the next one
+                        context.set(n, newg, newKey, c, SearchContext.CLOSED);
+                        if (inconsistentIn[n] != iteration) {
+                            inconsistentIn[n] = iteration;
+                            inconsistent = push(inconsistent, inconsistentCount++, n);
+                        }
+                    } else {
+                        context.set(n, newg, newKey, c, SearchContext.OPEN);
+                        if (open.contains(n)) {
+                            open.decreaseKey(n, newKey);
+                        } else {
+                            open.insert(n, newKey);
+                        }
+                    }
+                }
+
+                if (saveVizualization) {
+                    // Add copy of open and closed nodes to visualization list
+                    vizualization.addLast(context.snapshot(graph));
+                }
+            }
+
+            if (timedOut) {break;}
+
+            // The iteration finished, so the path (if any) costs at most weight times the optimal cost
+            lastWeight = weight;
+            if (weight <= 1 || context.getG(t) == SearchContext.INFINITY) {break;}
+
+            // Lower the weight and reopen the inconsistent nodes, rekeying every open node
+            weight = Math.max(1, weight - weightStep);
+            int count = drain(open);
+            for (int i = 0; i < inconsistentCount; i++) {
+                drained = push(drained, count++, inconsistent[i]);
+            }
+            inconsistentCount = 0;
+            iteration++;
+            for (int i = 0; i < count; i++) {
+                int n = drained[i];
+                int g = context.getG(n);
+                int k = key(graph, n, g, weight, end, minCost);
+                context.set(n, g, k, context.getParent(n), SearchContext.OPEN);
+                open.insert(n, k);
+            }
+        }
+
+        if (context.getParent(t) == -1) {
+            // No path, either because none exists or because the budget ran out first
+            return new PathResult(new ArrayList<>(), -1, context.getExpandedCount(), timedOut ? Double.POSITIVE_INFINITY : 1.0);
+        }
+
+        // Nodes improved after their expansion leave stale g values below them, so recount the cost along the path
+        int cost = 0;
+        for (int n = t; n != s; n = context.getParent(n)) {
+            cost += graph.getCost(n);
+        }
+
+        // The smallest g + h over open and inconsistent nodes bounds the optimal cost from below
+        long lowerBound = Long.MAX_VALUE;
+        int count = drain(open);
+        for (int i = 0; i < count; i++) {
+            lowerBound = Math.min(lowerBound, estimate(graph, drained[i], end, minCost, context));
+        }
+        for (int i = 0; i < inconsistentCount; i++) {
+            lowerBound = Math.min(lowerBound, estimate(graph, inconsistent[i], end, minCost, context));
+        }
+        double bound = lowerBound >= cost ? 1.0 : Math.min(lastWeight, (double) cost / lowerBound);
+
+        return new PathResult(context.getPath(graph, start, end), cost, context.getExpandedCount(), bound);
+    }
+
+    /**
+     * Returns the key of a node in the open list, g plus the weighted heuristic rounded down.
+     */
+    private int key(GridGraph graph, int node, int g, double weight, int[] end, int minCost) {
+        return g + (int) (weight * graph.distance(graph.getX(node), graph.getY(node), end[0], end[1]) * minCost);
+    }
+
+    /**
+     * Returns g + h of a node, a lower bound on the cost of any path through it.
+     */
+    private long estimate(GridGraph graph, int node, int[] end, int minCost, SearchContext context) {
+        return (long) context.getG(node) + graph.distance(graph.getX(node), graph.getY(node), end[0], end[1]) * minCost;
+    }
+
+    /**
+     * Empties the open list into the drained array.
+     * @return - the number of drained nodes
+     */
+    private int drain(OpenList open) {
+        int count = 0;
+        while (!open.isEmpty()) {
+            drained = push(drained, count++, open.poll());
+        }
+        return count;
+    }
+
+    private int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+}
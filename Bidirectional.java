@@ -0,0 +1,453 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bidirectional variants of BFS and A*, growing one search from the start and one from the end until they meet.
+ *
+ * Whenever a search scans an edge (u, v) and v has been reached by the other search, the path through that edge
+ * is a candidate, and the cheapest candidate so far (mu) is kept together with its meeting edge.
+ * BFS stops once mu <= scannedForward + scannedBackward + 2, where scanned is the deepest level a search has
+ * completely scanned: any shorter path would have had one of its edges scanned by then.
+ * A* stops once the smallest f value of either open list is at least mu, since each direction on its own is an
+ * ordinary A* search that can't find anything cheaper than its smallest f value.
+ *
+ * In threaded mode the backward search runs on a second thread. Both searches publish their g values in
+ * atomic arrays and update mu with compare-and-set, so the meeting check doesn't need any locks.
+ * Either search may stop the other as soon as its own stop condition holds.
+ *
+ * An instance reuses its arrays between queries but may only run one query at a time.
+ */
+public class Bidirectional {
+
+    // Sides
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+
+    // Upper bound for all path costs, small enough to be added to without overflowing
+    private static final int UNREACHED = Integer.MAX_VALUE / 4;
+
+    /**
+     * State of one direction of the search.
+     */
+    private static final class Side {
+        final SearchContext context;
+        final int side;
+
+        // Node the search starts at and node the heuristic aims for
+        int source;
+        int[] target;
+
+        // BFS: queue segment of the current level, depth of the current level, deepest completely scanned level
+        int head;
+        int tail;
+        int level;
+        volatile int scanned;
+
+        // A*
+        OpenList open;
+
+        Side(int capacity, int side) {
+            this.context = new SearchContext(capacity);
+            this.side = side;
+        }
+    }
+
+    private final Side[] sides = new Side[2];
+
+    // g values visible to the other side, packed as generation << 32 | g
+    private AtomicLongArray[] published = new AtomicLongArray[2];
+    private int generation = 0;
+
+    // Best meeting found so far: {mu, forward node, backward node}
+    private final AtomicReference<int[]> best = new AtomicReference<>();
+
+    // Set once either side has proven mu optimal, or has run out of nodes
+    private volatile boolean done;
+
+    // Thread running the backward search in threaded mode, created on first use
+    private ExecutorService executor;
+
+    public Bidirectional() {
+        sides[FORWARD] = new Side(0, FORWARD);
+        sides[BACKWARD] = new Side(0, BACKWARD);
+        published[FORWARD] = new AtomicLongArray(0);
+        published[BACKWARD] = new AtomicLongArray(0);
+    }
+
+    /**
+     * Computes the shortest path from start to end using bidirectional Breadth First Search.
+     * @param graph - Graph storing neighbor bitmasks
+     * @param start - Start node
+     * @param end - End node
+     * @param threaded - Whether to run the backward search on a second thread
+     * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     *                            Ignored in threaded mode.
+     * @return
+     */
+    public PathResult BFS(GridGraph graph, int[] start, int[] end, boolean threaded, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        if (!prepare(graph, start, end)) {
+            return trivial(graph, start, end);
+        }
+
+        for (Side side : sides) {
+            int[] q = side.context.getQueue();
+            q[0] = side.source;
+            side.head = 0;
+            side.tail = 1;
+            side.level = 0;
+            side.scanned = -1;
+        }
+
+        if (threaded) {
+            runThreaded(() -> runBFS(graph, sides[BACKWARD], sides[FORWARD]), () -> runBFS(graph, sides[FORWARD], sides[BACKWARD]));
+        } else {
+            // Always continue with the side that has the smaller frontier
+            while (!done) {
+                Side side = frontier(sides[FORWARD]) <= frontier(sides[BACKWARD]) ? sides[FORWARD] : sides[BACKWARD];
+                stepBFS(graph, side, side == sides[FORWARD] ? sides[BACKWARD] : sides[FORWARD]);
+
+                if (saveVizualization) {
+                    vizualization.addLast(snapshot(graph));
+                }
+            }
+        }
+
+        return result(graph, start, end);
+    }
+
+    /**
+     * Computes the shortest path from start to end using bidirectional A*, with the grid distance to the opposite
+     * end as heuristic in both directions.
+     * @param graph - Graph storing neighbor bitmasks
+     * @param start - Start node
+     * @param end - End node
+     * @param threaded - Whether to run the backward search on a second thread
+     * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     *                            Ignored in threaded mode.
+     * @return
+     */
+    public PathResult A_Star(GridGraph graph, int[] start, int[] end, boolean threaded, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        if (!prepare(graph, start, end)) {
+            return trivial(graph, start, end);
+        }
+
+        for (Side side : sides) {
+            side.open = side.context.getOpenList(OpenListType.QUATERNARY_HEAP, 2);
+            int h = distance(graph, side.source, side.target);
+            side.context.set(side.source, 0, h, -1, SearchContext.OPEN);
+            side.open.insert(side.source, h);
+        }
+
+        if (threaded) {
+            runThreaded(() -> runAStar(graph, sides[BACKWARD], sides[FORWARD]), () -> runAStar(graph, sides[FORWARD], sides[BACKWARD]));
+        } else {
+            // Always continue with the side that has fewer open nodes
+            while (!done) {
+                Side side = sides[FORWARD].open.size() <= sides[BACKWARD].open.size() ? sides[FORWARD] : sides[BACKWARD];
+                stepAStar(graph, side, side == sides[FORWARD] ? sides[BACKWARD] : sides[FORWARD]);
+
+                if (saveVizualization) {
+                    vizualization.addLast(snapshot(graph));
+                }
+            }
+        }
+
+        return result(graph, start, end);
+    }
+
+    /**
+     * Stops the thread used by threaded mode. The instance can still be used afterwards.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Resets both sides and the meeting state for a new query, and publishes the two sources.
+     * @return - false if start and end are the same node, in which case there is nothing to search
+     */
+    private boolean prepare(GridGraph graph, int[] start, int[] end) {
+        int size = graph.size();
+        if (published[FORWARD].length() < size) {
+            published[FORWARD] = new AtomicLongArray(size);
+            published[BACKWARD] = new AtomicLongArray(size);
+            generation = 0;
+        }
+
+        // Start a new generation. On wrap around, clear the arrays once so old generations can't match again
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            for (AtomicLongArray array : published) {
+                for (int i = 0; i < array.length(); i++) {
+                    array.set(i, 0);
+                }
+            }
+            generation = 1;
+        }
+
+        best.set(new int[] {UNREACHED, -1, -1});
+        done = false;
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+        if (s == t) {
+            return false;
+        }
+
+        Side forward = sides[FORWARD];
+        forward.source = s;
+        forward.target = end;
+        Side backward = sides[BACKWARD];
+        backward.source = t;
+        backward.target = start;
+
+        for (Side side : sides) {
+            side.context.reset(size);
+            side.context.set(side.source, 0, 0, -1, SearchContext.OPEN);
+            publish(side.side, side.source, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Runs the backward search on the second thread and the forward search on the calling thread,
+     * and waits for both to finish.
+     */
+    private void runThreaded(Runnable backward, Runnable forward) {
+        ExecutorService service;
+        synchronized (this) {
+            if (executor == null) {
+                executor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "bidirectional-search");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            service = executor;
+        }
+
+        Future<?> other = service.submit(backward);
+        try {
+            forward.run();
+        } finally {
+            // Make sure the other side stops even if this one failed
+            done = true;
+            try {
+                other.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Backward search failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Runs BFS levels on one side until the search is done.
+     */
+    private void runBFS(GridGraph graph, Side side, Side other) {
+        while (!done) {
+            stepBFS(graph, side, other);
+        }
+    }
+
+    /**
+     * Runs A* expansions on one side until the search is done.
+     */
+    private void runAStar(GridGraph graph, Side side, Side other) {
+        while (!done) {
+            stepAStar(graph, side, other);
+        }
+    }
+
+    /**
+     * Scans one complete BFS level of a side, then checks whether the search can stop.
+     */
+    private void stepBFS(GridGraph graph, Side side, Side other) {
+        SearchContext context = side.context;
+        int[] q = context.getQueue();
+        int levelEnd = side.tail;
+        int depth = side.level + 1;
+
+        while (side.head < levelEnd) {
+            // Remove first node in queue
+            int c = q[side.head++];
+            context.countExpansion();
+
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+
+                // Check for a path through this edge
+                meet(side.side, c, n, side.level + 1);
+
+                // Only consider node if its color is white.
+                if (context.getStatus(n) == SearchContext.UNSEEN) {
+                    context.set(n, depth, depth, c, SearchContext.OPEN);
+                    publish(side.side, n, depth);
+                    q[side.tail++] = n;
+                }
+            }
+
+            // Set color to black
+            context.setStatus(c, SearchContext.CLOSED);
+
+            if (done) {return;}
+        }
+
+        side.scanned = side.level;
+        side.level++;
+
+        // With no nodes left every path from this side's source has been scanned, so mu is final
+        if (side.head == side.tail || best.get()[0] <= side.scanned + other.scanned + 2) {
+            done = true;
+        }
+    }
+
+    /**
+     * Expands the best open node of a side, or stops the search if that node can't improve on mu.
+     */
+    private void stepAStar(GridGraph graph, Side side, Side other) {
+        SearchContext context = side.context;
+        OpenList open = side.open;
+
+        if (open.isEmpty() || open.peekKey() >= best.get()[0]) {
+            done = true;
+            return;
+        }
+
+        // Remove first node in queue, update it as closed
+        int c = open.poll();
+        context.setStatus(c, SearchContext.CLOSED);
+        context.countExpansion();
+
+        int newg = context.getG(c) + 1;
+
+        for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+            int n = c + graph.getOffset(dir);
+
+            // Check for a path through this edge
+            meet(side.side, c, n, newg);
+
+            // If newf isnt better than the adjacent node's previous f, dont do anything
+            int newf = newg + distance(graph, n, side.target);
+            if (newf >= context.getF(n)) {continue;}
+
+            boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+            context.set(n, newg, newf, c, SearchContext.OPEN);
+            publish(side.side, n, newg);
+
+            if (wasOpen) {
+                open.decreaseKey(n, newf);
+            } else {
+                open.insert(n, newf);
+            }
+        }
+    }
+
+    /**
+     * Records the path through edge (c, n) as new best meeting if n has been reached by the other side
+     * and the path is cheaper than mu.
+     * @param side - side scanning the edge
+     * @param c - node being scanned
+     * @param n - neighbor of c
+     * @param cost - cost from this side's source to n through c
+     */
+    private void meet(int side, int c, int n, int cost) {
+        int otherG = published(1 - side, n);
+        if (otherG == UNREACHED) {return;}
+
+        int mu = cost + otherG;
+        int forwardNode = side == FORWARD ? c : n;
+        int backwardNode = side == FORWARD ? n : c;
+
+        // Lock-free minimum: retry while no other update has made the current best at least as good
+        int[] current = best.get();
+        while (mu < current[0]) {
+            if (best.compareAndSet(current, new int[] {mu, forwardNode, backwardNode})) {
+                return;
+            }
+            current = best.get();
+        }
+    }
+
+    private void publish(int side, int node, int g) {
+        published[side].set(node, ((long) generation << 32) | g);
+    }
+
+    /**
+     * Returns the g value a side has published for a node, or UNREACHED.
+     */
+    private int published(int side, int node) {
+        long value = published[side].get(node);
+        return (int) (value >>> 32) == generation ? (int) value : UNREACHED;
+    }
+
+    private static int frontier(Side side) {
+        return side.tail - side.head;
+    }
+
+    private static int distance(GridGraph graph, int node, int[] target) {
+        return graph.distance(graph.getX(node), graph.getY(node), target[0], target[1]);
+    }
+
+    /**
+     * Creates the result of a query where start and end are the same node.
+     */
+    private static PathResult trivial(GridGraph graph, int[] start, int[] end) {
+        return new PathResult(new ArrayList<>(), graph.isWalkable(start[0], start[1]) ? 0 : -1, 0);
+    }
+
+    /**
+     * Recreates the path through the best meeting edge by joining the backward parents of its end
+     * with the forward parents of its start.
+     */
+    private PathResult result(GridGraph graph, int[] start, int[] end) {
+        int[] meeting = best.get();
+        int expanded = sides[FORWARD].context.getExpandedCount() + sides[BACKWARD].context.getExpandedCount();
+        ArrayList<int[]> path = new ArrayList<>();
+
+        if (meeting[0] == UNREACHED) {
+            return new PathResult(path, -1, expanded);
+        }
+
+        int s = sides[FORWARD].source;
+        int t = sides[BACKWARD].source;
+
+        // Backward parents lead from the meeting edge to the end, so they are collected first and then reversed
+        for (int node = meeting[2]; node != t; node = sides[BACKWARD].context.getParent(node)) {
+            path.add(new int[] {graph.getX(node), graph.getY(node)});
+        }
+        Collections.reverse(path);
+
+        // Forward parents lead from the meeting edge to the start
+        for (int node = meeting[1]; node != s; node = sides[FORWARD].context.getParent(node)) {
+            path.add(new int[] {graph.getX(node), graph.getY(node)});
+        }
+
+        // In A* parents may have improved after the meeting was recorded, so the cost is taken from the path
+        return new PathResult(path, path.size() + 1, expanded);
+    }
+
+    /**
+     * Creates a vizualization step from the node statuses of both sides.
+     */
+    private ArrayList<ArrayList<int[]>> snapshot(GridGraph graph) {
+        ArrayList<ArrayList<int[]>> openclosed = sides[FORWARD].context.snapshot(graph);
+        ArrayList<ArrayList<int[]>> other = sides[BACKWARD].context.snapshot(graph);
+        openclosed.get(0).addAll(other.get(0));
+        openclosed.get(1).addAll(other.get(1));
+        return openclosed;
+    }
+}
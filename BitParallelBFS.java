@@ -0,0 +1,366 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Breadth First Search over bitsets, expanding 64 cells per word operation.
+ * Each level shifts the frontier bitset one step in every direction, ORs the results together and removes walls
+ * and visited cells, which gives the next frontier. Only words next to a non-empty frontier word are touched.
+ *
+ * Words hold 8x8 tiles of cells rather than 64 cells of one row: BFS wavefronts are diamonds (or squares with
+ * diagonals), and a row-major word would only hold one or two frontier cells of a diagonal front. Bit
+ * 8 * row + column of a tile word represents the cell at that row and column within the tile.
+ * The wall tiles are gathered from GridGraph's row-major wall bitset at the start of each query.
+ *
+ * Diagonal neighbors are found by first spreading the frontier horizontally and then vertically, which matches
+ * GridGraph's corner-cutting diagonals.
+ *
+ * Nodes are never handled one by one during the search. Instead every level is logged as a list of
+ * (tile, bits) pairs, and once the end node is reached the path is recreated by walking back through the logged
+ * levels. The path nodes are written to a SearchContext with their depth as g value, so Algorithm.BFS_path
+ * can recreate the path like for Algorithm.BFS. Depths of other nodes are available through getDepth().
+ *
+ * An instance reuses its bitsets between queries but may only run one query at a time.
+ */
+public class BitParallelBFS {
+
+    // Masks of the leftmost and rightmost column of a tile
+    private static final long COLUMN_0 = 0x0101010101010101L;
+    private static final long COLUMN_7 = 0x8080808080808080L;
+
+    // Walls, cells reached so far, the current level, and scratch space, one word per tile.
+    // frontier and scratch are kept empty outside the tiles listed in activeTiles.
+    private long[] walls = new long[0];
+    private long[] visited = new long[0];
+    private long[] frontier = new long[0];
+    private long[] scratch = new long[0];
+
+    // Tiles with a non-empty current level, tiles with a non-empty next level
+    private int[] activeTiles = new int[0];
+    private int[] nextTiles = new int[0];
+
+    // Tiles already computed during the current level, marked with the level number
+    private int[] tileMark = new int[0];
+
+    // Log of all levels: level l consists of the pairs logTile[i], logBits[i] for levelStart[l] <= i < levelStart[l+1]
+    private int[] logTile = new int[16];
+    private long[] logBits = new long[16];
+    private int[] levelStart = new int[16];
+    private int logSize = 0;
+    private int levels = 0;
+
+    // Number of tiles per row and per column of the graph searched last
+    private int tilesX;
+    private int tilesY;
+
+    /**
+     * Computes the depth of every node up to the level containing the end node using bit-parallel BFS,
+     * and one shortest path.
+     * @param graph - Graph to search, only walls and connectivity are used
+     * @param start - Start node
+     * @param end   - End node
+     * @param context - Search context receiving the nodes of the path, reset by this method
+     * @param vizualization - Reference to linked list, to which to save each level, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply levels to vizualization linked list.
+     * @return - the context holding the results
+     */
+    public SearchContext BFS(GridGraph graph, int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+        prepare(graph);
+
+        boolean diagonals = graph.hasDiagonals();
+
+        int tTile = tile(end[0], end[1]);
+        long tBit = bit(end[0], end[1]);
+
+        // Level 0 is the start node
+        int startTile = tile(start[0], start[1]);
+        frontier[startTile] = bit(start[0], start[1]);
+        visited[startTile] = frontier[startTile];
+        activeTiles[0] = startTile;
+        int activeCount = 1;
+        log(startTile, frontier[startTile]);
+        endLevel();
+
+        while (activeCount > 0 && (visited[tTile] & tBit) == 0) {
+            int level = levels;
+            int nextCount = 0;
+
+            for (int a = 0; a < activeCount; a++) {
+                int tile = activeTiles[a];
+                context.countExpansions(Long.bitCount(frontier[tile]));
+
+                int ty = tile / tilesX;
+                int tx = tile - ty * tilesX;
+
+                // Every tile that can receive a bit from this tile: the 3x3 block of tiles around it
+                for (int yy = Math.max(0, ty - 1); yy <= Math.min(tilesY - 1, ty + 1); yy++) {
+                    for (int xx = Math.max(0, tx - 1); xx <= Math.min(tilesX - 1, tx + 1); xx++) {
+                        // Without diagonals, tiles diagonally adjacent can't receive anything
+                        if (!diagonals && yy != ty && xx != tx) {continue;}
+
+                        int i = yy * tilesX + xx;
+                        if (tileMark[i] == level) {continue;}
+                        tileMark[i] = level;
+
+                        long reached;
+                        if (diagonals) {
+                            // Chebyshev neighborhood: spread horizontally, then vertically
+                            reached = verticalSpread(i, xx, yy);
+                        } else {
+                            long current = frontier[i];
+                            reached = left(i, xx) | right(i, xx) | (current << 8) | (current >>> 8);
+                            // Rows carried over from the tiles above and below
+                            if (yy > 0) {reached |= frontier[i - tilesX] >>> 56;}
+                            if (yy < tilesY - 1) {reached |= frontier[i + tilesX] << 56;}
+                        }
+
+                        // Cells outside the board are walls, so they are never reached
+                        long fresh = reached & ~walls[i] & ~visited[i];
+                        if (fresh != 0) {
+                            // Only the current level is read while building the next one, so visited can be updated here
+                            visited[i] |= fresh;
+                            scratch[i] = fresh;
+                            nextTiles[nextCount++] = i;
+                            log(i, fresh);
+                        }
+                    }
+                }
+            }
+
+            // Clear the current level, then the new level becomes the current one
+            for (int a = 0; a < activeCount; a++) {
+                frontier[activeTiles[a]] = 0L;
+            }
+            long[] levelBits = frontier;
+            frontier = scratch;
+            scratch = levelBits;
+            int[] levelTiles = activeTiles;
+            activeTiles = nextTiles;
+            nextTiles = levelTiles;
+            activeCount = nextCount;
+            endLevel();
+
+            if (saveVizualization) {
+                // Add copy of the current level and all earlier levels to visualization list
+                vizualization.addLast(snapshot());
+            }
+        }
+
+        // Clear the last level for the next query
+        for (int a = 0; a < activeCount; a++) {
+            frontier[activeTiles[a]] = 0L;
+        }
+
+        if ((visited[tTile] & tBit) != 0) {
+            writePath(graph, start, end, context);
+        }
+
+        return context;
+    }
+
+    /**
+     * Returns the depth of a node in the last query, or -1 if it wasn't reached before the search stopped.
+     * Scans the logged levels, so this is meant for occasional lookups.
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public int getDepth(int xPos, int yPos) {
+        int tile = tile(xPos, yPos);
+        long bit = bit(xPos, yPos);
+        if ((visited[tile] & bit) == 0) {return -1;}
+
+        for (int level = 0; level < levels; level++) {
+            for (int i = levelStart[level]; i < levelStart[level + 1]; i++) {
+                if (logTile[i] == tile && (logBits[i] & bit) != 0) {
+                    return level;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Walks back from the end node through the logged levels, each step to a neighbor one level closer to the
+     * start, and writes the nodes on the way to the context with their depth and parent.
+     */
+    private void writePath(GridGraph graph, int[] start, int[] end, SearchContext context) {
+        int s = graph.index(start[0], start[1]);
+        int node = graph.index(end[0], end[1]);
+        int depth = levels - 1;
+
+        context.set(s, 0, 0, -1, SearchContext.CLOSED);
+
+        while (node != s) {
+            // Load the previous level into scratch
+            int from = levelStart[depth - 1];
+            int to = levelStart[depth];
+            for (int i = from; i < to; i++) {
+                scratch[logTile[i]] = logBits[i];
+            }
+
+            // Pick any neighbor in the previous level as parent
+            int parent = -1;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(node)]) {
+                int n = node + graph.getOffset(dir);
+                int x = graph.getX(n);
+                int y = graph.getY(n);
+                if ((scratch[tile(x, y)] & bit(x, y)) != 0) {
+                    parent = n;
+                    break;
+                }
+            }
+
+            for (int i = from; i < to; i++) {
+                scratch[logTile[i]] = 0L;
+            }
+
+            context.set(node, depth, depth, parent, SearchContext.CLOSED);
+            node = parent;
+            depth--;
+        }
+    }
+
+    /**
+     * Returns the frontier of a tile moved one column to the left, including the column entering from the right.
+     */
+    private long left(int i, int xx) {
+        long moved = (frontier[i] >>> 1) & ~COLUMN_7;
+        if (xx < tilesX - 1) {moved |= (frontier[i + 1] & COLUMN_0) << 7;}
+        return moved;
+    }
+
+    /**
+     * Returns the frontier of a tile moved one column to the right, including the column entering from the left.
+     */
+    private long right(int i, int xx) {
+        long moved = (frontier[i] << 1) & ~COLUMN_0;
+        if (xx > 0) {moved |= (frontier[i - 1] & COLUMN_7) >>> 7;}
+        return moved;
+    }
+
+    /**
+     * Returns the frontier of a tile together with its left and right neighbor cells.
+     */
+    private long spread(int i, int xx) {
+        return frontier[i] | left(i, xx) | right(i, xx);
+    }
+
+    /**
+     * Returns the cells of a tile within Chebyshev distance 1 of the frontier: the horizontally spread tile,
+     * moved one row up and down, with the rows entering from the tiles above and below.
+     */
+    private long verticalSpread(int i, int xx, int yy) {
+        long spread = spread(i, xx);
+        long reached = spread | (spread << 8) | (spread >>> 8);
+        if (yy > 0) {reached |= spread(i - tilesX, xx) >>> 56;}
+        if (yy < tilesY - 1) {reached |= spread(i + tilesX, xx) << 56;}
+        return reached;
+    }
+
+    private int tile(int xPos, int yPos) {
+        return (yPos >>> 3) * tilesX + (xPos >>> 3);
+    }
+
+    private static long bit(int xPos, int yPos) {
+        return 1L << (((yPos & 7) << 3) | (xPos & 7));
+    }
+
+    /**
+     * Appends a pair to the log of the level being built.
+     */
+    private void log(int tile, long bits) {
+        if (logSize == logTile.length) {
+            logTile = Arrays.copyOf(logTile, logSize * 2);
+            logBits = Arrays.copyOf(logBits, logSize * 2);
+        }
+        logTile[logSize] = tile;
+        logBits[logSize] = bits;
+        logSize++;
+    }
+
+    /**
+     * Closes the log of the level being built.
+     */
+    private void endLevel() {
+        levels++;
+        if (levels == levelStart.length) {
+            levelStart = Arrays.copyOf(levelStart, levels * 2);
+        }
+        levelStart[levels] = logSize;
+    }
+
+    /**
+     * Makes sure the bitsets fit the graph, gathers the wall tiles and clears the visited cells of the previous query.
+     */
+    private void prepare(GridGraph graph) {
+        int xSize = graph.getXSize();
+        int ySize = graph.getYSize();
+        tilesX = (xSize + 7) >>> 3;
+        tilesY = (ySize + 7) >>> 3;
+        int tiles = tilesX * tilesY;
+
+        if (visited.length < tiles) {
+            walls = new long[tiles];
+            visited = new long[tiles];
+            frontier = new long[tiles];
+            scratch = new long[tiles];
+            activeTiles = new int[tiles];
+            nextTiles = new int[tiles];
+            tileMark = new int[tiles];
+        } else {
+            Arrays.fill(visited, 0L);
+            Arrays.fill(tileMark, 0);
+        }
+
+        // Byte k of a row word holds the 8 cells of tile column 8 * w + k in that row.
+        // Padding bits past the end of a row are walls, rows past the end of the board are filled with walls.
+        long[] rowWalls = graph.getWallWords();
+        int wordsPerRow = graph.getWordsPerRow();
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                long tileWalls = 0;
+                for (int r = 0; r < 8; r++) {
+                    int y = (ty << 3) + r;
+                    long row = y < ySize ? (rowWalls[y * wordsPerRow + (tx >>> 3)] >>> ((tx & 7) << 3)) & 0xFF : 0xFF;
+                    tileWalls |= row << (r << 3);
+                }
+                walls[ty * tilesX + tx] = tileWalls;
+            }
+        }
+
+        levels = 0;
+        logSize = 0;
+        levelStart[0] = 0;
+    }
+
+    /**
+     * Creates a vizualization step: the current level as open nodes, all earlier levels as closed nodes.
+     */
+    private ArrayList<ArrayList<int[]>> snapshot() {
+        ArrayList<int[]> open = new ArrayList<>();
+        ArrayList<int[]> closed = new ArrayList<>();
+
+        for (int i = 0; i < tilesX * tilesY; i++) {
+            long bits = visited[i];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                int[] cell = new int[] {(i % tilesX << 3) + (bit & 7), (i / tilesX << 3) + (bit >>> 3)};
+                if ((frontier[i] & (1L << bit)) != 0) {
+                    open.add(cell);
+                } else {
+                    closed.add(cell);
+                }
+                bits &= bits - 1;
+            }
+        }
+
+        ArrayList<ArrayList<int[]>> openclosed = new ArrayList<>();
+        openclosed.add(open);
+        openclosed.add(closed);
+        return openclosed;
+    }
+}
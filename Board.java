@@ -1,3 +1,6 @@
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Enum representing different cell types
  */
@@ -28,10 +31,20 @@ enum Cell {
 
 /**
  * A class representing a board/grid consisting of Cells.
+ * Walls are stored bit-packed in a long[] (one bit per cell, row-major, each row padded to whole 64-bit words),
+ * while the start and end cells are kept as coordinates only.
+ * Every cell also has a movement cost, the cost of stepping onto it, which is 1 unless terrain has been placed.
  */
 public class Board {
 
-    private Cell[][] board;
+    // Range of movement costs
+    public static final int MIN_COST = 1;
+    public static final int MAX_COST = 255;
+
+    // Wall bitset, bit (x & 63) of word (y * wordsPerRow + (x >>> 6)) is set if cell (x, y) is a wall.
+    // Padding bits past xSize in the last word of each row are always set, so they read as walls.
+    private long[] walls;
+    private int wordsPerRow;
     private int xSize;
     private int ySize;
 
@@ -41,24 +54,54 @@ public class Board {
     private int[] end;
     private boolean endset = false;
 
+    // Movement cost of each cell as unsigned byte, row-major (index = y * xSize + x)
+    private byte[] costs;
+
+    // Number of cells with a cost other than 1
+    private int weightedCells = 0;
+
+    // Incremented on every change of walls or costs, so derived data can tell whether it is stale
+    private int version = 0;
+
+    // Objects that are notified about wall and cost changes. Search threads register listeners while the GUI edits
+    // the board, so the list is copied on write and iterated without locking
+    private CopyOnWriteArrayList<BoardListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Connected-component indexes for 4- and 8-connected moves, created on first use
+    private Connectivity[] connectivity = new Connectivity[2];
+
     public Board(int xSize, int ySize) {
         this.xSize = xSize;
         this.ySize = ySize;
-        this.board = new Cell[ySize][xSize];
+        this.wordsPerRow = (xSize + 63) >>> 6;
+        this.walls = new long[wordsPerRow * ySize];
+        this.costs = new byte[xSize * ySize];
         clearBoard();
     }
 
     /**
-     * Fills the board with free cells and notes start and end nodes as not set.
+     * Fills the board with free cells of cost 1 and notes start and end nodes as not set.
      */
     public void clearBoard() {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                board[i][j] = Cell.FREE;
+        // Mask of the padding bits in the last word of a row
+        long padding = (xSize & 63) == 0 ? 0L : -1L << (xSize & 63);
+
+        for (int y = 0; y < ySize; y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                walls[y * wordsPerRow + w] = 0L;
             }
+            walls[y * wordsPerRow + wordsPerRow - 1] = padding;
         }
+        Arrays.fill(costs, (byte) 1);
+        weightedCells = 0;
         startset = false;
         endset = false;
+
+        // Notify listeners
+        version++;
+        for (BoardListener l : listeners) {
+            l.boardCleared();
+        }
     }
 
     /**
@@ -68,29 +111,158 @@ public class Board {
      * @param yPos - y-position on the board to place tile.
      */
     public void setTile(Cell tileType, int xPos, int yPos) {
-        // If tile being set is START or END tile, update information automatically, and reset already placed start and end tiles
+        // check if tile that is being overwritten is a start or end tile
+        if (startset && start[0] == xPos && start[1] == yPos) {
+            startset = false;
+        }
+        if (endset && end[0] == xPos && end[1] == yPos) {
+            endset = false;
+        }
+
+        // If tile being set is START or END tile, update information automatically.
+        // The previously placed start or end cell simply stops being reported, since only coordinates are stored.
         if (tileType == Cell.START) {
-            if (startset) {
-                setTile(Cell.FREE, start[0], start[1]); // remove already placed start cell
-            } 
             start = new int[]{xPos, yPos}; // place current startcell
             startset = true;
         } else if (tileType == Cell.END) {
-            if (endset) {
-                setTile(Cell.FREE, end[0], end[1]); // remove already placed end cell
-            }
             end = new int[]{xPos, yPos}; // place current endcell
             endset = true;
+        }
+
+        // Update wall bit of the cell
+        boolean wasWall = isWall(xPos, yPos);
+        int word = yPos * wordsPerRow + (xPos >>> 6);
+        if (tileType == Cell.WALL) {
+            walls[word] |= 1L << xPos;
         } else {
-            // check if tile that is being overwritten is a start or end tile
-            if (getTile(xPos, yPos) == Cell.START) {
-                startset = false;
-            } else if (getTile(xPos, yPos) == Cell.END) {
-                endset = false;
-            } 
+            walls[word] &= ~(1L << xPos);
+        }
+
+        // Notify listeners if the cell changed between wall and non-wall
+        if (wasWall != (tileType == Cell.WALL)) {
+            version++;
+            for (BoardListener l : listeners) {
+                l.tileChanged(xPos, yPos);
+            }
         }
+    }
+
+    /**
+     * Sets the movement cost of a cell, the cost of every move onto it.
+     * @param xPos - x-position on the board.
+     * @param yPos - y-position on the board.
+     * @param cost - cost between MIN_COST and MAX_COST.
+     */
+    public void setCost(int xPos, int yPos, int cost) {
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("Cost " + cost + " outside of range " + MIN_COST + " to " + MAX_COST);
+        }
+
+        int index = yPos * xSize + xPos;
+        int old = costs[index] & 0xFF;
+        if (old == cost) {return;}
+
+        costs[index] = (byte) cost;
+        weightedCells += (cost != 1 ? 1 : 0) - (old != 1 ? 1 : 0);
+
+        // Notify listeners
+        version++;
+        for (BoardListener l : listeners) {
+            l.costChanged(xPos, yPos);
+        }
+    }
 
-        board[yPos][xPos] = tileType; // place cell/tile to actual board
+    /**
+     * Gets the movement cost of a cell.
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public int getCost(int xPos, int yPos) {
+        return costs[yPos * xSize + xPos] & 0xFF;
+    }
+
+    /**
+     * Returns the backing cost array, one unsigned byte per cell in row-major order. Must not be modified.
+     * @return
+     */
+    public byte[] getCosts() {
+        return costs;
+    }
+
+    /**
+     * Returns whether every cell has cost 1, so every move costs the same.
+     * @return
+     */
+    public boolean isUniform() {
+        return weightedCells == 0;
+    }
+
+    /**
+     * Registers a listener to be notified about wall and cost changes.
+     * @param listener
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying a previously registered listener.
+     * @param listener
+     */
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the connected-component index of the board, creating it on first use.
+     * The index is kept up to date by every later setTile and clearBoard.
+     * @param diagonals - Whether diagonal moves connect cells
+     * @return
+     */
+    public synchronized Connectivity getConnectivity(boolean diagonals) {
+        int i = diagonals ? 1 : 0;
+        if (connectivity[i] == null) {
+            connectivity[i] = new Connectivity(this, diagonals);
+        }
+        return connectivity[i];
+    }
+
+    /**
+     * Returns whether a path exists between two cells, in constant time once the index exists.
+     * @param a - First cell
+     * @param b - Second cell
+     * @param diagonals - Whether diagonal moves are allowed
+     * @return - true if both cells are free and in the same region
+     */
+    public boolean isConnected(int[] a, int[] b, boolean diagonals) {
+        return getConnectivity(diagonals).isConnected(a, b);
+    }
+
+    /**
+     * Returns a counter that changes whenever walls or costs change.
+     * @return
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Hashes the size, walls and costs of the board, to recognise tables built from it after a restart.
+     * @return
+     */
+    public long getFingerprint() {
+        // FNV-1a over the wall words and costs
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ xSize) * 0x100000001b3L;
+        hash = (hash ^ ySize) * 0x100000001b3L;
+        for (long word : walls) {
+            hash = (hash ^ word) * 0x100000001b3L;
+        }
+        for (byte cost : costs) {
+            hash = (hash ^ (cost & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
     }
 
     /**
@@ -100,15 +272,50 @@ public class Board {
      * @return
      */
     public Cell getTile(int xPos, int yPos) {
-        return board[yPos][xPos];
+        if (startset && start[0] == xPos && start[1] == yPos) {
+            return Cell.START;
+        }
+        if (endset && end[0] == xPos && end[1] == yPos) {
+            return Cell.END;
+        }
+        return isWall(xPos, yPos) ? Cell.WALL : Cell.FREE;
+    }
+
+    /**
+     * Returns whether the cell at specific position is a wall.
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public boolean isWall(int xPos, int yPos) {
+        return (walls[yPos * wordsPerRow + (xPos >>> 6)] & (1L << xPos)) != 0;
+    }
+
+    /**
+     * Returns a single 64-cell word of the wall bitset.
+     * Word w of row y covers cells x = 64 * w ... 64 * w + 63, with bit i representing cell 64 * w + i.
+     * @param xWord - index of the word within the row.
+     * @param yPos - row of the word.
+     * @return
+     */
+    public long getWallWord(int xWord, int yPos) {
+        return walls[yPos * wordsPerRow + xWord];
+    }
+
+    /**
+     * Returns the backing wall bitset for engines scanning many cells at once. Must not be modified.
+     * @return
+     */
+    public long[] getWallWords() {
+        return walls;
     }
 
     /**
-     * Returns the board.
+     * Returns the number of 64-bit words used for each row of the wall bitset.
      * @return
      */
-    public Cell[][] getBoard() {
-        return board;
+    public int getWordsPerRow() {
+        return wordsPerRow;
     }
 
     /**
@@ -160,111 +367,12 @@ public class Board {
     }
 
     /**
-     * Computes coordinates of the cells adjacent straight to cell with specified x and y coordinates.
-     * @param xPos
-     * @param yPos
-     * @return
+     * Parses the board and computes a bidirectional graph, weighted by the terrain cost of each cell.
+     * Moving onto a cell costs that cell's cost.
+     * @param diagonals - Whether to include diagonal edges.
+     * @return - graph storing one neighbor bitmask and one cost per cell.
      */
-    private int[][] getAdjacent(int xPos, int yPos) {
-
-        int[][] adj = new int[4][2];
-        adj[0] = new int[] {xPos - 1, yPos};
-        adj[1] = new int[] {xPos + 1, yPos};
-        adj[2] = new int[] {xPos, yPos - 1};
-        adj[3] = new int[] {xPos, yPos + 1};
-
-        return adj;
-    }
-
-    /**
-     * Computes coordinates of the cells adjacent diagonally to cell with specified x and y coordinates.
-     * @param xPos
-     * @param yPos
-     * @return
-     */
-    private int[][] getAdjacent_Diagonal(int xPos, int yPos) {
-
-        int[][] adj = new int[4][2];
-
-        adj[0] = new int[] {xPos - 1, yPos - 1};
-        adj[1] = new int[] {xPos - 1, yPos + 1};
-        adj[2] = new int[] {xPos + 1, yPos - 1};
-        adj[3] = new int[] {xPos + 1, yPos + 1};
-
-        return adj;
-    }
-
-    /**
-     * Parses the board and computes weighted bidirectional graph.
-     * @return - weighted bidirectional graph in adjacency matrix representation.
-     */
-    public int[][][][] getGraph(boolean diagonals) {
-        
-        /**
-         * Edges are stored in adjacency matrix representation on the form:
-         * new int[xSize][ySize][4][3]
-         *                          ^ xCoordinate, yCoordinate and weight of edge
-         *                       ^ number of adjacent nodes (8 if with diagonals, 4 if without)
-         *                ^ yCoordinate of edge target node
-         *         ^ xCoordinate of edge target node
-         */
-
-        // Create adjacency matrix
-        int[][][][] adj = new int[xSize][ySize][diagonals ? 8 : 4][3];
-        
-        // Iterate for each cell
-        for (int y = 0; y < ySize; y++) {
-            for (int x = 0; x < xSize; x++) {
-
-                // Get a reference to the list of outgoing edges from this node
-                int[][] edges = adj[x][y];
-
-                // Fetch if current cell is wall
-                boolean isWall = getTile(x, y) == Cell.WALL;
-
-                // Grab adjacent nodes
-                int[][] adjacent = getAdjacent(x, y);
-
-                // Iterate for each adjacent node
-                for (int i = 0; i < adjacent.length; i++) {
-                    // Save coordinates of adjacent cell
-                    int ax = adjacent[i][0];
-                    int ay = adjacent[i][1];
-
-                    // Put no connection in as default.
-                    edges[i] = new int[] {ax, ay, 0};
-
-                    // If current cell isnt wall and adjacent cell isnt wall, and in boundaries
-                    if (!isWall && (0 <= ax && ax < xSize) && (0 <= ay && ay < ySize) && !(getTile(ax, ay) == Cell.WALL)) {
-                        // Put in edge with weight 1
-                        edges[i] = new int[] {ax, ay, 1};
-                    }
-                }
-
-                // If diagonals are enabled do same as for regular, but also with diagonals
-                if (diagonals) {
-                    int[][] adjacentDiagonals = getAdjacent_Diagonal(x, y);
-
-                    // Iterate for each adjacent node
-                    for (int i = 0; i < adjacentDiagonals.length; i++) {
-                        // Save coordinates of adjacent cell
-                        int ax = adjacentDiagonals[i][0];
-                        int ay = adjacentDiagonals[i][1];
-
-                        // Put no connection in as default.
-                        edges[i+4] = new int[] {ax, ay, 0};
-
-                        // If current cell isnt wall and adjacent cell isnt wall, and in boundaries
-                        if (!isWall && (0 <= ax && ax < xSize) && (0 <= ay && ay < ySize) && !(getTile(ax, ay) == Cell.WALL)) {
-                            // Put in diagonal edge
-                            edges[i+4] = new int[] {ax, ay, 1}; // Diagonal edges have weight 1, but possible to specify otherwise.
-                        }
-                    }
-                }
-            }
-        }
-
-        // Return adjacency matrix.
-        return adj;
+    public GridGraph getGraph(boolean diagonals) {
+        return new GridGraph(this, diagonals);
     }
 }
\ No newline at end of file
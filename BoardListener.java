@@ -0,0 +1,24 @@
+/**
+ * Interface for objects that keep information derived from a Board up to date as the board is edited.
+ */
+public interface BoardListener {
+
+    /**
+     * Called after a cell has changed between wall and non-wall.
+     * @param xPos - x-position of the changed cell.
+     * @param yPos - y-position of the changed cell.
+     */
+    void tileChanged(int xPos, int yPos);
+
+    /**
+     * Called after the movement cost of a cell has changed. Most listeners only care about walls.
+     * @param xPos - x-position of the changed cell.
+     * @param yPos - y-position of the changed cell.
+     */
+    default void costChanged(int xPos, int yPos) {}
+
+    /**
+     * Called after the whole board has been cleared.
+     */
+    void boardCleared();
+}
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+/**
+ * A bucket queue for small integer keys (Dial's algorithm).
+ * Keys must stay within a bounded window above the current minimum, which holds for A* and Dijkstra on grids
+ * with small integer edge costs. The buckets form a ring covering that window, and every bucket is a doubly
+ * linked list threaded through per-node arrays, so insert, decreaseKey and poll never allocate.
+ */
+public class BucketQueue implements OpenList {
+
+    private static final int NONE = -1;
+
+    // Ring of buckets, each holding the first node of its linked list
+    private final int[] heads;
+    private final int ringMask;
+
+    // Linked list pointers and keys per node
+    private final int[] next;
+    private final int[] prev;
+    private final int[] keys;
+    private final boolean[] inQueue;
+
+    private int size = 0;
+
+    // Smallest key that can currently be in the queue
+    private int cursor = 0;
+
+    /**
+     * Creates an empty bucket queue.
+     * @param capacity - number of distinct nodes (cell indices) the queue must hold.
+     * @param maxKeySpread - largest possible difference between any key in the queue and the minimum key.
+     */
+    public BucketQueue(int capacity, int maxKeySpread) {
+        // Round number of buckets up to a power of two, so the ring can be indexed with a mask
+        int buckets = Integer.highestOneBit(Math.max(maxKeySpread, 1)) << 1;
+        this.heads = new int[buckets];
+        this.ringMask = buckets - 1;
+        this.next = new int[Math.max(capacity, 1)];
+        this.prev = new int[Math.max(capacity, 1)];
+        this.keys = new int[Math.max(capacity, 1)];
+        this.inQueue = new boolean[Math.max(capacity, 1)];
+        Arrays.fill(heads, NONE);
+    }
+
+    public void clear() {
+        // Unmark remaining nodes, only touches nodes that are actually queued
+        for (int b = 0; b < heads.length; b++) {
+            for (int n = heads[b]; n != NONE; n = next[n]) {
+                inQueue[n] = false;
+            }
+            heads[b] = NONE;
+        }
+        size = 0;
+        cursor = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return inQueue[node];
+    }
+
+    public void insert(int node, int key) {
+        // An empty queue can move its window anywhere
+        if (size == 0 && (key < cursor || key - cursor > ringMask)) {
+            cursor = key;
+        }
+        if (key < cursor || key - cursor > ringMask) {
+            throw new IllegalArgumentException("Key " + key + " outside bucket window starting at " + cursor);
+        }
+        keys[node] = key;
+        inQueue[node] = true;
+        link(node, key & ringMask);
+        size++;
+    }
+
+    public void decreaseKey(int node, int key) {
+        if (key < cursor) {
+            throw new IllegalArgumentException("Key " + key + " below bucket window starting at " + cursor);
+        }
+        unlink(node, keys[node] & ringMask);
+        keys[node] = key;
+        link(node, key & ringMask);
+    }
+
+    public int peekKey() {
+        advance();
+        return cursor;
+    }
+
+    public int poll() {
+        advance();
+        int node = heads[cursor & ringMask];
+        unlink(node, cursor & ringMask);
+        inQueue[node] = false;
+        size--;
+        return node;
+    }
+
+    /**
+     * Moves the cursor forward to the first non-empty bucket.
+     */
+    private void advance() {
+        while (heads[cursor & ringMask] == NONE) {
+            cursor++;
+        }
+    }
+
+    private void link(int node, int bucket) {
+        int head = heads[bucket];
+        next[node] = head;
+        prev[node] = NONE;
+        if (head != NONE) {
+            prev[head] = node;
+        }
+        heads[bucket] = node;
+    }
+
+    private void unlink(int node, int bucket) {
+        if (prev[node] != NONE) {
+            next[prev[node]] = next[node];
+        } else {
+            heads[bucket] = next[node];
+        }
+        if (next[node] != NONE) {
+            prev[next[node]] = prev[node];
+        }
+    }
+}
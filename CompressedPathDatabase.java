@@ -0,0 +1,420 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compressed Path Database: first-move tables for every pair of cells of a fixed board.
+ * For every target the builder computes the flow field towards it, which gives the optimal first moves from every
+ * cell. The moves of all cells, ordered by 8x8 tiles, are stored run-length compressed. Ties between optimal moves are
+ * broken in favour of the move that continues the current run, and walls can never be asked for, so they continue
+ * whichever run they fall into. Both keep runs long.
+ *
+ * A query needs no search at all: it looks up the first move from the start in the table of the end, steps, and
+ * repeats, with one binary search over the runs per step.
+ *
+ * Tables describe the board they were built from, use matches() to check a loaded database against a board.
+ */
+public class CompressedPathDatabase {
+
+    // "CPD1", identifies saved databases
+    private static final int MAGIC = 0x43504431;
+
+    // Runs are packed as (rank of first cell << MOVE_BITS) | move
+    private static final int MOVE_BITS = 4;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
+
+    // Move of cells that can't reach the target
+    private static final int NO_MOVE = MOVE_MASK;
+
+    // Cells are ordered by 8x8 tiles, and row-major within a tile, so runs follow rooms and corridors
+    private static final int TILE_BITS = 3;
+
+    private final int xSize;
+    private final int ySize;
+    private final boolean diagonals;
+
+    // Hash of walls and costs of the board the tables were built from
+    private final long fingerprint;
+
+    // Movement cost of each cell (unsigned bytes), for path costs
+    private final byte[] costs;
+
+    // Runs of first moves towards each target, null for walls
+    private final int[][] runs;
+
+    private CompressedPathDatabase(int xSize, int ySize, boolean diagonals, long fingerprint, byte[] costs, int[][] runs) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.diagonals = diagonals;
+        this.fingerprint = fingerprint;
+        this.costs = costs;
+        this.runs = runs;
+    }
+
+    /**
+     * Builds the tables with one worker per available processor.
+     * @see #build(Board, boolean, int)
+     */
+    public static CompressedPathDatabase build(Board board, boolean diagonals) {
+        return build(board, diagonals, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the tables of a board, one flow field per free cell, spread over a pool of workers.
+     * Takes time proportional to the number of cells squared, so it is meant for offline use.
+     * @param board - Board to build tables for, must not change while building
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param threads - Number of worker threads
+     * @return - the database
+     */
+    public static CompressedPathDatabase build(Board board, boolean diagonals, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, was " + threads);
+        }
+        if (rankCount(board.getXSize(), board.getYSize()) > (Integer.MAX_VALUE >>> MOVE_BITS)) {
+            throw new IllegalArgumentException("Board too large for first-move tables");
+        }
+
+        GridGraph graph = board.getGraph(diagonals);
+        int size = graph.size();
+        int version = board.getVersion();
+        int[][] runs = new int[size][];
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "cpd-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Workers take targets from a shared counter, each table is written by exactly one worker
+            AtomicInteger next = new AtomicInteger();
+            ArrayList<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < threads; w++) {
+                workers.add(executor.submit(() -> {
+                    int t;
+                    while ((t = next.getAndIncrement()) < size) {
+                        int x = graph.getX(t);
+                        int y = graph.getY(t);
+                        if (graph.isWalkable(x, y)) {
+                            runs[t] = compress(graph, FlowField.compute(graph, new int[] {x, y}, version), t);
+                        }
+                    }
+                }));
+            }
+
+            // Joining the workers also makes their tables visible to this thread
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building first-move tables", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Building first-move tables failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new CompressedPathDatabase(graph.getXSize(), graph.getYSize(), diagonals, board.getFingerprint(), board.getCosts().clone(), runs);
+    }
+
+    /**
+     * Run-length compresses the first moves of a flow field towards target t.
+     * Where several moves are optimal, any of them may be stored, so each run keeps the set of moves that are optimal
+     * for all of its cells and only ends once that set would become empty.
+     */
+    private static int[] compress(GridGraph graph, FlowField field, int t) {
+        int[] table = new int[16];
+        int count = 0;
+
+        // First cell and common optimal moves (bit per move, bit NO_MOVE for unreachable cells) of the open run
+        int runStart = 0;
+        int common = 0;
+
+        int xSize = graph.getXSize();
+        int ySize = graph.getYSize();
+        long ranks = rankCount(xSize, ySize);
+        for (int r = 0; r < ranks; r++) {
+            int x = xOf(r, xSize);
+            int y = yOf(r, xSize);
+
+            // Padding of partial tiles, walls and the target itself are never looked up, so they extend the current run
+            if (x >= xSize || y >= ySize) {continue;}
+            int c = y * xSize + x;
+            if (c == t || !graph.isWalkable(x, y)) {continue;}
+
+            int moves = optimalMoves(graph, field, c);
+            if ((common & moves) != 0) {
+                common &= moves;
+                continue;
+            }
+
+            // Close the open run, the first run starts at rank 0 so it also covers the cells before it
+            if (common != 0) {
+                if (count == table.length) {
+                    table = Arrays.copyOf(table, 2 * count);
+                }
+                table[count++] = (runStart << MOVE_BITS) | Integer.numberOfTrailingZeros(common);
+                runStart = r;
+            }
+            common = moves;
+        }
+
+        // Close the last run, and trim the table to its runs
+        table = Arrays.copyOf(table, common != 0 ? count + 1 : count);
+        if (common != 0) {
+            table[count] = (runStart << MOVE_BITS) | Integer.numberOfTrailingZeros(common);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the moves from cell c that start an optimal path to the field's goal, as bits by direction,
+     * or only bit NO_MOVE if the goal can't be reached.
+     */
+    private static int optimalMoves(GridGraph graph, FlowField field, int c) {
+        int d = field.getDistance(c);
+        if (d == FlowField.UNREACHED) {
+            return 1 << NO_MOVE;
+        }
+
+        int moves = 0;
+        for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+            int n = c + graph.getOffset(dir);
+            int dn = field.getDistance(n);
+            if (dn != FlowField.UNREACHED && dn + graph.getCost(n) == d) {
+                moves |= 1 << dir;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Returns whether the tables were built from a board with the same size, walls and costs.
+     * @param board - Board to compare to
+     * @param diagonals - Whether diagonal moves are allowed
+     * @return
+     */
+    public boolean matches(Board board, boolean diagonals) {
+        return this.diagonals == diagonals && xSize == board.getXSize() && ySize == board.getYSize()
+                && fingerprint == board.getFingerprint();
+    }
+
+    /**
+     * Returns whether diagonal moves were allowed when the tables were built.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the direction of the first move on an optimal path.
+     * @param start - Start node
+     * @param end - End node
+     * @return - direction in GridGraph order, or -1 if start equals end, either is a wall, or there is no path
+     */
+    public int firstMove(int[] start, int[] end) {
+        int s = start[1] * xSize + start[0];
+        int t = end[1] * xSize + end[0];
+        if (s == t || runs[s] == null || runs[t] == null) {
+            return -1;
+        }
+        int move = lookup(runs[t], rank(start[0], start[1], xSize));
+        return move == NO_MOVE ? -1 : move;
+    }
+
+    /**
+     * Recreates an optimal path by following first moves, without any search.
+     * @param start - Start node
+     * @param end - End node
+     * @return - the path, with no expanded nodes
+     */
+    public PathResult getPath(int[] start, int[] end) {
+        ArrayList<int[]> path = new ArrayList<>();
+        int s = start[1] * xSize + start[0];
+        int t = end[1] * xSize + end[0];
+        if (s == t) {
+            return new PathResult(path, 0, 0);
+        }
+        if (runs[s] == null || runs[t] == null || lookup(runs[t], rank(start[0], start[1], xSize)) == NO_MOVE) {
+            return new PathResult(path, -1, 0);
+        }
+
+        // Step along first moves, every table lookup is a binary search over the runs of the end's table
+        int[] table = runs[t];
+        int x = start[0];
+        int y = start[1];
+        int cost = 0;
+        while (s != t) {
+            int move = lookup(table, rank(x, y, xSize));
+            x += GridGraph.DX[move];
+            y += GridGraph.DY[move];
+            s = y * xSize + x;
+            cost += costs[s] & 0xFF;
+            if (s != t) {
+                path.add(new int[] {x, y});
+            }
+        }
+
+        // Paths are ordered from end to start, like Algorithm.A_Star_path
+        Collections.reverse(path);
+        return new PathResult(path, cost, 0);
+    }
+
+    /**
+     * Returns the number of ranks of a board, including the padding of partial tiles.
+     */
+    private static long rankCount(int xSize, int ySize) {
+        long tilesX = (xSize + (1 << TILE_BITS) - 1) >>> TILE_BITS;
+        long tilesY = (ySize + (1 << TILE_BITS) - 1) >>> TILE_BITS;
+        return (tilesX * tilesY) << (2 * TILE_BITS);
+    }
+
+    /**
+     * Returns the position of a cell in the tile order.
+     */
+    private static int rank(int x, int y, int xSize) {
+        int tilesX = (xSize + (1 << TILE_BITS) - 1) >>> TILE_BITS;
+        int tile = (y >>> TILE_BITS) * tilesX + (x >>> TILE_BITS);
+        int mask = (1 << TILE_BITS) - 1;
+        return (tile << (2 * TILE_BITS)) | ((y & mask) << TILE_BITS) | (x & mask);
+    }
+
+    private static int xOf(int rank, int xSize) {
+        int tilesX = (xSize + (1 << TILE_BITS) - 1) >>> TILE_BITS;
+        int tile = rank >>> (2 * TILE_BITS);
+        return ((tile % tilesX) << TILE_BITS) | (rank & ((1 << TILE_BITS) - 1));
+    }
+
+    private static int yOf(int rank, int xSize) {
+        int tilesX = (xSize + (1 << TILE_BITS) - 1) >>> TILE_BITS;
+        int tile = rank >>> (2 * TILE_BITS);
+        return ((tile / tilesX) << TILE_BITS) | ((rank >>> TILE_BITS) & ((1 << TILE_BITS) - 1));
+    }
+
+    /**
+     * Returns the move of a cell from a table, the move of the last run starting at or before its rank.
+     */
+    private static int lookup(int[] table, int rank) {
+        // Only the target itself is free, nothing can reach it
+        if (table.length == 0) {
+            return NO_MOVE;
+        }
+
+        int lo = 0;
+        int hi = table.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if ((table[mid] >>> MOVE_BITS) <= rank) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return table[lo] & MOVE_MASK;
+    }
+
+    /**
+     * Returns the total number of runs over all tables.
+     * @return
+     */
+    public long getRunCount() {
+        long count = 0;
+        for (int[] table : runs) {
+            if (table != null) {
+                count += table.length;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the approximate memory taken by the tables, in bytes.
+     * @return
+     */
+    public long getSizeInBytes() {
+        return 4 * getRunCount() + costs.length;
+    }
+
+    /**
+     * Writes the database to a file.
+     * @param file - File to write to, overwritten if it exists
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(xSize);
+            out.writeInt(ySize);
+            out.writeBoolean(diagonals);
+            out.writeLong(fingerprint);
+            out.write(costs);
+
+            // Walls are stored as tables of length -1
+            for (int[] table : runs) {
+                if (table == null) {
+                    out.writeInt(-1);
+                    continue;
+                }
+                out.writeInt(table.length);
+                for (int run : table) {
+                    out.writeInt(run);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a database written by save().
+     * @param file - File to read from
+     * @return - the database
+     * @throws IOException - if the file can't be read or isn't a saved database
+     */
+    public static CompressedPathDatabase load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a compressed path database");
+            }
+            int xSize = in.readInt();
+            int ySize = in.readInt();
+            boolean diagonals = in.readBoolean();
+            long fingerprint = in.readLong();
+            if (xSize <= 0 || ySize <= 0 || rankCount(xSize, ySize) > (Integer.MAX_VALUE >>> MOVE_BITS)) {
+                throw new IOException("Invalid board size " + xSize + "x" + ySize + " in " + file);
+            }
+
+            byte[] costs = new byte[xSize * ySize];
+            in.readFully(costs);
+
+            int[][] runs = new int[xSize * ySize][];
+            for (int t = 0; t < runs.length; t++) {
+                int length = in.readInt();
+                if (length == -1) {continue;}
+                if (length < 0 || length > runs.length) {
+                    throw new IOException("Invalid table length " + length + " in " + file);
+                }
+                int[] table = new int[length];
+                for (int i = 0; i < length; i++) {
+                    table[i] = in.readInt();
+                }
+                runs[t] = table;
+            }
+
+            return new CompressedPathDatabase(xSize, ySize, diagonals, fingerprint, costs, runs);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Enum representing the pathfinding methods the user can choose from
+ */
+enum ComputationalMethod {
+    ASTAR("A*", true),
+    ASTAR_DIAL("A* (Dial's Buckets)", true),
+    ASTAR_ALT("A* (ALT Landmarks)", true),
+    GOAL_BOUNDING("A* (Goal Bounding)", true),
+    WEIGHTED_ASTAR("Weighted A*", true),
+    FOCAL_SEARCH("Focal Search (A*\u03b5)", true),
+    ARA_STAR("ARA* (Anytime)", true),
+    FRINGE("Fringe Search (Low Memory)", true),
+    IDA_STAR("IDA*", true),
+    DIJKSTRA("Dijkstra (Dial's Buckets)", true),
+    BFS("Breadth First Search"),
+    JPS("Jump Point Search"),
+    JPS_PLUS("JPS+ (Precomputed)"),
+    BIDIRECTIONAL_BFS("Bidirectional BFS"),
+    BIDIRECTIONAL_ASTAR("Bidirectional A*"),
+    BIDIRECTIONAL_BFS_THREADED("Bidirectional BFS (2 Threads)"),
+    BIDIRECTIONAL_ASTAR_THREADED("Bidirectional A* (2 Threads)"),
+    BIT_PARALLEL_BFS("Bit-Parallel BFS"),
+    PARALLEL_BFS("Parallel BFS (Fork/Join)"),
+    HPA("HPA* (Hierarchical)", true),
+    CORRIDOR("Corridor Search (Multi-Resolution)", true),
+    SUBGOAL_GRAPH("Subgoal Graph", true),
+    FLOW_FIELD("Flow Field (Cached)", true),
+    DSTAR_LITE("D* Lite (Incremental)", true),
+    CPD("Compressed Path Database", true);
+
+    private final String value;
+
+    // Whether the method takes terrain costs into account, the others treat every move as cost 1
+    private final boolean weighted;
+
+    private ComputationalMethod(String value) {
+        this(value, false);
+    }
+
+    private ComputationalMethod(String value, boolean weighted) {
+        this.value = value;
+        this.weighted = weighted;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * Returns the display names of all computational methods, in declaration order.
+     * @return
+     */
+    public static String[] getValues() {
+        ComputationalMethod[] methods = ComputationalMethod.values();
+        String[] values = new String[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            values[i] = methods[i].getValue();
+        }
+        return values;
+    }
+
+    public static ComputationalMethod getEnum(String value) {
+        for (ComputationalMethod c : ComputationalMethod.values()) {
+            if (value.equals(c.getValue())) {
+                return c;
+            }
+        }
+        return ComputationalMethod.ASTAR;
+    }
+
+    
+}
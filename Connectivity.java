@@ -0,0 +1,330 @@
+import java.util.Arrays;
+
+/**
+ * Connected-component index of a board, for rejecting queries between disconnected regions in constant time.
+ * Every free cell carries a label, and labels are merged with union-find, so two cells are connected exactly
+ * when their labels have the same root.
+ *
+ * The index follows the board through BoardListener:
+ * - A removed wall gets a new label, which is merged with the labels of its free neighbors.
+ * - A placed wall may split its component. If its free neighbors still touch each other around the wall, nothing
+ *   can have split. Otherwise one flood fill per group of neighbors runs in lockstep, and fills that meet are merged.
+ *   Every fill that runs out of cells has enumerated a region cut off from the rest, which gets a new label, so the
+ *   work is proportional to the smaller regions rather than the whole component.
+ */
+public class Connectivity implements BoardListener {
+
+    // Label of wall cells
+    private static final int WALL = -1;
+
+    private final Board board;
+    private final boolean diagonals;
+    private final int xSize;
+    private final int ySize;
+
+    // Label of each cell, WALL for walls
+    private int[] labels;
+
+    // Union-find forest over labels
+    private int[] parent;
+    private int labelCount;
+
+    // Flood fill scratch: owner of each visited cell, valid where stamp equals generation
+    private int[] owner;
+    private int[] stamp;
+    private int generation = 0;
+
+    /**
+     * Builds the index of a board and starts listening to its changes.
+     * @param board - Board to index
+     * @param diagonals - Whether diagonal moves connect cells
+     */
+    public Connectivity(Board board, boolean diagonals) {
+        this.board = board;
+        this.diagonals = diagonals;
+        this.xSize = board.getXSize();
+        this.ySize = board.getYSize();
+        this.labels = new int[xSize * ySize];
+        this.owner = new int[xSize * ySize];
+        this.stamp = new int[xSize * ySize];
+
+        // Listen before building, so a change made by another thread during the build waits for it and is then
+        // applied, instead of being missed
+        synchronized (this) {
+            board.addBoardListener(this);
+            rebuild();
+        }
+    }
+
+    /**
+     * Stops listening to the board. The object must not be used afterwards.
+     */
+    public void dispose() {
+        board.removeBoardListener(this);
+    }
+
+    /**
+     * Returns whether diagonal moves connect cells in this index.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns whether a path exists between two cells.
+     * @param a - First cell
+     * @param b - Second cell
+     * @return - true if both cells are free and in the same region
+     */
+    public synchronized boolean isConnected(int[] a, int[] b) {
+        int la = labels[a[1] * xSize + a[0]];
+        int lb = labels[b[1] * xSize + b[0]];
+        return la != WALL && lb != WALL && find(la) == find(lb);
+    }
+
+    /**
+     * Returns an identifier of the region of a cell. Identifiers are only comparable until the board changes.
+     * @param xPos
+     * @param yPos
+     * @return - the region, or -1 for walls
+     */
+    public synchronized int getRegion(int xPos, int yPos) {
+        int label = labels[yPos * xSize + xPos];
+        return label == WALL ? WALL : find(label);
+    }
+
+    public synchronized void tileChanged(int xPos, int yPos) {
+        // Labels are only ever added, so start over once they far outnumber the cells
+        if (labelCount > 4 * labels.length) {
+            rebuild();
+        } else if (board.isWall(xPos, yPos)) {
+            addWall(yPos * xSize + xPos);
+        } else {
+            removeWall(yPos * xSize + xPos);
+        }
+    }
+
+    public synchronized void boardCleared() {
+        rebuild();
+    }
+
+    /**
+     * Labels every region from scratch with one flood fill per region.
+     */
+    private void rebuild() {
+        Arrays.fill(labels, WALL);
+        parent = new int[64];
+        labelCount = 0;
+
+        int[] queue = new int[labels.length];
+        for (int c = 0; c < labels.length; c++) {
+            if (labels[c] != WALL || isWall(c)) {continue;}
+
+            int label = newLabel();
+            labels[c] = label;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = c;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int dir = 0; dir < directions(); dir++) {
+                    int n = neighbor(u, dir);
+                    if (n == -1 || labels[n] != WALL || isWall(n)) {continue;}
+                    labels[n] = label;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a freed cell to the index, merging the regions around it.
+     */
+    private void removeWall(int c) {
+        int label = newLabel();
+        labels[c] = label;
+        for (int dir = 0; dir < directions(); dir++) {
+            int n = neighbor(c, dir);
+            if (n != -1 && labels[n] != WALL) {
+                union(label, labels[n]);
+            }
+        }
+    }
+
+    /**
+     * Removes a walled cell from the index, giving every region it cut off a new label.
+     */
+    private void addWall(int c) {
+        labels[c] = WALL;
+
+        // Free neighbors, grouped by whether they touch each other without passing through c
+        int[] seeds = new int[8];
+        int k = 0;
+        for (int dir = 0; dir < directions(); dir++) {
+            int n = neighbor(c, dir);
+            if (n != -1 && labels[n] != WALL) {
+                seeds[k++] = n;
+            }
+        }
+        int[] group = new int[k];
+        for (int i = 0; i < k; i++) {
+            group[i] = i;
+        }
+        int groups = k;
+        for (int i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                if (adjacent(seeds[i], seeds[j]) && root(group, i) != root(group, j)) {
+                    group[root(group, i)] = root(group, j);
+                    groups--;
+                }
+            }
+        }
+        if (groups <= 1) {return;}
+
+        // One flood fill per group. cells[g] holds every cell visited by fill g, and the cells from heads[g] on are queued
+        generation++;
+        int[][] cells = new int[k][];
+        int[] sizes = new int[k];
+        int[] heads = new int[k];
+        int[] active = new int[groups];
+        int activeCount = 0;
+        for (int i = 0; i < k; i++) {
+            int g = root(group, i);
+            if (cells[g] == null) {
+                cells[g] = new int[16];
+                active[activeCount++] = g;
+            }
+            stamp[seeds[i]] = generation;
+            owner[seeds[i]] = g;
+            cells[g] = push(cells[g], sizes[g]++, seeds[i]);
+        }
+
+        // Expand one cell of every fill in turn until at most one fill is left
+        int[] finished = new int[groups];
+        int finishedCount = 0;
+        while (activeCount > 1) {
+            for (int a = 0; a < activeCount && activeCount > 1; a++) {
+                int g = active[a];
+                if (group[g] != g) {
+                    // Merged into another fill
+                    active[a--] = active[--activeCount];
+                    continue;
+                }
+                if (heads[g] == sizes[g]) {
+                    // Ran out of cells, so this fill is a complete region of its own
+                    finished[finishedCount++] = g;
+                    active[a--] = active[--activeCount];
+                    continue;
+                }
+
+                int u = cells[g][heads[g]++];
+                for (int dir = 0; dir < directions(); dir++) {
+                    int n = neighbor(u, dir);
+                    if (n == -1 || labels[n] == WALL) {continue;}
+
+                    if (stamp[n] != generation) {
+                        stamp[n] = generation;
+                        owner[n] = g;
+                        cells[g] = push(cells[g], sizes[g]++, n);
+                        continue;
+                    }
+
+                    int other = root(group, owner[n]);
+                    if (other == g) {continue;}
+
+                    // Fills met, so their groups are still connected. Move the other fill's cells into this one,
+                    // visited cells first so the queued cells stay at the end
+                    int[] merged = new int[Math.max(16, 2 * (sizes[g] + sizes[other]))];
+                    System.arraycopy(cells[g], 0, merged, 0, heads[g]);
+                    System.arraycopy(cells[other], 0, merged, heads[g], heads[other]);
+                    System.arraycopy(cells[g], heads[g], merged, heads[g] + heads[other], sizes[g] - heads[g]);
+                    System.arraycopy(cells[other], heads[other], merged, sizes[g] + heads[other], sizes[other] - heads[other]);
+                    cells[g] = merged;
+                    heads[g] += heads[other];
+                    sizes[g] += sizes[other];
+                    cells[other] = null;
+                    group[other] = g;
+                }
+            }
+        }
+
+        // Cut off regions get new labels, the last unfinished fill keeps the old one
+        for (int f = 0; f < finishedCount; f++) {
+            int g = finished[f];
+            int label = newLabel();
+            for (int i = 0; i < sizes[g]; i++) {
+                labels[cells[g][i]] = label;
+            }
+        }
+    }
+
+    private int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private int root(int[] group, int i) {
+        while (group[i] != i) {
+            i = group[i];
+        }
+        return i;
+    }
+
+    private int newLabel() {
+        if (labelCount == parent.length) {
+            parent = Arrays.copyOf(parent, 2 * parent.length);
+        }
+        parent[labelCount] = labelCount;
+        return labelCount++;
+    }
+
+    private int find(int label) {
+        while (parent[label] != label) {
+            // Path halving
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra != rb) {
+            parent[ra] = rb;
+        }
+    }
+
+    private int directions() {
+        return diagonals ? 8 : 4;
+    }
+
+    /**
+     * Returns the cell one step from c in a direction, or -1 outside the board.
+     */
+    private int neighbor(int c, int dir) {
+        int x = c % xSize + GridGraph.DX[dir];
+        int y = c / xSize + GridGraph.DY[dir];
+        if (x < 0 || y < 0 || x >= xSize || y >= ySize) {
+            return -1;
+        }
+        return y * xSize + x;
+    }
+
+    /**
+     * Returns whether two cells are one move apart.
+     */
+    private boolean adjacent(int a, int b) {
+        int dx = Math.abs(a % xSize - b % xSize);
+        int dy = Math.abs(a / xSize - b / xSize);
+        return diagonals ? Math.max(dx, dy) == 1 : dx + dy == 1;
+    }
+
+    private boolean isWall(int c) {
+        return board.isWall(c % xSize, c / xSize);
+    }
+}
@@ -0,0 +1,640 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Coarse-to-fine search over a pyramid of downsampled occupancy grids.
+ *
+ * Level 0 is the board. Each further level halves both sides, a cell standing for a 2x2 block of the level below,
+ * and is only blocked if all four cells of the block are. Walls one cell thick would vanish from such a level, so
+ * each level also keeps which moves between its cells are open: a move is open if some move of the level below
+ * crosses from the one block into the other. Every path on the board then has a counterpart on each coarser level.
+ * The pyramid stops at the first level with at most TOP_LEVEL_CELLS cells, and is built straight from the wall
+ * bits of the board, 64 cells at a time.
+ *
+ * A query plans on the coarsest level with A*, then searches each finer level only inside a corridor: the cells
+ * whose block lies within corridorRadius cells of the coarser path. Fine searches touch a band around the path
+ * instead of the whole board, and keep their node state in arrays sized to the corridor. A move costs the cost
+ * of the cell it enters on every level: on the board its terrain cost, on coarser levels the mean cost of the free
+ * cells of its block, so coarse plans already steer around expensive terrain.
+ *
+ * The free cells of a block need not be connected inside it, so a corridor can be cut off. A level is then
+ * searched once more inside a wider corridor, and if that fails too the query falls back to A* over the whole
+ * board. The path is the cheapest one inside the final corridor, but a cheaper one may lie outside it, so the
+ * result carries no suboptimality bound.
+ *
+ * The pyramid is rebuilt on the first query after the board version changes. An instance reuses its arrays
+ * between queries but may only run one query at a time.
+ */
+public class CorridorSearch {
+
+    public static final int DEFAULT_CORRIDOR_RADIUS = 1;
+
+    // The coarsest level has at most this many cells, few enough that the 80x80 board of the GUI gets a coarse level
+    private static final int TOP_LEVEL_CELLS = 64 * 64;
+
+    // A level whose corridor holds no path is searched again with the radius times this, plus this
+    private static final int RETRY_RADIUS_FACTOR = 4;
+
+    private final Board board;
+    private final boolean diagonals;
+    private final int corridorRadius;
+
+    // Version of the board the pyramid was built for, version - 1 before the first build
+    private int version;
+
+    // Kinds of bits kept for each level
+    private static final int FREE = 0;
+    private static final int RIGHT = 1;
+    private static final int DOWN = 2;
+    private static final int DOWN_RIGHT = 3;
+    private static final int DOWN_LEFT = 4;
+
+    // Size of each level, and the number of words in each of its rows
+    private int[] xSizes;
+    private int[] ySizes;
+    private int[] wordsPerRow;
+
+    // Wall bits of the board, level 0
+    private long[] walls;
+
+    // Free cells of each coarser level, and the open moves leaving each cell to the right, down, down and right,
+    // and down and left. Moves the other way are found at the neighbor. Diagonal moves are only kept with diagonals
+    private long[][] free;
+    private long[][] right;
+    private long[][] down;
+    private long[][] downRight;
+    private long[][] downLeft;
+
+    // Movement cost of each cell of each level as unsigned byte, row-major. Level 0 is the board's cost array.
+    // Null while every cell of the board costs 1
+    private byte[][] costs;
+
+    // Smallest cost of a free cell on each level, to scale the heuristic by
+    private int[] minCosts;
+
+    // Corridor of the level being searched, a hash set of cells on the level above with an id per cell.
+    // Slots hold cell + 1, so 0 marks an empty slot
+    private int[] corridorSlots = new int[16];
+    private int[] corridorIds = new int[16];
+    private int[] corridorCells = new int[16];
+    private int corridorCount;
+
+    // Node state of a level search by node id, valid where seen equals the generation of the search
+    private int[] g = new int[16];
+    private int[] parent = new int[16];
+    private int[] seen = new int[16];
+    private boolean[] closed = new boolean[16];
+    private int generation = 0;
+
+    // Number of cells expanded by the last level search
+    private int lastExpanded;
+
+    // Open list, reallocated when a search needs more nodes than it holds
+    private IndexedHeap open = new IndexedHeap(16, 4);
+    private int openCapacity = 16;
+
+    // Whether the last query had to search the whole board
+    private boolean fellBack;
+
+    /**
+     * Creates a corridor search with corridors DEFAULT_CORRIDOR_RADIUS coarse cells wide on each side of the path.
+     * @param board - Board to search
+     * @param diagonals - Whether diagonal moves are allowed
+     */
+    public CorridorSearch(Board board, boolean diagonals) {
+        this(board, diagonals, DEFAULT_CORRIDOR_RADIUS);
+    }
+
+    /**
+     * Creates a corridor search. The pyramid is built lazily on the first refresh().
+     * @param board - Board to search
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param corridorRadius - Number of coarse cells on each side of the coarse path that the corridor covers,
+     *                         at least 0
+     */
+    public CorridorSearch(Board board, boolean diagonals, int corridorRadius) {
+        if (corridorRadius < 0) {
+            throw new IllegalArgumentException("Corridor radius must be at least 0, was " + corridorRadius);
+        }
+        this.board = board;
+        this.diagonals = diagonals;
+        this.corridorRadius = corridorRadius;
+        this.version = board.getVersion() - 1;
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by this search.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the number of levels, including the board itself. Only valid after refresh().
+     * @return
+     */
+    public synchronized int getLevelCount() {
+        return xSizes == null ? 0 : xSizes.length;
+    }
+
+    /**
+     * Returns whether the last query found no path inside its corridor and searched the whole board.
+     * @return
+     */
+    public synchronized boolean hasFallenBack() {
+        return fellBack;
+    }
+
+    /**
+     * Rebuilds the pyramid if the board has changed since it was built.
+     */
+    public synchronized void refresh() {
+        int current = board.getVersion();
+        if (current == version && xSizes != null) {return;}
+        version = current;
+
+        // Halve until the level is small enough, or can't shrink any further
+        int levels = 1;
+        for (long x = board.getXSize(), y = board.getYSize(); x * y > TOP_LEVEL_CELLS && (x > 1 || y > 1); levels++) {
+            x = (x + 1) / 2;
+            y = (y + 1) / 2;
+        }
+
+        xSizes = new int[levels];
+        ySizes = new int[levels];
+        wordsPerRow = new int[levels];
+        free = new long[levels][];
+        right = new long[levels][];
+        down = new long[levels][];
+        downRight = new long[levels][];
+        downLeft = new long[levels][];
+        xSizes[0] = board.getXSize();
+        ySizes[0] = board.getYSize();
+        wordsPerRow[0] = board.getWordsPerRow();
+        walls = board.getWallWords();
+        for (int k = 1; k < levels; k++) {
+            xSizes[k] = (xSizes[k - 1] + 1) / 2;
+            ySizes[k] = (ySizes[k - 1] + 1) / 2;
+            wordsPerRow[k] = (xSizes[k] + 63) >>> 6;
+            downsample(k);
+        }
+
+        costs = new byte[levels][];
+        minCosts = new int[levels];
+        Arrays.fill(minCosts, 1);
+        if (!board.isUniform()) {
+            costs[0] = board.getCosts();
+            minCosts[0] = minCost(0);
+            for (int k = 1; k < levels; k++) {
+                aggregateCosts(k);
+            }
+        }
+    }
+
+    /**
+     * Computes the cost of each cell of a level as the rounded mean cost of the free cells of its block on the level
+     * below. Blocked cells keep cost 1, no move enters them.
+     * @param k - level to compute, at least 1
+     */
+    private void aggregateCosts(int k) {
+        int xSize = xSizes[k];
+        int below = xSizes[k - 1];
+        costs[k] = new byte[xSize * ySizes[k]];
+        for (int y = 0; y < ySizes[k]; y++) {
+            for (int x = 0; x < xSize; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int i = 0; i < 4; i++) {
+                    int fx = 2 * x + (i & 1);
+                    int fy = 2 * y + (i >> 1);
+                    if (isFree(k - 1, fx, fy)) {
+                        sum += costs[k - 1][fy * below + fx] & 0xFF;
+                        count++;
+                    }
+                }
+                costs[k][y * xSize + x] = (byte) (count == 0 ? 1 : (sum + count / 2) / count);
+            }
+        }
+        minCosts[k] = minCost(k);
+    }
+
+    /**
+     * Returns the smallest cost of a free cell of a level, 1 if it has none.
+     */
+    private int minCost(int level) {
+        int min = Board.MAX_COST;
+        boolean any = false;
+        for (int y = 0; y < ySizes[level]; y++) {
+            for (int x = 0; x < xSizes[level]; x++) {
+                if (isFree(level, x, y)) {
+                    min = Math.min(min, costs[level][y * xSizes[level] + x] & 0xFF);
+                    any = true;
+                }
+            }
+        }
+        return any ? min : 1;
+    }
+
+    private int cost(int level, int x, int y) {
+        return costs[level] == null ? 1 : costs[level][y * xSizes[level] + x] & 0xFF;
+    }
+
+    /**
+     * Computes the free cells and open moves of a level from the level below it, one word of 64 cells at a time.
+     * A cell is free if any cell of its 2x2 block is, and a move is open if any move of the level below crosses
+     * from the one block into the other.
+     * @param k - level to compute, at least 1
+     */
+    private void downsample(int k) {
+        int words = wordsPerRow[k];
+        int size = ySizes[k] * words;
+        free[k] = new long[size];
+        right[k] = new long[size];
+        down[k] = new long[size];
+        if (diagonals) {
+            downRight[k] = new long[size];
+            downLeft[k] = new long[size];
+        }
+
+        for (int y = 0; y < ySizes[k]; y++) {
+            // Rows a and b of the level below make up row y
+            int a = 2 * y;
+            int b = 2 * y + 1;
+            for (int w = 0; w < words; w++) {
+                int i = y * words + w;
+                free[k][i] = even(k - 1, FREE, a, w) | odd(k - 1, FREE, a, w) | even(k - 1, FREE, b, w) | odd(k - 1, FREE, b, w);
+
+                // Moves from column 2x + 1 into column 2x + 2, or from row b into the row below it
+                right[k][i] = odd(k - 1, RIGHT, a, w) | odd(k - 1, RIGHT, b, w);
+                down[k][i] = even(k - 1, DOWN, b, w) | odd(k - 1, DOWN, b, w);
+                if (!diagonals) {continue;}
+
+                // A diagonal move between rows a and b that leaves column 2x + 1 to the right of it crosses too,
+                // as does one going right from row b into the row below. Diagonal blocks only share a corner
+                long dlNext = (even(k - 1, DOWN_LEFT, a, w) >>> 1) | ((word(k - 1, DOWN_LEFT, a, 2 * w + 2) & 1L) << 63);
+                right[k][i] |= odd(k - 1, DOWN_RIGHT, a, w) | dlNext;
+                down[k][i] |= even(k - 1, DOWN_RIGHT, b, w) | odd(k - 1, DOWN_LEFT, b, w);
+                downRight[k][i] = odd(k - 1, DOWN_RIGHT, b, w);
+                downLeft[k][i] = even(k - 1, DOWN_LEFT, b, w);
+            }
+        }
+    }
+
+    /**
+     * Returns the bits of a level row in even columns 2x, for the 64 cells of word w on the next level.
+     */
+    private long even(int level, int kind, int y, int w) {
+        return compress(word(level, kind, y, 2 * w)) | (compress(word(level, kind, y, 2 * w + 1)) << 32);
+    }
+
+    /**
+     * Returns the bits of a level row in odd columns 2x + 1, for the 64 cells of word w on the next level.
+     */
+    private long odd(int level, int kind, int y, int w) {
+        return compress(word(level, kind, y, 2 * w) >>> 1) | (compress(word(level, kind, y, 2 * w + 1) >>> 1) << 32);
+    }
+
+    /**
+     * Packs the even bits of a word into its low half.
+     */
+    private static long compress(long x) {
+        x &= 0x5555555555555555L;
+        x = (x | (x >>> 1)) & 0x3333333333333333L;
+        x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+        return x;
+    }
+
+    /**
+     * Returns a word of free cells or open moves of a level, 0 outside of it. The board itself only has its wall
+     * bits, so its moves are worked out here: a move is open if both cells are free.
+     */
+    private long word(int level, int kind, int y, int w) {
+        if (y < 0 || y >= ySizes[level] || w < 0 || w >= wordsPerRow[level]) {return 0;}
+        if (level > 0) {
+            long[] bits = kind == FREE ? free[level] : kind == RIGHT ? right[level] : kind == DOWN ? down[level]
+                    : kind == DOWN_RIGHT ? downRight[level] : downLeft[level];
+            return bits[y * wordsPerRow[level] + w];
+        }
+
+        long cells = freeWord(y, w);
+        switch (kind) {
+            case RIGHT:
+                return cells & ((cells >>> 1) | (freeWord(y, w + 1) << 63));
+            case DOWN:
+                return cells & freeWord(y + 1, w);
+            case DOWN_RIGHT:
+                return cells & ((freeWord(y + 1, w) >>> 1) | (freeWord(y + 1, w + 1) << 63));
+            case DOWN_LEFT:
+                return cells & ((freeWord(y + 1, w) << 1) | (freeWord(y + 1, w - 1) >>> 63));
+            default:
+                return cells;
+        }
+    }
+
+    /**
+     * Returns a word of free cells of the board, with the padding past the end of the row cleared.
+     */
+    private long freeWord(int y, int w) {
+        if (y < 0 || y >= ySizes[0] || w < 0 || w >= wordsPerRow[0]) {return 0;}
+        long cells = ~walls[y * wordsPerRow[0] + w];
+        int used = xSizes[0] - 64 * w;
+        return used < 64 ? cells & ~(-1L << used) : cells;
+    }
+
+    private boolean isFree(int level, int x, int y) {
+        return 0 <= x && x < xSizes[level] && 0 <= y && y < ySizes[level]
+                && (word(level, FREE, y, x >>> 6) & (1L << x)) != 0;
+    }
+
+    /**
+     * Checks whether a move leaves a free cell of a level in a direction. On the board that needs a free target,
+     * on coarser levels an open move.
+     */
+    private boolean canMove(int level, int x, int y, int dir) {
+        if (level == 0) {
+            return isFree(0, x + GridGraph.DX[dir], y + GridGraph.DY[dir]);
+        }
+        switch (dir) {
+            case 0:
+                return x > 0 && isSet(right[level], level, x - 1, y);
+            case 1:
+                return isSet(right[level], level, x, y);
+            case 2:
+                return y > 0 && isSet(down[level], level, x, y - 1);
+            case 3:
+                return isSet(down[level], level, x, y);
+            case 4:
+                return x > 0 && y > 0 && isSet(downRight[level], level, x - 1, y - 1);
+            case 5:
+                return isSet(downLeft[level], level, x, y);
+            case 6:
+                return x + 1 < xSizes[level] && y > 0 && isSet(downLeft[level], level, x + 1, y - 1);
+            default:
+                return isSet(downRight[level], level, x, y);
+        }
+    }
+
+    private boolean isSet(long[] bits, int level, int x, int y) {
+        return (bits[y * wordsPerRow[level] + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Computes a path from start to end, planned on the coarsest level and refined inside a corridor on each
+     * finer level.
+     * @param start - Start node
+     * @param end - End node
+     * @param context - Search context for the fallback search over the whole board, reset by it
+     * @return - the path, with the number of cells expanded on all levels. Paths found inside the corridor have
+     *           an infinite bound, since a cheaper path may lie outside it, the fallback's bound is 1.
+     */
+    public synchronized PathResult search(int[] start, int[] end, SearchContext context) {
+        refresh();
+        fellBack = false;
+
+        int s = start[1] * board.getXSize() + start[0];
+        int t = end[1] * board.getXSize() + end[0];
+        if (s == t) {
+            return new PathResult(new ArrayList<>(), 0, 0);
+        }
+
+        // Plan on the coarsest level, then refine level by level
+        int expanded = 0;
+        int top = xSizes.length - 1;
+        int[] path = searchLevel(top, false, start[0] >> top, start[1] >> top, end[0] >> top, end[1] >> top);
+        expanded += lastExpanded;
+        int level = top;
+        while (level > 0 && path != null) {
+            int[] coarse = path;
+            buildCorridor(level, coarse, corridorRadius);
+            level--;
+            path = searchLevel(level, true, start[0] >> level, start[1] >> level, end[0] >> level, end[1] >> level);
+            expanded += lastExpanded;
+
+            // A detour around a blocked part of the coarse path is usually close by, try a wider corridor once
+            if (path == null) {
+                buildCorridor(level + 1, coarse, RETRY_RADIUS_FACTOR * corridorRadius + RETRY_RADIUS_FACTOR);
+                path = searchLevel(level, true, start[0] >> level, start[1] >> level, end[0] >> level, end[1] >> level);
+                expanded += lastExpanded;
+            }
+        }
+
+        if (path == null && level == top) {
+            // The coarsest level lets through every path of the board, so if it has no path, the board has none either
+            return new PathResult(new ArrayList<>(), -1, expanded);
+        }
+
+        if (path == null) {
+            // The corridor is cut off somewhere, search the whole board
+            fellBack = true;
+            GridGraph graph = board.getGraph(diagonals);
+            Algorithm.A_Star(graph, start, end, context, null, false);
+            PathResult result = PathResult.fromContext(context, graph, start, end);
+            return new PathResult(result.getPath(), result.getCost(), expanded + result.getExpanded());
+        }
+
+        // Paths are ordered from end to start, and exclude both
+        ArrayList<int[]> cells = new ArrayList<>();
+        int cost = 0;
+        for (int i = path.length - 1; i > 0; i--) {
+            int x = path[i] % board.getXSize();
+            int y = path[i] / board.getXSize();
+            cost += board.getCost(x, y);
+            if (i < path.length - 1) {
+                cells.add(new int[] {x, y});
+            }
+        }
+        return new PathResult(cells, cost, expanded, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Builds the corridor of the level below a path: the free cells of the path's level within a radius of the path.
+     * @param level - level of the path
+     * @param path - cells of the path
+     * @param radius - number of cells on each side of the path
+     */
+    private void buildCorridor(int level, int[] path, int radius) {
+        int capacity = Integer.highestOneBit(Math.max(16, 4 * path.length * (2 * radius + 1))) * 2;
+        if (corridorSlots.length < capacity) {
+            corridorSlots = new int[capacity];
+            corridorIds = new int[capacity];
+        } else {
+            Arrays.fill(corridorSlots, 0);
+        }
+        corridorCount = 0;
+
+        int xSize = xSizes[level];
+        for (int cell : path) {
+            int cx = cell % xSize;
+            int cy = cell / xSize;
+            for (int y = cy - radius; y <= cy + radius; y++) {
+                for (int x = cx - radius; x <= cx + radius; x++) {
+                    if (isFree(level, x, y)) {
+                        addToCorridor(y * xSize + x);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addToCorridor(int cell) {
+        // Keep the table at most half full
+        if (2 * (corridorCount + 1) > corridorSlots.length) {
+            int[] cells = Arrays.copyOf(corridorCells, corridorCount);
+            corridorSlots = new int[2 * corridorSlots.length];
+            corridorIds = new int[corridorSlots.length];
+            corridorCount = 0;
+            for (int c : cells) {
+                addToCorridor(c);
+            }
+        }
+
+        int mask = corridorSlots.length - 1;
+        int slot = hash(cell) & mask;
+        while (corridorSlots[slot] != 0) {
+            if (corridorSlots[slot] == cell + 1) {return;}
+            slot = (slot + 1) & mask;
+        }
+        corridorSlots[slot] = cell + 1;
+        corridorIds[slot] = corridorCount;
+        if (corridorCount == corridorCells.length) {
+            corridorCells = Arrays.copyOf(corridorCells, 2 * corridorCount);
+        }
+        corridorCells[corridorCount++] = cell;
+    }
+
+    /**
+     * Returns the id of a cell in the corridor, or -1 if it isn't in it.
+     */
+    private int corridorId(int cell) {
+        int mask = corridorSlots.length - 1;
+        int slot = hash(cell) & mask;
+        while (corridorSlots[slot] != 0) {
+            if (corridorSlots[slot] == cell + 1) {return corridorIds[slot];}
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(int cell) {
+        return cell * 0x9E3779B9 >>> 7;
+    }
+
+    /**
+     * Runs A* on a level, over every cell or only over the cells whose block on the level above is in the corridor.
+     * Nodes are numbered by cell index, or by corridor id times 4 plus the position in the block.
+     * @return - cells of the path from start to end, both included, or null if there is none
+     */
+    private int[] searchLevel(int level, boolean inCorridor, int sx, int sy, int tx, int ty) {
+        int xSize = xSizes[level];
+        int nodes = inCorridor ? 4 * corridorCount : xSize * ySizes[level];
+        if (g.length < nodes) {
+            g = new int[nodes];
+            parent = new int[nodes];
+            seen = new int[nodes];
+            closed = new boolean[nodes];
+            generation = 0;
+        }
+        if (nodes > openCapacity) {
+            open = new IndexedHeap(nodes, 4);
+            openCapacity = nodes;
+        }
+        generation++;
+        lastExpanded = 0;
+
+        // The heuristic scales the distance by the smallest cost of the level, so it never overestimates
+        int minCost = minCosts[level];
+        int s = node(level, inCorridor, sx, sy);
+        int t = node(level, inCorridor, tx, ty);
+        if (s == -1 || t == -1) {return null;}
+        visit(s, 0, -1);
+        open.insert(s, distance(sx, sy, tx, ty) * minCost);
+
+        while (!open.isEmpty()) {
+            int c = open.poll();
+            if (c == t) {break;}
+            closed[c] = true;
+            lastExpanded++;
+
+            int cell = cell(level, inCorridor, c);
+            int x = cell % xSize;
+            int y = cell / xSize;
+            for (int dir = 0; dir < (diagonals ? 8 : 4); dir++) {
+                if (!canMove(level, x, y, dir)) {continue;}
+                int nx = x + GridGraph.DX[dir];
+                int ny = y + GridGraph.DY[dir];
+                int n = node(level, inCorridor, nx, ny);
+                if (n == -1) {continue;}
+                if (seen[n] == generation && closed[n]) {continue;}
+
+                // If newg isnt better than the adjacent node's previous g, dont do anything
+                int newg = g[c] + cost(level, nx, ny);
+                if (seen[n] == generation && newg >= g[n]) {continue;}
+
+                int newf = newg + distance(nx, ny, tx, ty) * minCost;
+                if (seen[n] == generation) {
+                    g[n] = newg;
+                    parent[n] = c;
+                    open.decreaseKey(n, newf);
+                } else {
+                    visit(n, newg, c);
+                    open.insert(n, newf);
+                }
+            }
+        }
+        open.clear();
+
+        if (seen[t] != generation) {return null;}
+
+        // Follow the parents back from the end
+        int length = 1;
+        for (int n = t; n != s; n = parent[n]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int n = t, i = length - 1; i >= 0; n = parent[n], i--) {
+            path[i] = cell(level, inCorridor, n);
+        }
+        return path;
+    }
+
+    private void visit(int n, int cost, int from) {
+        seen[n] = generation;
+        closed[n] = false;
+        g[n] = cost;
+        parent[n] = from;
+    }
+
+    private int distance(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
+        return diagonals ? Math.max(dx, dy) : dx + dy;
+    }
+
+    /**
+     * Returns the node id of a cell of a level, or -1 if it lies outside the corridor.
+     */
+    private int node(int level, boolean inCorridor, int x, int y) {
+        if (!inCorridor) {
+            return y * xSizes[level] + x;
+        }
+        int id = corridorId((y >> 1) * xSizes[level + 1] + (x >> 1));
+        return id == -1 ? -1 : 4 * id + ((y & 1) << 1) + (x & 1);
+    }
+
+    /**
+     * Returns the cell index on a level of a node id.
+     */
+    private int cell(int level, boolean inCorridor, int n) {
+        if (!inCorridor) {
+            return n;
+        }
+        int block = corridorCells[n >> 2];
+        int x = 2 * (block % xSizes[level + 1]) + (n & 1);
+        int y = 2 * (block / xSizes[level + 1]) + ((n >> 1) & 1);
+        return y * xSizes[level] + x;
+    }
+}
@@ -0,0 +1,431 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+
+/**
+ * D* Lite incremental planner.
+ * The search runs backward from the goal, so g(n) is the cost of moving from n to the goal. Every cell also keeps
+ * rhs(n), the best cost through its neighbors, and a cell is queued while the two disagree. When walls or costs
+ * change, only the changed cells and their neighbors get new rhs values, and the repair spreads from there
+ * until the start is consistent again. Cells far from the edits keep their values, so replanning after small
+ * edits touches a small part of the board.
+ *
+ * The start may move between queries (an agent walking along the path): the key modifier km keeps queued keys
+ * valid without reordering the queue. Changing the goal, clearing the board or lowering the smallest movement
+ * cost (which invalidates the heuristic) starts over from scratch.
+ */
+public class DStarLite implements BoardListener {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final Board board;
+    private final boolean diagonals;
+
+    // Graph kept in sync with the board through incremental updates
+    private GridGraph graph;
+
+    // Cost from each cell to the goal, and one-step lookahead of it
+    private int[] g = new int[0];
+    private int[] rhs = new int[0];
+
+    // Queue of inconsistent cells, keyed by (min(g, rhs) + h + km, min(g, rhs))
+    private LongHeap open;
+
+    // Goal of the current search state, -1 before the first search
+    private int goal = -1;
+
+    // Start at the last query, and accumulated heuristic drift since the state was created
+    private int last = -1;
+    private int km = 0;
+
+    // Smallest movement cost the heuristic was scaled by
+    private int minCost;
+
+    // Cells changed since the last query, and whether the search state must be rebuilt instead
+    private ArrayList<Integer> dirtyCells = new ArrayList<>();
+    private boolean rebuild = true;
+
+    // Status of the cells touched by the current query, for vizualization and expansion counts
+    private SearchContext context = new SearchContext(0);
+
+    /**
+     * Creates a planner for a board and starts listening to its changes.
+     * @param board - Board to plan on
+     * @param diagonals - Whether diagonal moves are allowed
+     */
+    public DStarLite(Board board, boolean diagonals) {
+        this.board = board;
+        this.diagonals = diagonals;
+        board.addBoardListener(this);
+    }
+
+    /**
+     * Stops listening to the board. The object must not be used afterwards.
+     */
+    public void dispose() {
+        board.removeBoardListener(this);
+    }
+
+    public synchronized void tileChanged(int xPos, int yPos) {
+        if (!rebuild) {
+            dirtyCells.add(yPos * board.getXSize() + xPos);
+        }
+    }
+
+    public synchronized void costChanged(int xPos, int yPos) {
+        tileChanged(xPos, yPos);
+    }
+
+    public synchronized void boardCleared() {
+        rebuild = true;
+        dirtyCells.clear();
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by this planner.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the graph the planner searches. Only valid after a search.
+     * @return
+     */
+    public synchronized GridGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Computes the cheapest path from start to end, reusing the search state of the previous query if the goal is
+     * the same. Board edits since the previous query are repaired incrementally.
+     * @param start - Start node
+     * @param end - End node
+     * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     * @return - the path, with the number of cells expanded by this query
+     */
+    public synchronized PathResult search(int[] start, int[] end, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        if (rebuild) {
+            graph = board.getGraph(diagonals);
+            dirtyCells.clear();
+            rebuild = false;
+            goal = -1;
+        }
+
+        // Apply board edits to the graph before deciding whether the state can be kept
+        int[] changed = new int[dirtyCells.size()];
+        for (int i = 0; i < changed.length; i++) {
+            int cell = dirtyCells.get(i);
+            int x = graph.getX(cell);
+            int y = graph.getY(cell);
+            graph.setWall(x, y, board.isWall(x, y));
+            graph.setCost(x, y, board.getCost(x, y));
+            changed[i] = cell;
+        }
+        dirtyCells.clear();
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+        context.reset(graph.size());
+
+        if (t != goal || graph.getMinCost() != minCost) {
+            initialize(s, t);
+        } else {
+            // The start moved, so every queued key is now too large by at most the distance it moved
+            km += heuristic(last, s);
+            last = s;
+
+            // Outgoing edges changed for the edited cells and their neighbors
+            for (int cell : changed) {
+                updateRhs(cell);
+                for (int dir = 0; dir < 8; dir++) {
+                    int x = graph.getX(cell) + GridGraph.DX[dir];
+                    int y = graph.getY(cell) + GridGraph.DY[dir];
+                    if (x < 0 || y < 0 || x >= graph.getXSize() || y >= graph.getYSize()) {continue;}
+                    if (!diagonals && dir >= 4) {continue;}
+                    updateRhs(graph.index(x, y));
+                }
+            }
+        }
+
+        computeShortestPath(s, vizualization, saveVizualization);
+
+        // Follow the cheapest neighbors from the start to the goal
+        ArrayList<int[]> path = new ArrayList<>();
+        if (g[s] == INFINITY) {
+            return new PathResult(path, -1, context.getExpandedCount());
+        }
+        int node = s;
+        while (node != t) {
+            int next = -1;
+            int best = INFINITY;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(node)]) {
+                int n = node + graph.getOffset(dir);
+                if (g[n] == INFINITY) {continue;}
+                int cost = graph.getCost(n) + g[n];
+                if (cost < best) {
+                    best = cost;
+                    next = n;
+                }
+            }
+            if (next == -1) {
+                // Only possible if the state is inconsistent, report no path rather than a broken one
+                return new PathResult(new ArrayList<>(), -1, context.getExpandedCount());
+            }
+            if (next != t) {
+                path.add(new int[] {graph.getX(next), graph.getY(next)});
+            }
+            node = next;
+        }
+
+        // Paths are ordered from end to start, like Algorithm.A_Star_path
+        Collections.reverse(path);
+        return new PathResult(path, g[s], context.getExpandedCount());
+    }
+
+    /**
+     * Forgets all search state and starts over with a new goal.
+     */
+    private void initialize(int s, int t) {
+        int size = graph.size();
+        if (g.length != size) {
+            g = new int[size];
+            rhs = new int[size];
+            open = new LongHeap(size);
+        }
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        open.clear();
+
+        goal = t;
+        last = s;
+        km = 0;
+        minCost = graph.getMinCost();
+
+        rhs[t] = 0;
+        open.insert(t, key(t, s));
+        context.set(t, 0, 0, -1, SearchContext.OPEN);
+    }
+
+    /**
+     * Expands inconsistent cells until the start is consistent and no queued key is below its key.
+     */
+    private void computeShortestPath(int s, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        while (!open.isEmpty() && (open.peekKey() < key(s, s) || rhs[s] != g[s])) {
+            int u = open.peek();
+            long oldKey = open.peekKey();
+            long newKey = key(u, s);
+
+            if (oldKey < newKey) {
+                // Key grew since u was queued (km or g changed), requeue it
+                open.update(u, newKey);
+                continue;
+            }
+
+            open.poll();
+            context.setStatus(u, SearchContext.CLOSED);
+            context.countExpansion();
+
+            if (g[u] > rhs[u]) {
+                // Overconsistent, g can be lowered to rhs and neighbors may improve through u
+                g[u] = rhs[u];
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(u)]) {
+                    int n = u + graph.getOffset(dir);
+                    if (n != goal) {
+                        int cost = graph.getCost(u) + g[u];
+                        if (cost < rhs[n]) {
+                            rhs[n] = cost;
+                        }
+                        updateVertex(n, s);
+                    }
+                }
+            } else {
+                // Underconsistent, raise g and recompute every cell that may have depended on it
+                g[u] = INFINITY;
+                updateRhs(u);
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(u)]) {
+                    updateRhs(u + graph.getOffset(dir));
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of queued and expanded cells to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+        }
+    }
+
+    /**
+     * Recomputes rhs of a cell from its neighbors and requeues it if it is inconsistent.
+     */
+    private void updateRhs(int u) {
+        if (u != goal) {
+            int best = INFINITY;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(u)]) {
+                int n = u + graph.getOffset(dir);
+                if (g[n] == INFINITY) {continue;}
+                best = Math.min(best, graph.getCost(n) + g[n]);
+            }
+            rhs[u] = best;
+        }
+        updateVertex(u, last);
+    }
+
+    /**
+     * Queues a cell if it is inconsistent, and removes it from the queue otherwise.
+     */
+    private void updateVertex(int u, int s) {
+        if (g[u] != rhs[u]) {
+            long k = key(u, s);
+            if (open.contains(u)) {
+                open.update(u, k);
+            } else {
+                open.insert(u, k);
+                context.set(u, 0, 0, -1, SearchContext.OPEN);
+            }
+        } else if (open.contains(u)) {
+            open.remove(u);
+        }
+    }
+
+    /**
+     * Packs the two-part key of a cell into one long, so keys compare lexicographically.
+     */
+    private long key(int u, int s) {
+        int m = Math.min(g[u], rhs[u]);
+        if (m == INFINITY) {
+            return Long.MAX_VALUE;
+        }
+        return ((long) (m + heuristic(s, u) + km) << 32) | m;
+    }
+
+    private int heuristic(int a, int b) {
+        return graph.distance(graph.getX(a), graph.getY(a), graph.getX(b), graph.getY(b)) * minCost;
+    }
+
+    /**
+     * Indexed binary min-heap with long keys, supporting key changes in both directions and removal.
+     */
+    private static final class LongHeap {
+        private final int[] nodes;
+        private final long[] keys;
+
+        // Position of each node in the heap, -1 if absent
+        private final int[] position;
+        private int size = 0;
+
+        LongHeap(int capacity) {
+            nodes = new int[capacity];
+            keys = new long[capacity];
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                position[nodes[i]] = -1;
+            }
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int node) {
+            return position[node] != -1;
+        }
+
+        int peek() {
+            return nodes[0];
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        void insert(int node, long key) {
+            nodes[size] = node;
+            keys[size] = key;
+            position[node] = size;
+            siftUp(size++);
+        }
+
+        void update(int node, long key) {
+            int i = position[node];
+            long old = keys[i];
+            keys[i] = key;
+            if (key < old) {
+                siftUp(i);
+            } else {
+                siftDown(i);
+            }
+        }
+
+        int poll() {
+            int node = nodes[0];
+            remove(node);
+            return node;
+        }
+
+        void remove(int node) {
+            int i = position[node];
+            position[node] = -1;
+            size--;
+            if (i == size) {return;}
+
+            // Move the last entry into the hole and restore heap order in whichever direction it is broken
+            int moved = nodes[size];
+            nodes[i] = moved;
+            keys[i] = keys[size];
+            position[moved] = i;
+            siftUp(i);
+            if (position[moved] == i) {
+                siftDown(i);
+            }
+        }
+
+        private void siftUp(int i) {
+            int node = nodes[i];
+            long key = keys[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {break;}
+                move(parent, i);
+                i = parent;
+            }
+            place(node, key, i);
+        }
+
+        private void siftDown(int i) {
+            int node = nodes[i];
+            long key = keys[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {break;}
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {break;}
+                move(child, i);
+                i = child;
+            }
+            place(node, key, i);
+        }
+
+        private void move(int from, int to) {
+            nodes[to] = nodes[from];
+            keys[to] = keys[from];
+            position[nodes[to]] = to;
+        }
+
+        private void place(int node, long key, int i) {
+            nodes[i] = node;
+            keys[i] = key;
+            position[node] = i;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+import java.util.Arrays;
+
+/**
+ * Dead-end and swamp pruning: removes the cells no shortest path needs to pass through, so searches don't
+ * expand them.
+ *
+ * Cells are peeled off the board one at a time. A cell c can be removed if every two of its remaining
+ * neighbors a and b are adjacent to each other, or share another remaining neighbor d that costs no more than c.
+ * Any path a, c, b can then be replaced by a, b or a, d, b at no extra cost, so removing c keeps the cost of
+ * the cheapest path between every two remaining cells. Dead ends and pockets are peeled off from their far end,
+ * and swamps, areas a path can always go around, from their edges. Removing a cell can make its neighbors
+ * removable, so they are checked again until nothing changes.
+ *
+ * Adjacent removed cells form regions, which are stored as compact region ids. A region never touches another
+ * one, so any of them can be put back on its own without making paths through the others cheaper. A query whose
+ * start or end lies in a region restores that region only, and searches the remaining cells. Regions are capped
+ * in size so restoring one stays cheap.
+ *
+ * The pruned graph is rebuilt on the first query after the board version changes. It is shared between
+ * queries, so prepare() may only be used by one search at a time.
+ */
+public class DeadEndPruning {
+
+    public static final int DEFAULT_MAX_REGION_SIZE = 1024;
+
+    private final Board board;
+    private final boolean diagonals;
+    private final int maxRegionSize;
+
+    // Version of the board the regions were built for, version - 1 before the first build
+    private int version;
+
+    // Graph with every region walled off, apart from the restored ones
+    private GridGraph pruned;
+
+    // Region of each cell, -1 for walls and cells that were kept
+    private int[] region = new int[0];
+
+    // Cells of region i are regionCells[regionStart[i]] to regionCells[regionStart[i + 1] - 1]
+    private int[] regionStart = new int[1];
+    private int[] regionCells = new int[0];
+
+    // Regions currently restored in the pruned graph, -1 if none
+    private int restoredStart = -1;
+    private int restoredEnd = -1;
+
+    /**
+     * Creates a pruning pass for a board with regions of at most DEFAULT_MAX_REGION_SIZE cells.
+     * @param board - Board to prune
+     * @param diagonals - Whether diagonal moves are allowed
+     */
+    public DeadEndPruning(Board board, boolean diagonals) {
+        this(board, diagonals, DEFAULT_MAX_REGION_SIZE);
+    }
+
+    /**
+     * Creates a pruning pass for a board. The regions are found lazily on the first refresh().
+     * @param board - Board to prune
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param maxRegionSize - Largest number of cells in one region, at least 1
+     */
+    public DeadEndPruning(Board board, boolean diagonals, int maxRegionSize) {
+        if (maxRegionSize < 1) {
+            throw new IllegalArgumentException("Maximum region size must be at least 1, was " + maxRegionSize);
+        }
+        this.board = board;
+        this.diagonals = diagonals;
+        this.maxRegionSize = maxRegionSize;
+        this.version = board.getVersion() - 1;
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by the pruned graph.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the number of regions. Only valid after refresh().
+     * @return
+     */
+    public synchronized int getRegionCount() {
+        return regionStart.length - 1;
+    }
+
+    /**
+     * Returns the number of cells in all regions together. Only valid after refresh().
+     * @return
+     */
+    public synchronized int getPrunedCount() {
+        return regionCells.length;
+    }
+
+    /**
+     * Returns the region of a cell, or -1 if it was kept or is a wall. Only valid after refresh().
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public synchronized int getRegion(int xPos, int yPos) {
+        return region[yPos * board.getXSize() + xPos];
+    }
+
+    /**
+     * Finds the regions again if the board has changed since they were found.
+     * @return - the pruned graph, with every region walled off
+     */
+    public synchronized GridGraph refresh() {
+        build();
+        restore(-1, -1);
+        return pruned;
+    }
+
+    /**
+     * Returns the pruned graph for a query, with the regions of start and end restored.
+     * The graph stays valid until the next call.
+     * @param start - Start node
+     * @param end - End node
+     * @return - a graph on which the cheapest path from start to end costs the same as on the board
+     */
+    public synchronized GridGraph prepare(int[] start, int[] end) {
+        build();
+        restore(region[pruned.index(start[0], start[1])], region[pruned.index(end[0], end[1])]);
+        return pruned;
+    }
+
+    /**
+     * Peels the board and builds the pruned graph, unless it was built for the current board version.
+     */
+    private void build() {
+        int current = board.getVersion();
+        if (current == version && pruned != null) {return;}
+
+        GridGraph graph = board.getGraph(diagonals);
+        version = current;
+        int size = graph.size();
+
+        // Removed cells, and the union-find forest joining adjacent removed cells with the size of each tree
+        boolean[] removed = new boolean[size];
+        int[] parent = new int[size];
+        int[] treeSize = new int[size];
+
+        // Every free cell is checked once, and again whenever one of its neighbors is removed
+        int[] queue = new int[size];
+        boolean[] queued = new boolean[size];
+        int head = 0;
+        int count = 0;
+        for (int c = 0; c < size; c++) {
+            if (graph.isWalkable(graph.getX(c), graph.getY(c))) {
+                queue[count++] = c;
+                queued[c] = true;
+            }
+        }
+
+        int[] neighbors = new int[8];
+        int[] roots = new int[8];
+        while (count > 0) {
+            int c = queue[head];
+            head = head + 1 == size ? 0 : head + 1;
+            count--;
+            queued[c] = false;
+
+            // Collect the remaining neighbors, and the regions the cell would join
+            int neighborCount = 0;
+            int rootCount = 0;
+            int joinedSize = 1;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                if (!removed[n]) {
+                    neighbors[neighborCount++] = n;
+                    continue;
+                }
+                int root = find(parent, n);
+                boolean seen = false;
+                for (int i = 0; i < rootCount; i++) {
+                    seen |= roots[i] == root;
+                }
+                if (!seen) {
+                    roots[rootCount++] = root;
+                    joinedSize += treeSize[root];
+                }
+            }
+            if (joinedSize > maxRegionSize || !isRemovable(graph, removed, c, neighbors, neighborCount)) {continue;}
+
+            // Remove the cell and join it with the regions next to it
+            removed[c] = true;
+            parent[c] = c;
+            treeSize[c] = joinedSize;
+            for (int i = 0; i < rootCount; i++) {
+                parent[roots[i]] = c;
+            }
+
+            // The remaining neighbors lost a neighbor, so they may be removable now
+            for (int i = 0; i < neighborCount; i++) {
+                int n = neighbors[i];
+                if (!queued[n]) {
+                    queued[n] = true;
+                    queue[(head + count++) % size] = n;
+                }
+            }
+        }
+
+        // Number the regions compactly, in order of their first cell
+        region = new int[size];
+        Arrays.fill(region, -1);
+        int[] rootRegion = new int[size];
+        Arrays.fill(rootRegion, -1);
+        int regions = 0;
+        int prunedCount = 0;
+        for (int c = 0; c < size; c++) {
+            if (!removed[c]) {continue;}
+            int root = find(parent, c);
+            if (rootRegion[root] == -1) {
+                rootRegion[root] = regions++;
+            }
+            region[c] = rootRegion[root];
+            prunedCount++;
+        }
+
+        // Group the cells by region, and wall them off
+        regionStart = new int[regions + 1];
+        for (int c = 0; c < size; c++) {
+            if (region[c] != -1) {
+                regionStart[region[c] + 1]++;
+            }
+        }
+        for (int i = 0; i < regions; i++) {
+            regionStart[i + 1] += regionStart[i];
+        }
+        regionCells = new int[prunedCount];
+        int[] next = Arrays.copyOf(regionStart, regions);
+        for (int c = 0; c < size; c++) {
+            if (region[c] != -1) {
+                regionCells[next[region[c]]++] = c;
+                graph.setWall(graph.getX(c), graph.getY(c), true);
+            }
+        }
+
+        pruned = graph;
+        restoredStart = -1;
+        restoredEnd = -1;
+    }
+
+    /**
+     * Walls off the restored regions that are no longer needed, and restores the specified ones.
+     * @param first - Region to restore, or -1
+     * @param second - Region to restore, or -1
+     */
+    private void restore(int first, int second) {
+        if (restoredStart != -1 && restoredStart != first && restoredStart != second) {
+            setRegionWalls(restoredStart, true);
+        }
+        if (restoredEnd != -1 && restoredEnd != restoredStart && restoredEnd != first && restoredEnd != second) {
+            setRegionWalls(restoredEnd, true);
+        }
+        if (first != -1 && first != restoredStart && first != restoredEnd) {
+            setRegionWalls(first, false);
+        }
+        if (second != -1 && second != first && second != restoredStart && second != restoredEnd) {
+            setRegionWalls(second, false);
+        }
+        restoredStart = first;
+        restoredEnd = second;
+    }
+
+    private void setRegionWalls(int r, boolean wall) {
+        for (int i = regionStart[r]; i < regionStart[r + 1]; i++) {
+            int c = regionCells[i];
+            pruned.setWall(pruned.getX(c), pruned.getY(c), wall);
+        }
+    }
+
+    /**
+     * Checks whether every two remaining neighbors of a cell are adjacent, or share another remaining neighbor
+     * costing no more than the cell.
+     */
+    private boolean isRemovable(GridGraph graph, boolean[] removed, int c, int[] neighbors, int neighborCount) {
+        int cost = graph.getCost(c);
+        for (int i = 0; i < neighborCount; i++) {
+            int a = neighbors[i];
+            for (int j = i + 1; j < neighborCount; j++) {
+                int b = neighbors[j];
+                if (isAdjacent(graph, a, b)) {continue;}
+
+                boolean bypassed = false;
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(a)]) {
+                    int d = a + graph.getOffset(dir);
+                    if (d != c && !removed[d] && graph.getCost(d) <= cost && isAdjacent(graph, d, b)) {
+                        bypassed = true;
+                        break;
+                    }
+                }
+                if (!bypassed) {return false;}
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a single move leads from one free cell to another.
+     */
+    private boolean isAdjacent(GridGraph graph, int a, int b) {
+        int dx = Math.abs(graph.getX(a) - graph.getX(b));
+        int dy = Math.abs(graph.getY(a) - graph.getY(b));
+        return diagonals ? Math.max(dx, dy) == 1 : dx + dy == 1;
+    }
+
+    private int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Distance and direction field towards one goal, for routing many agents to the same goal.
+ * The field is computed once by a search backward from the goal over the whole board. Afterwards every cell
+ * knows its cost to the goal and the direction of its next step, so the next step of any agent is a single lookup
+ * and a full path takes time proportional to its length.
+ *
+ * A field describes the board at the version it was computed for, see FlowFieldCache for reusing fields.
+ */
+public class FlowField {
+
+    // Distance of cells that can't reach the goal
+    public static final int UNREACHED = -1;
+
+    // Direction of the goal and of cells that can't reach it
+    public static final byte NO_DIRECTION = -1;
+
+    // Direction leading back, for each direction in GridGraph order
+    private static final int[] OPPOSITE = {1, 0, 3, 2, 7, 6, 5, 4};
+
+    private final int[] goal;
+    private final int version;
+    private final boolean diagonals;
+    private final int xSize;
+    private final int ySize;
+
+    // Cost of moving from each cell to the goal, indexed by cell index
+    private final int[] distances;
+
+    // Direction of the first step from each cell towards the goal, in GridGraph order
+    private final byte[] directions;
+
+    private FlowField(GridGraph graph, int[] goal, int version) {
+        this.goal = new int[] {goal[0], goal[1]};
+        this.version = version;
+        this.diagonals = graph.hasDiagonals();
+        this.xSize = graph.getXSize();
+        this.ySize = graph.getYSize();
+        this.distances = new int[graph.size()];
+        this.directions = new byte[graph.size()];
+    }
+
+    /**
+     * Computes the field of a goal over the whole graph.
+     * Uniform graphs are searched with BFS, weighted ones with Dijkstra over Dial's bucket queue.
+     * Moving onto a cell costs the cell's cost, so the distance of a cell is the cost of all cells entered
+     * on the way to the goal, including the goal.
+     * @param graph - Graph storing neighbor bitmasks and movement costs
+     * @param goal - Goal node
+     * @param version - Board version the graph was built from, see Board.getVersion()
+     * @return - the field
+     */
+    public static FlowField compute(GridGraph graph, int[] goal, int version) {
+        FlowField field = new FlowField(graph, goal, version);
+        int[] distances = field.distances;
+        byte[] directions = field.directions;
+        Arrays.fill(distances, UNREACHED);
+        Arrays.fill(directions, NO_DIRECTION);
+
+        int t = graph.index(goal[0], goal[1]);
+        distances[t] = 0;
+
+        if (graph.isUniform()) {
+            // Every move costs 1, so cells are finished in the order they are found
+            int[] queue = new int[graph.size()];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = t;
+
+            while (head < tail) {
+                int c = queue[head++];
+                int d = distances[c] + 1;
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                    int n = c + graph.getOffset(dir);
+                    if (distances[n] != UNREACHED) {continue;}
+                    distances[n] = d;
+                    directions[n] = (byte) OPPOSITE[dir];
+                    queue[tail++] = n;
+                }
+            }
+        } else {
+            // Going backward from c to n means moving from n onto c, which costs cost(c)
+            OpenList open = OpenListType.BUCKET.create(graph.size(), graph.getMaxCost());
+            open.insert(t, 0);
+
+            while (!open.isEmpty()) {
+                int c = open.poll();
+                int d = distances[c] + graph.getCost(c);
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                    int n = c + graph.getOffset(dir);
+                    if (distances[n] != UNREACHED && distances[n] <= d) {continue;}
+
+                    boolean wasOpen = open.contains(n);
+                    distances[n] = d;
+                    directions[n] = (byte) OPPOSITE[dir];
+                    if (wasOpen) {
+                        open.decreaseKey(n, d);
+                    } else {
+                        open.insert(n, d);
+                    }
+                }
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * Returns the goal of the field.
+     * @return
+     */
+    public int[] getGoal() {
+        return new int[] {goal[0], goal[1]};
+    }
+
+    /**
+     * Returns the board version the field was computed for.
+     * @return
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns whether diagonal moves were allowed when the field was computed.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the cost of the cheapest path from a cell to the goal.
+     * @param xPos
+     * @param yPos
+     * @return - the cost, UNREACHED for walls and cells that can't reach the goal
+     */
+    public int getDistance(int xPos, int yPos) {
+        return distances[yPos * xSize + xPos];
+    }
+
+    /**
+     * Returns the cost of the cheapest path from a cell to the goal.
+     * @param index - cell index
+     * @return - the cost, UNREACHED for walls and cells that can't reach the goal
+     */
+    public int getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Returns whether the goal can be reached from a cell.
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public boolean isReachable(int xPos, int yPos) {
+        return distances[yPos * xSize + xPos] != UNREACHED;
+    }
+
+    /**
+     * Returns the direction of the first step from a cell towards the goal, in GridGraph order.
+     * @param xPos
+     * @param yPos
+     * @return - the direction, NO_DIRECTION at the goal and for cells that can't reach it
+     */
+    public int getDirection(int xPos, int yPos) {
+        return directions[yPos * xSize + xPos];
+    }
+
+    /**
+     * Returns the cell an agent standing on a cell should move to next.
+     * @param xPos
+     * @param yPos
+     * @return - the next cell, or null at the goal and for cells that can't reach it
+     */
+    public int[] nextStep(int xPos, int yPos) {
+        int dir = directions[yPos * xSize + xPos];
+        if (dir == NO_DIRECTION) {
+            return null;
+        }
+        return new int[] {xPos + GridGraph.DX[dir], yPos + GridGraph.DY[dir]};
+    }
+
+    /**
+     * Follows the field from a start cell to the goal.
+     * @param start - Start node
+     * @return - Path like Algorithm.A_Star_path, without start and goal and ordered from goal to start.
+     *           Empty if the goal can't be reached.
+     */
+    public ArrayList<int[]> getPath(int[] start) {
+        ArrayList<int[]> path = new ArrayList<>();
+        if (!isReachable(start[0], start[1]) || directions[start[1] * xSize + start[0]] == NO_DIRECTION) {
+            return path;
+        }
+
+        // Walk the field towards the goal, skipping the start
+        int x = start[0];
+        int y = start[1];
+        int dir = directions[y * xSize + x];
+        while (dir != NO_DIRECTION) {
+            x += GridGraph.DX[dir];
+            y += GridGraph.DY[dir];
+            path.add(new int[] {x, y});
+            dir = directions[y * xSize + x];
+        }
+
+        // Drop the goal and order from goal to start
+        path.remove(path.size() - 1);
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the number of cells covered by the field.
+     * @return
+     */
+    public int size() {
+        return xSize * ySize;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of flow fields for one board, keyed by goal, diagonal setting and board version.
+ * Agents heading for the same goal share one field, which is only recomputed after the board has been edited.
+ * Fields of older board versions can never be hit again, so they are dropped as soon as the version changes.
+ */
+public class FlowFieldCache {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final Board board;
+    private final int capacity;
+
+    // Fields in access order, least recently used first
+    private final LinkedHashMap<Long, FlowField> fields;
+
+    // Version of the board the cached fields belong to
+    private int version;
+
+    // Number of lookups answered from the cache and number of computed fields
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates a cache holding up to DEFAULT_CAPACITY fields.
+     * @see #FlowFieldCache(Board, int)
+     */
+    public FlowFieldCache(Board board) {
+        this(board, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty cache for a board.
+     * @param board - Board to compute fields on
+     * @param capacity - Maximum number of fields kept, each takes 5 bytes per cell
+     */
+    public FlowFieldCache(Board board, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        }
+        this.board = board;
+        this.capacity = capacity;
+        this.version = board.getVersion();
+        this.fields = new LinkedHashMap<Long, FlowField>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FlowField> eldest) {
+                return size() > FlowFieldCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the field of a goal for the current board, computing it if it isn't cached.
+     * @param goal - Goal node
+     * @param diagonals - Whether diagonal moves are allowed
+     * @return - the field
+     */
+    public synchronized FlowField get(int[] goal, boolean diagonals) {
+        int current = board.getVersion();
+        if (current != version) {
+            fields.clear();
+            version = current;
+        }
+
+        Long key = key(goal, diagonals, current);
+        FlowField field = fields.get(key);
+        if (field != null) {
+            hits++;
+            return field;
+        }
+
+        misses++;
+        field = FlowField.compute(board.getGraph(diagonals), goal, current);
+        fields.put(key, field);
+        return field;
+    }
+
+    /**
+     * Removes all fields from the cache.
+     */
+    public synchronized void clear() {
+        fields.clear();
+    }
+
+    /**
+     * Returns the number of fields currently cached.
+     * @return
+     */
+    public synchronized int size() {
+        return fields.size();
+    }
+
+    /**
+     * Returns the maximum number of fields kept.
+     * @return
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to compute a field.
+     * @return
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Packs version, diagonal setting and goal cell into one key.
+     */
+    private long key(int[] goal, boolean diagonals, int version) {
+        long cell = (long) goal[1] * board.getXSize() + goal[0];
+        return ((long) version << 32) | (diagonals ? 1L << 31 : 0L) | cell;
+    }
+}
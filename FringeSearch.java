@@ -0,0 +1,297 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Memory-bounded searches for boards too large for a SearchContext, which needs about 21 bytes per cell plus
+ * its open list.
+ *
+ * Fringe Search works like IDA* with a memory of the previous iteration: nodes with f above the current limit
+ * are kept on a later list instead of being rediscovered by the next iteration, and a g cache stops every node
+ * from being expanded through more than its cheapest known path. Per cell it only stores g (4 bytes), the
+ * direction it was reached from with an in-list flag (1 byte) and the iteration it was last deferred in
+ * (1 byte), 6 bytes in total. The now and later lists only hold the fringe. There is no priority queue, the
+ * now list is processed as a stack, so children are handled right after their parent. Every iteration rescans
+ * the whole fringe, so boards with a wide range of costs, where the limit rises in small steps, are slower than A*.
+ *
+ * IDA* needs no per-cell memory at all, only the current path: a depth first search bounded by f, repeated
+ * with the smallest f that exceeded the bound until the end is found. Without duplicate detection it can
+ * expand the same cells exponentially often, so it gives up after a number of expansions.
+ *
+ * search() runs Fringe Search if its arrays fit in the free heap, and IDA* otherwise.
+ * An instance reuses its arrays between queries but may only run one query at a time.
+ */
+public class FringeSearch {
+
+    public static final long DEFAULT_MAX_EXPANSIONS = 10_000_000L;
+
+    // Bytes per cell used by Fringe Search, without the lists
+    private static final int BYTES_PER_CELL = 6;
+
+    // Direction value of cells reached from nowhere (the start), and flag of cells on the now or later list
+    private static final int NO_DIRECTION = 0x0F;
+    private static final int IN_LIST = 0x10;
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // Cost of the cheapest known path to each cell
+    private int[] g = new int[0];
+
+    // Direction of the move into each cell in the low bits, IN_LIST flag above them
+    private byte[] state = new byte[0];
+
+    // Low byte of the iteration each cell was last moved to the later list in
+    private byte[] deferredIn = new byte[0];
+
+    // Fringe lists, which may hold stale duplicates of cells that left the fringe
+    private int[] now = new int[16];
+    private int[] later = new int[16];
+
+    // Path of the current IDA* probe: cells, next direction to try and g of each cell
+    private int[] stackNodes = new int[16];
+    private byte[] stackDirs = new byte[16];
+    private int[] stackG = new int[16];
+
+    private long maxExpansions = DEFAULT_MAX_EXPANSIONS;
+
+    /**
+     * Returns whether Fringe Search on a graph of the specified size fits in the free heap.
+     * @param size - number of cells
+     * @return
+     */
+    public boolean fitsInMemory(int size) {
+        if (g.length >= size) {
+            return true;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return (long) size * BYTES_PER_CELL < free;
+    }
+
+    /**
+     * Sets the number of expansions after which IDA* gives up.
+     * @param maxExpansions
+     */
+    public void setMaxExpansions(long maxExpansions) {
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Computes the cheapest path with Fringe Search, or with IDA* if Fringe Search doesn't fit in memory.
+     * IDA* re-expands cells along every path it probes, so on weighted boards, where its limit rises in small steps,
+     * it can reach the maximum number of expansions and give up on ordinary queries of a few thousand cells.
+     * Callers should check for a result that was not found with an infinite bound.
+     * @param graph - Graph storing neighbor bitmasks and movement costs
+     * @param start - Start node
+     * @param end - End node
+     * @return - the path, see fringe() and idaStar()
+     */
+    public PathResult search(GridGraph graph, int[] start, int[] end) {
+        return fitsInMemory(graph.size()) ? fringe(graph, start, end) : idaStar(graph, start, end);
+    }
+
+    /**
+     * Computes the cheapest path from start to end with Fringe Search.
+     * @param graph - Graph storing neighbor bitmasks and movement costs
+     * @param start - Start node
+     * @param end - End node
+     * @return - the path, with the number of cells expanded
+     */
+    public PathResult fringe(GridGraph graph, int[] start, int[] end) {
+        // Start and end are the same cell, an empty path is the cheapest
+        if (start[0] == end[0] && start[1] == end[1]) {
+            return new PathResult(new ArrayList<>(), 0, 0);
+        }
+
+        int size = graph.size();
+        if (g.length < size) {
+            // Drop the old arrays first, so they can be collected while the new ones are allocated
+            g = null;
+            state = null;
+            deferredIn = null;
+            g = new int[size];
+            state = new byte[size];
+            deferredIn = new byte[size];
+        }
+        Arrays.fill(g, 0, size, INFINITY);
+        Arrays.fill(state, 0, size, (byte) 0);
+
+        int minCost = graph.getMinCost();
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        int iteration = 0;
+        int expanded = 0;
+        boolean found = false;
+
+        g[s] = 0;
+        state[s] = (byte) (NO_DIRECTION | IN_LIST);
+        deferredIn[s] = (byte) (iteration - 1);
+        int nowSize = 0;
+        now = push(now, nowSize++, s);
+        long limit = heuristic(graph, s, end, minCost);
+
+        while (nowSize > 0 && !found) {
+            int laterSize = 0;
+            long next = Long.MAX_VALUE;
+
+            while (nowSize > 0) {
+                int c = now[--nowSize];
+
+                // Skip stale entries of cells that were expanded since they were listed
+                if ((state[c] & IN_LIST) == 0) {continue;}
+
+                long f = (long) g[c] + heuristic(graph, c, end, minCost);
+                if (f > limit) {
+                    // Keep the cell for the next iteration, once
+                    next = Math.min(next, f);
+                    if (deferredIn[c] != (byte) iteration) {
+                        deferredIn[c] = (byte) iteration;
+                        later = push(later, laterSize++, c);
+                    }
+                    continue;
+                }
+
+                // Check if c is end/target node, f is at most the limit so its path is optimal
+                if (c == t) {
+                    found = true;
+                    break;
+                }
+
+                // Expand c, taking it off the fringe
+                state[c] &= ~IN_LIST;
+                expanded++;
+
+                // Iterate over each adjacent node (there always exists an edge)
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                    int n = c + graph.getOffset(dir);
+
+                    // If newg isnt better than the adjacent node's previous g, dont do anything
+                    int newg = g[c] + graph.getCost(n);
+                    if (newg >= g[n]) {continue;}
+
+                    // List the cell again to be handled next, an older entry of it becomes a duplicate
+                    g[n] = newg;
+                    state[n] = (byte) (dir | IN_LIST);
+                    deferredIn[n] = (byte) (iteration - 1);
+                    now = push(now, nowSize++, n);
+                }
+            }
+
+            // Swap lists and raise the limit to the smallest f that exceeded it
+            int[] swap = now;
+            now = later;
+            later = swap;
+            nowSize = found ? 0 : laterSize;
+            limit = next;
+            iteration++;
+        }
+
+        if (!found) {
+            return new PathResult(new ArrayList<>(), -1, expanded);
+        }
+
+        // Follow the stored directions back from the end, paths are ordered from end to start
+        ArrayList<int[]> path = new ArrayList<>();
+        for (int n = t - graph.getOffset(state[t] & NO_DIRECTION); n != s; n -= graph.getOffset(state[n] & NO_DIRECTION)) {
+            path.add(new int[] {graph.getX(n), graph.getY(n)});
+        }
+        return new PathResult(path, g[t], expanded);
+    }
+
+    /**
+     * Computes the cheapest path from start to end with IDA*, giving up after the maximum number of expansions.
+     * @param graph - Graph storing neighbor bitmasks and movement costs
+     * @param start - Start node
+     * @param end - End node
+     * @return - the path, with the number of cells expanded. If no path was found, the bound is 1 when there is
+     *           none and infinity when the search gave up.
+     */
+    public PathResult idaStar(GridGraph graph, int[] start, int[] end) {
+        int minCost = graph.getMinCost();
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Start and end are the same cell, an empty path is the cheapest
+        if (s == t) {
+            return new PathResult(new ArrayList<>(), 0, 0);
+        }
+
+        long limit = heuristic(graph, s, end, minCost);
+        long expanded = 0;
+
+        while (true) {
+            long next = Long.MAX_VALUE;
+
+            // Depth first probe bounded by the limit, the stack holds the current path from the start
+            int depth = 0;
+            stackNodes[0] = s;
+            stackDirs[0] = 0;
+            stackG[0] = 0;
+            expanded++;
+
+            while (depth >= 0) {
+                int c = stackNodes[depth];
+                int[] directions = GridGraph.DIRECTIONS[graph.getMask(c)];
+
+                // All neighbors tried, backtrack
+                if (stackDirs[depth] == directions.length) {
+                    depth--;
+                    continue;
+                }
+                int n = c + graph.getOffset(directions[stackDirs[depth]++]);
+
+                // Never step straight back, the cheapest way to prune cycles without memory
+                if (depth > 0 && n == stackNodes[depth - 1]) {continue;}
+
+                int newg = stackG[depth] + graph.getCost(n);
+                long f = (long) newg + heuristic(graph, n, end, minCost);
+                if (f > limit) {
+                    next = Math.min(next, f);
+                    continue;
+                }
+
+                if (n == t) {
+                    // Paths are ordered from end to start
+                    ArrayList<int[]> path = new ArrayList<>();
+                    for (int i = depth; i > 0; i--) {
+                        path.add(new int[] {graph.getX(stackNodes[i]), graph.getY(stackNodes[i])});
+                    }
+                    return new PathResult(path, newg, (int) Math.min(expanded, Integer.MAX_VALUE));
+                }
+
+                if (++expanded > maxExpansions) {
+                    return new PathResult(new ArrayList<>(), -1, (int) Math.min(expanded, Integer.MAX_VALUE), Double.POSITIVE_INFINITY);
+                }
+
+                // Descend into n
+                depth++;
+                if (depth == stackNodes.length) {
+                    stackNodes = Arrays.copyOf(stackNodes, 2 * depth);
+                    stackDirs = Arrays.copyOf(stackDirs, 2 * depth);
+                    stackG = Arrays.copyOf(stackG, 2 * depth);
+                }
+                stackNodes[depth] = n;
+                stackDirs[depth] = 0;
+                stackG[depth] = newg;
+            }
+
+            // Nothing exceeded the limit, so every reachable cell was within it and the end isn't reachable
+            if (next == Long.MAX_VALUE) {break;}
+            limit = next;
+        }
+
+        return new PathResult(new ArrayList<>(), -1, (int) Math.min(expanded, Integer.MAX_VALUE));
+    }
+
+    private long heuristic(GridGraph graph, int node, int[] end, int minCost) {
+        return (long) graph.distance(graph.getX(node), graph.getY(node), end[0], end[1]) * minCost;
+    }
+
+    private int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+}
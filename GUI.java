@@ -285,7 +285,7 @@ public class GUI {
         settingsPanel.add(pathfindingAlgorithmLabel, c);
         
         // Add combobox for selection of algorithm
-        JComboBox<String> algorithmComboBox = new JComboBox<>(new String[] {"A*", "Breadth First Search"});
+        JComboBox<String> algorithmComboBox = new JComboBox<>(ComputationalMethod.getValues());
         algorithmComboBox.setFont(new Font("Cambria", Font.PLAIN, 16));
         algorithmComboBox.addActionListener(e -> graphicsCanvas.updateComputationalMethod());
         c.gridx = 1;
@@ -294,6 +294,95 @@ public class GUI {
         settingsPanel.add(algorithmComboBox, c);
         this.algorithmComboBox = algorithmComboBox;
 
+        // Create "Terrain cost:" label
+        JLabel terrainCostLabel = new JLabel("Terrain Cost:");
+        terrainCostLabel.setFont(new Font("Cambria", Font.PLAIN, 16));
+        c.gridx = 0;
+        c.gridy = 5;
+        c.anchor = GridBagConstraints.EAST;
+        settingsPanel.add(terrainCostLabel, c);
+
+        // Create spinner for the cost placed by the terrain tool
+        JSpinner terrainCostSpinner = new JSpinner(new SpinnerNumberModel(5, Board.MIN_COST, Board.MAX_COST, 1));
+        terrainCostSpinner.setFont(new Font("Cambria", Font.PLAIN, 16));
+        terrainCostSpinner.addChangeListener(e -> graphicsCanvas.setTerrainCost((Integer) terrainCostSpinner.getValue()));
+        c.gridx = 1;
+        c.gridy = 5;
+        c.anchor = GridBagConstraints.WEST;
+        settingsPanel.add(terrainCostSpinner, c);
+
+        // Create "Suboptimality Bound:" label
+        JLabel boundLabel = new JLabel("Suboptimality Bound:");
+        boundLabel.setFont(new Font("Cambria", Font.PLAIN, 16));
+        c.gridx = 0;
+        c.gridy = 6;
+        c.anchor = GridBagConstraints.EAST;
+        settingsPanel.add(boundLabel, c);
+
+        // Create spinner for the bound of weighted A* and focal search
+        JSpinner boundSpinner = new JSpinner(new SpinnerNumberModel(1.5, 1.0, 10.0, 0.1));
+        boundSpinner.setFont(new Font("Cambria", Font.PLAIN, 16));
+        boundSpinner.addChangeListener(e -> graphicsCanvas.setSuboptimalityBound((Double) boundSpinner.getValue()));
+        c.gridx = 1;
+        c.gridy = 6;
+        c.anchor = GridBagConstraints.WEST;
+        settingsPanel.add(boundSpinner, c);
+
+        // Create "Time Budget (ms):" label
+        JLabel budgetLabel = new JLabel("Time Budget (ms):");
+        budgetLabel.setFont(new Font("Cambria", Font.PLAIN, 16));
+        c.gridx = 0;
+        c.gridy = 7;
+        c.anchor = GridBagConstraints.EAST;
+        settingsPanel.add(budgetLabel, c);
+
+        // Create spinner for the time budget of the anytime search
+        JSpinner budgetSpinner = new JSpinner(new SpinnerNumberModel(100, 1, 10000, 10));
+        budgetSpinner.setFont(new Font("Cambria", Font.PLAIN, 16));
+        budgetSpinner.addChangeListener(e -> graphicsCanvas.setTimeBudget((Integer) budgetSpinner.getValue()));
+        c.gridx = 1;
+        c.gridy = 7;
+        c.anchor = GridBagConstraints.WEST;
+        settingsPanel.add(budgetSpinner, c);
+
+        // Create "Prune dead ends: " label
+        JLabel pruneDeadEndsLabel = new JLabel("Prune Dead Ends:");
+        pruneDeadEndsLabel.setFont(new Font("Cambria", Font.PLAIN, 16)); 
+        c.gridx = 0;
+        c.gridy = 8;
+        c.anchor = GridBagConstraints.EAST;
+        settingsPanel.add(pruneDeadEndsLabel, c);
+
+        // Create checkbox
+        JCheckBox pruneDeadEndsCB = new JCheckBox();
+        pruneDeadEndsCB.setOpaque(true);
+        pruneDeadEndsCB.setBorder(BorderFactory.createLineBorder(Color.red, 1, true));
+        pruneDeadEndsCB.setSelected(false);
+        pruneDeadEndsCB.addActionListener(e -> graphicsCanvas.setPruneDeadEnds(pruneDeadEndsCB.isSelected()));
+        c.gridx = 1;
+        c.gridy = 8;
+        c.anchor = GridBagConstraints.WEST;
+        settingsPanel.add(pruneDeadEndsCB, c);
+
+        // Create "Symmetry reduction: " label
+        JLabel reduceSymmetriesLabel = new JLabel("Symmetry Reduction:");
+        reduceSymmetriesLabel.setFont(new Font("Cambria", Font.PLAIN, 16)); 
+        c.gridx = 0;
+        c.gridy = 9;
+        c.anchor = GridBagConstraints.EAST;
+        settingsPanel.add(reduceSymmetriesLabel, c);
+
+        // Create checkbox
+        JCheckBox reduceSymmetriesCB = new JCheckBox();
+        reduceSymmetriesCB.setOpaque(true);
+        reduceSymmetriesCB.setBorder(BorderFactory.createLineBorder(Color.red, 1, true));
+        reduceSymmetriesCB.setSelected(false);
+        reduceSymmetriesCB.addActionListener(e -> graphicsCanvas.setReduceSymmetries(reduceSymmetriesCB.isSelected()));
+        c.gridx = 1;
+        c.gridy = 9;
+        c.anchor = GridBagConstraints.WEST;
+        settingsPanel.add(reduceSymmetriesCB, c);
+
         return settingsPanel;
     }
 
@@ -523,6 +612,14 @@ public class GUI {
         whiteButton.setToolTipText("Erase Node");
         toolbar.add(whiteButton);
 
+        JButton brownButton = new JButton("Terrain Node");
+        brownButton.setBackground(new java.awt.Color(139, 90, 43));
+        brownButton.setFont(new Font("Cambria", Font.PLAIN, 20));
+        brownButton.setForeground(new java.awt.Color(255,255,255));
+        brownButton.addActionListener(e -> graphicsCanvas.setMode(Mode.TERRAINPLACE));
+        brownButton.setToolTipText("Terrain Node, costs the value set in Terrain Cost to cross");
+        toolbar.add(brownButton);
+
         // Return created eastPanel
         return eastPanel;
     }
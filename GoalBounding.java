@@ -0,0 +1,378 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Goal bounding: for every cell and every move out of it, the bounding box of all goals whose shortest path from
+ * the cell starts with that move. A* skips every move whose box doesn't contain the end, which leaves at least one
+ * shortest path intact, so paths stay optimal while far fewer cells are expanded.
+ *
+ * Building takes a full Dijkstra search from every free cell, time proportional to the number of cells squared, so
+ * it is meant for boards that don't change. The tables take 8 bytes per cell and direction, 64 bytes per cell with
+ * diagonals, so the builder doesn't keep them in the heap: workers search rows of cells in parallel and write each
+ * finished row straight to a file. Queries read the file through a memory mapping, outside the heap, and the
+ * operating system only pages in the tables a search touches.
+ *
+ * Tables describe the board they were built from, use matches() to check loaded tables against a board.
+ */
+public class GoalBounding {
+
+    // "GBT1", identifies saved tables
+    private static final int MAGIC = 0x47425431;
+
+    // Magic, sizes, diagonals flag and fingerprint
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 1 + 8;
+
+    // Each box is stored as four shorts: smallest x, smallest y, largest x, largest y
+    private static final int BOX_BYTES = 8;
+
+    private final int xSize;
+    private final int ySize;
+    private final boolean diagonals;
+
+    // Hash of walls and costs of the board the tables were built from
+    private final long fingerprint;
+
+    // Boxes of every cell and direction, in row-major order of the cells
+    private final MappedByteBuffer boxes;
+
+    private GoalBounding(int xSize, int ySize, boolean diagonals, long fingerprint, MappedByteBuffer boxes) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.diagonals = diagonals;
+        this.fingerprint = fingerprint;
+        this.boxes = boxes;
+    }
+
+    /**
+     * Builds the tables with one worker per available processor.
+     * @see #build(Board, boolean, File, int)
+     */
+    public static GoalBounding build(Board board, boolean diagonals, File file) throws IOException {
+        return build(board, diagonals, file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the tables of a board, one Dijkstra search per free cell spread over a pool of workers, and writes them
+     * to a file as they are computed.
+     * @param board - Board to build tables for, must not change while building
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param file - File to write the tables to, overwritten if it exists
+     * @param threads - Number of worker threads
+     * @return - the tables, mapped from the file
+     * @throws IOException - if the file can't be written
+     */
+    public static GoalBounding build(Board board, boolean diagonals, File file, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, was " + threads);
+        }
+        if (board.getXSize() > Short.MAX_VALUE || board.getYSize() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Board too large for goal bounding tables");
+        }
+
+        GridGraph graph = board.getGraph(diagonals);
+        int xSize = graph.getXSize();
+        int ySize = graph.getYSize();
+        int dirCount = diagonals ? 8 : 4;
+        int rowBytes = xSize * dirCount * BOX_BYTES;
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = out.getChannel();
+            out.setLength(HEADER_BYTES + (long) ySize * rowBytes);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(xSize).putInt(ySize).put((byte) (diagonals ? 1 : 0)).putLong(board.getFingerprint());
+            header.flip();
+            writeFully(channel, header, 0);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "goal-bounding-builder");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                // Workers take rows from a shared counter, and write each row at its own position in the file.
+                // Only one row of boxes per worker is ever in the heap
+                AtomicInteger next = new AtomicInteger();
+                ArrayList<Future<?>> workers = new ArrayList<>();
+                for (int w = 0; w < threads; w++) {
+                    workers.add(executor.submit(() -> {
+                        SearchContext context = new SearchContext(graph.size());
+                        byte[] firstMoves = new byte[graph.size()];
+                        short[] box = new short[4 * dirCount];
+                        ByteBuffer row = ByteBuffer.allocate(rowBytes);
+
+                        int y;
+                        while ((y = next.getAndIncrement()) < ySize) {
+                            row.clear();
+                            for (int x = 0; x < xSize; x++) {
+                                computeBoxes(graph, graph.index(x, y), context, firstMoves, box);
+                                for (short value : box) {
+                                    row.putShort(value);
+                                }
+                            }
+                            row.flip();
+                            writeFully(channel, row, HEADER_BYTES + (long) y * rowBytes);
+                        }
+                        return null;
+                    }));
+                }
+
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building goal bounding tables", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException("Building goal bounding tables failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        return load(file);
+    }
+
+    /**
+     * Computes the boxes of the moves out of a cell with a Dijkstra search over the whole board.
+     * Every cell reached inherits the first move of its parent, and widens the box of that move.
+     * @param graph - Graph storing neighbor bitmasks and movement costs
+     * @param s - cell index of the cell
+     * @param context - Search context to store node state in
+     * @param firstMoves - first move of each cell reached, written by this method
+     * @param box - boxes of all directions, filled by this method. Boxes of moves that no goal starts with are empty,
+     *              with their smallest coordinates above their largest
+     */
+    private static void computeBoxes(GridGraph graph, int s, SearchContext context, byte[] firstMoves, short[] box) {
+        for (int i = 0; i < box.length; i += 4) {
+            box[i] = Short.MAX_VALUE;
+            box[i + 1] = Short.MAX_VALUE;
+            box[i + 2] = -1;
+            box[i + 3] = -1;
+        }
+        if (!graph.isWalkable(graph.getX(s), graph.getY(s))) {return;}
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+
+        // Keys of open nodes lie between the smallest key and the smallest key plus maxCost
+        OpenList open = context.getOpenList(OpenListType.BUCKET, graph.getMaxCost());
+        context.set(s, 0, 0, -1, SearchContext.OPEN);
+        open.insert(s, 0);
+
+        while (!open.isEmpty()) {
+            int c = open.poll();
+            context.setStatus(c, SearchContext.CLOSED);
+            int g = context.getG(c);
+
+            // The parent is closed before its children, so its first move is known
+            int x = graph.getX(c);
+            int y = graph.getY(c);
+            int p = context.getParent(c);
+            if (p != -1) {
+                int move = p == s ? direction(x - graph.getX(s), y - graph.getY(s)) : firstMoves[p];
+                firstMoves[c] = (byte) move;
+                box[4 * move] = (short) Math.min(box[4 * move], x);
+                box[4 * move + 1] = (short) Math.min(box[4 * move + 1], y);
+                box[4 * move + 2] = (short) Math.max(box[4 * move + 2], x);
+                box[4 * move + 3] = (short) Math.max(box[4 * move + 3], y);
+            }
+
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                int newg = g + graph.getCost(n);
+
+                // If newg isnt better than the adjacent node's previous g, dont do anything
+                if (newg >= context.getG(n)) {continue;}
+
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+                context.set(n, newg, newg, c, SearchContext.OPEN);
+
+                if (wasOpen) {
+                    open.decreaseKey(n, newg);
+                } else {
+                    open.insert(n, newg);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the direction of a single move, in GridGraph order.
+     */
+    private static int direction(int dx, int dy) {
+        for (int dir = 0; dir < 8; dir++) {
+            if (GridGraph.DX[dir] == dx && GridGraph.DY[dir] == dy) {
+                return dir;
+            }
+        }
+        throw new IllegalArgumentException("Not a single move: " + dx + ", " + dy);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Maps tables written by build().
+     * @param file - File to read from
+     * @return - the tables
+     * @throws IOException - if the file can't be read or doesn't hold goal bounding tables
+     */
+    public static GoalBounding load(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < HEADER_BYTES || in.readInt() != MAGIC) {
+                throw new IOException(file + " doesn't hold goal bounding tables");
+            }
+            int xSize = in.readInt();
+            int ySize = in.readInt();
+            boolean diagonals = in.readBoolean();
+            long fingerprint = in.readLong();
+            if (xSize <= 0 || ySize <= 0 || xSize > Short.MAX_VALUE || ySize > Short.MAX_VALUE) {
+                throw new IOException("Invalid board size " + xSize + "x" + ySize + " in " + file);
+            }
+
+            // A single mapping reaches 2GB, which covers boards of about 5700x5700 cells with diagonals
+            long length = (long) xSize * ySize * (diagonals ? 8 : 4) * BOX_BYTES;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Tables in " + file + " are too large to map");
+            }
+            if (in.length() < HEADER_BYTES + length) {
+                throw new IOException(file + " is truncated");
+            }
+
+            // The mapping stays valid after the file is closed
+            MappedByteBuffer boxes = in.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, length);
+            return new GoalBounding(xSize, ySize, diagonals, fingerprint, boxes);
+        }
+    }
+
+    /**
+     * Returns whether the tables were built from a board with the same size, walls and costs.
+     * @param board - Board to compare to
+     * @param diagonals - Whether diagonal moves are allowed
+     * @return
+     */
+    public boolean matches(Board board, boolean diagonals) {
+        return this.diagonals == diagonals && xSize == board.getXSize() && ySize == board.getYSize()
+                && fingerprint == board.getFingerprint();
+    }
+
+    /**
+     * Returns whether diagonal moves were allowed when the tables were built.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns whether a shortest path from a cell to a goal may start with a move.
+     * @param c - cell index of the cell
+     * @param dir - direction of the move
+     * @param xPos - x-position of the goal
+     * @param yPos - y-position of the goal
+     * @return
+     */
+    public boolean mayLeadTo(int c, int dir, int xPos, int yPos) {
+        int i = (c * (diagonals ? 8 : 4) + dir) * BOX_BYTES;
+        return boxes.getShort(i) <= xPos && xPos <= boxes.getShort(i + 4)
+                && boxes.getShort(i + 2) <= yPos && yPos <= boxes.getShort(i + 6);
+    }
+
+    /**
+     * Computes the cheapest path from start to end using A*, skipping moves whose box doesn't contain the end.
+     * Fills the context with the g and f values, as well as parent of each node.
+     * @param graph - Graph of the board the tables were built from
+     * @param start - Start node
+     * @param end   - End node
+     * @param context - Search context to store node state in, reset by this method
+     * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     * @return - the context holding the results
+     */
+    public SearchContext search(GridGraph graph, int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+
+        // Get open list keyed by cell index. f grows by at most maxCost + minCost per edge
+        int minCost = graph.getMinCost();
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, graph.getMaxCost() + minCost);
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node
+        int h = graph.distance(start[0], start[1], end[0], end[1]) * minCost;
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        open.insert(s, h);
+
+        // Iterate while there are still open nodes
+        while (!open.isEmpty()) {
+
+            // Remove first node in queue
+            int c = open.poll();
+
+            // Check if c is end/target node
+            if (c == t) {
+                break;
+            }
+
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
+
+            int g = context.getG(c);
+
+            // Iterate over each move that may start a shortest path to the end
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                if (!mayLeadTo(c, dir, end[0], end[1])) {continue;}
+                int n = c + graph.getOffset(dir);
+
+                // Compute new g and f values of adjacent node
+                int newg = g + graph.getCost(n);
+                int newf = newg + graph.distance(graph.getX(n), graph.getY(n), end[0], end[1]) * minCost;
+
+                // If newf isnt better than the adjacent node's previous f, dont do anything
+                if (newf >= context.getF(n)) {continue;}
+
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+
+                // Update node with new f, g and parent values based on current node
+                context.set(n, newg, newf, c, SearchContext.OPEN);
+
+                if (wasOpen) {
+                    // Move node forward in queue
+                    open.decreaseKey(n, newf);
+                } else {
+                    // Add node to list of open nodes
+                    open.insert(n, newf);
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+        }
+
+        return context;
+    }
+}
@@ -7,12 +7,15 @@ import javax.swing.plaf.DimensionUIResource;
 
 import java.util.LinkedList;
 import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
 
 enum Mode {
     FREEPLACE(0),
     STARTPLACE(1),
     WALLPLACE(2),
-    ENDPLACE(3);
+    ENDPLACE(3),
+    TERRAINPLACE(4);
 
     private final int value;
     private Mode(int value) {
@@ -24,31 +27,6 @@ enum Mode {
     }
 }
 
-enum ComputationalMethod {
-    ASTAR("A*"),
-    BFS("Breadth First Search");
-
-    private final String value;
-    private ComputationalMethod(String value) {
-        this.value = value;
-    }
-
-    public String getValue() {
-        return value;
-    }
-
-    public static ComputationalMethod getEnum(String value) {
-        for (ComputationalMethod c : ComputationalMethod.values()) {
-            if (value.equals(c.getValue())) {
-                return c;
-            }
-        }
-        return ComputationalMethod.ASTAR;
-    }
-
-    
-}
-
 /**
  * A Graphics Canvas, used as the main viewport in the application.
  */
@@ -91,6 +69,61 @@ public class GraphicsCanvas extends Canvas {
     private LinkedList<ArrayList<ArrayList<int[]>>> computationList = new LinkedList<ArrayList<ArrayList<int[]>>>();
     //                 ^^ The arraylists holds arraylists for each of the type of cells
 
+    // Node state reused by every run, so repeated runs don't allocate per-node arrays
+    private SearchContext searchContext = new SearchContext(cellCountX * cellCountY);
+
+    // Precomputed JPS+ tables, created on first use
+    private JumpPointPlus jumpPointPlus;
+
+    // HPA* cluster abstraction, created on first use
+    private HierarchicalPathfinder hierarchicalPathfinder;
+
+    // Pyramid of coarser grids for corridor search, created on first use and rebuilt after board edits
+    private CorridorSearch corridorSearch;
+
+    // Incremental planner, created on first use and repaired after board edits
+    private DStarLite dStarLite;
+
+    // First-move tables, rebuilt when they no longer match the board
+    private CompressedPathDatabase pathDatabase;
+
+    // Goal bounding tables, built on first use into a temporary file and rebuilt after the board has changed
+    private GoalBounding goalBounding;
+
+    // Flow fields of recent goals, created on first use
+    private FlowFieldCache flowFieldCache;
+
+    // Landmark tables for ALT, created on first use and rebuilt after board edits
+    private Landmarks landmarks;
+
+    // Subgoal graph, created on first use and rebuilt after board edits
+    private SubgoalGraph subgoalGraph;
+
+    // Anytime search and its time budget in milliseconds
+    private AnytimeSearch anytimeSearch = new AnytimeSearch();
+    private long timeBudget = 100;
+
+    // Memory-bounded Fringe Search and IDA*
+    private FringeSearch fringeSearch = new FringeSearch();
+
+    // Dead-end and swamp regions, created on first use and rebuilt after board edits
+    private boolean pruneDeadEnds = false;
+    private DeadEndPruning deadEndPruning;
+
+    // Rectangular symmetry reduction for A* and weighted A*, created on first use and updated after board edits
+    private boolean reduceSymmetries = false;
+    private SymmetryReduction symmetryReduction;
+
+    // Bidirectional searches, keeping their own pair of contexts
+    private Bidirectional bidirectional = new Bidirectional();
+
+    // Bitsets for bit-parallel BFS
+    private BitParallelBFS bitParallelBFS = new BitParallelBFS();
+
+    // Level-synchronous parallel BFS and its depth array
+    private ParallelBFS parallelBFS = new ParallelBFS();
+    private int[] parallelDepths;
+
     // Current computationResult and shortest path
     private ArrayList<ArrayList<int[]>> currentComputation = computationList.pollFirst();
     private ArrayList<int[]> currentPath;
@@ -99,6 +132,12 @@ public class GraphicsCanvas extends Canvas {
     private boolean enableDiagonals = false;
     private boolean finishedVisualizing = true;
 
+    // Movement cost placed in terrain mode
+    private int terrainCost = 5;
+
+    // Suboptimality bound of weighted A* and focal search
+    private double suboptimalityBound = 1.5;
+
     // Timer for drawing steps
     private Timer vizualizationTimer = new Timer(100, null);
     
@@ -231,7 +270,7 @@ public class GraphicsCanvas extends Canvas {
      */
     public void run() {
         // Parse graph
-        int[][][][] adj = board.getGraph(enableDiagonals);
+        GridGraph boardGraph = board.getGraph(enableDiagonals);
 
         // Empty calculation list for collecting results
         computationList = new LinkedList<>();
@@ -247,6 +286,11 @@ public class GraphicsCanvas extends Canvas {
             // Get current time
             long t = System.currentTimeMillis();
 
+            // Unweighted methods still run on terrain, but treat every move as cost 1
+            if (!board.isUniform() && !computationalMethod.isWeighted()) {
+                writeLog(computationalMethod.getValue() + " ignores terrain costs.\n");
+            }
+
             // Run pathfinding algorithm on separate thread
             Thread thread = new Thread(new Runnable() {
                 @Override
@@ -256,17 +300,232 @@ public class GraphicsCanvas extends Canvas {
                         int[] start = board.getStart();
                         int[] end = board.getEnd();
 
-                        // Run different algorithms depending on user selected computational method
-                        if (computationalMethod == ComputationalMethod.ASTAR) {
-                            // Run A*
-                            int[][][] results = Algorithm.A_Star(adj, start, end, computationList, showVizualization);
-                            // Compute shortest path using results
-                            currentPath = Algorithm.A_Star_path(results, start, end);
-                        } else if (computationalMethod == ComputationalMethod.BFS) {
-                            // Run BFS
-                            int[][][] results = Algorithm.BFS(adj, start, end, computationList, showVizualization);
-                            // Compute shortest path using results
-                            currentPath = Algorithm.BFS_path(results, start, end);   
+                        // Reject queries between separate regions before any search floods the start's region
+                        if (!board.isConnected(start, end, enableDiagonals)) {
+                            currentPath = new ArrayList<>();
+                            shortestPathLabel.setText("No path");
+                            computationalTimeLabel.setText((System.currentTimeMillis() - t) + " ms");
+                            writeLog("No path: start and end are in separate regions.\n");
+                            repaint();
+                            return;
+                        }
+
+                        // Only one run at a time may use the shared search context
+                        synchronized (searchContext) {
+                            // Grid searches skip the dead ends and swamps, apart from the regions of start and end
+                            GridGraph adj = boardGraph;
+                            if (pruneDeadEnds) {
+                                if (deadEndPruning == null || deadEndPruning.hasDiagonals() != enableDiagonals) {
+                                    deadEndPruning = new DeadEndPruning(board, enableDiagonals);
+                                }
+                                adj = deadEndPruning.prepare(start, end);
+                                writeLog("Skipping " + deadEndPruning.getPrunedCount() + " cells in dead ends and swamps.\n");
+                            }
+
+                            // Run different algorithms depending on user selected computational method
+                            if (reduceSymmetries && (computationalMethod == ComputationalMethod.ASTAR
+                                    || computationalMethod == ComputationalMethod.ASTAR_DIAL
+                                    || computationalMethod == ComputationalMethod.WEIGHTED_ASTAR)) {
+                                // Keep the rectangles between runs, only those around edited cells are updated
+                                if (symmetryReduction == null || symmetryReduction.hasDiagonals() != enableDiagonals) {
+                                    if (symmetryReduction != null) {
+                                        symmetryReduction.dispose();
+                                    }
+                                    symmetryReduction = new SymmetryReduction(board, enableDiagonals);
+                                }
+                                // Run A* or weighted A* over the perimeters of the rectangles
+                                double weight = computationalMethod == ComputationalMethod.WEIGHTED_ASTAR ? suboptimalityBound : 1.0;
+                                SearchContext results = symmetryReduction.search(start, end, searchContext, weight, computationList, showVizualization);
+                                // Compute path using results
+                                currentPath = results.getPath(symmetryReduction.getGraph(), start, end);
+                                writeLog("Searched " + symmetryReduction.getRectangleCount() + " rectangles, " + results.getExpandedCount() + " nodes expanded.\n");
+                            } else if (computationalMethod == ComputationalMethod.ASTAR) {
+                                // Run A*
+                                SearchContext results = Algorithm.A_Star(adj, start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.A_Star_path(results, adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.ASTAR_DIAL) {
+                                // Run A* with a bucket queue as open list
+                                SearchContext results = Algorithm.A_Star(adj, start, end, searchContext, OpenListType.BUCKET, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.A_Star_path(results, adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.ASTAR_ALT) {
+                                // Keep landmark tables between runs, they are only rebuilt when the board has changed
+                                if (landmarks == null || landmarks.hasDiagonals() != enableDiagonals) {
+                                    landmarks = new Landmarks(board, enableDiagonals);
+                                }
+                                GridGraph graph = landmarks.refresh();
+                                // Run A* with the landmark heuristic
+                                SearchContext results = Algorithm.A_Star(graph, start, end, searchContext, OpenListType.QUATERNARY_HEAP, landmarks, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.A_Star_path(results, graph, start, end);
+                            } else if (computationalMethod == ComputationalMethod.GOAL_BOUNDING) {
+                                // Tables cover every cell, so they are only rebuilt after the board has changed
+                                if (goalBounding == null || !goalBounding.matches(board, enableDiagonals)) {
+                                    writeLog("Building goal bounding tables...\n");
+                                    long b = System.currentTimeMillis();
+                                    try {
+                                        File file = File.createTempFile("goal-bounding", ".gbt");
+                                        file.deleteOnExit();
+                                        goalBounding = GoalBounding.build(board, enableDiagonals, file);
+                                    } catch (IOException e) {
+                                        goalBounding = null;
+                                        writeLog("Could not write goal bounding tables: " + e.getMessage() + "\n");
+                                        return;
+                                    }
+                                    writeLog("Built tables in " + (System.currentTimeMillis() - b) + "ms.\n");
+                                }
+                                // Run A*, skipping moves that don't lead towards the end. The boxes describe the whole board,
+                                // so the search ignores dead-end pruning
+                                SearchContext results = goalBounding.search(boardGraph, start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.A_Star_path(results, boardGraph, start, end);
+                            } else if (computationalMethod == ComputationalMethod.WEIGHTED_ASTAR
+                                    || computationalMethod == ComputationalMethod.FOCAL_SEARCH) {
+                                // Trade path cost for speed, within the user selected bound
+                                double bound = suboptimalityBound;
+                                SearchContext results = computationalMethod == ComputationalMethod.WEIGHTED_ASTAR
+                                        ? Algorithm.Weighted_A_Star(adj, start, end, searchContext, bound, computationList, showVizualization)
+                                        : Algorithm.Focal_Search(adj, start, end, searchContext, bound, computationList, showVizualization);
+                                // Compute path using results
+                                currentPath = results.getPath(adj, start, end);
+                                writeLog("Path cost is at most " + bound + " times the optimal cost, " + results.getExpandedCount() + " nodes expanded.\n");
+                            } else if (computationalMethod == ComputationalMethod.ARA_STAR) {
+                                // Run ARA*, which returns the best path it found when the time budget runs out
+                                PathResult result = anytimeSearch.search(adj, start, end, searchContext, timeBudget, computationList, showVizualization);
+                                currentPath = result.getPath();
+                                if (result.isFound()) {
+                                    writeLog("Path cost is at most " + String.format("%.3f", result.getBound()) + " times the optimal cost, " + result.getExpanded() + " nodes expanded.\n");
+                                } else if (result.getBound() == Double.POSITIVE_INFINITY) {
+                                    writeLog("No path found within the time budget of " + timeBudget + "ms.\n");
+                                }
+                            } else if (computationalMethod == ComputationalMethod.FRINGE) {
+                                // Run Fringe Search, falling back to IDA* if its arrays don't fit in memory. Neither keeps
+                                // the node statuses needed for vizualization
+                                if (!fringeSearch.fitsInMemory(adj.size())) {
+                                    writeLog("Not enough memory for Fringe Search, running IDA* instead.\n");
+                                }
+                                currentPath = fringeSearch.search(adj, start, end).getPath();
+                            } else if (computationalMethod == ComputationalMethod.IDA_STAR) {
+                                // Run IDA*, which only stores the current path
+                                PathResult result = fringeSearch.idaStar(adj, start, end);
+                                currentPath = result.getPath();
+                                if (!result.isFound() && result.getBound() == Double.POSITIVE_INFINITY) {
+                                    writeLog("IDA* gave up after " + result.getExpanded() + " expansions.\n");
+                                }
+                            } else if (computationalMethod == ComputationalMethod.DIJKSTRA) {
+                                // Run Dijkstra
+                                SearchContext results = Algorithm.Dijkstra(adj, start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = results.getPath(adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.BFS) {
+                                // Run BFS
+                                SearchContext results = Algorithm.BFS(adj, start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.BFS_path(results, adj, start, end);   
+                            } else if (computationalMethod == ComputationalMethod.JPS) {
+                                // Run Jump Point Search
+                                SearchContext results = JumpPointSearch.search(adj, start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results, filling in the cells between jump points
+                                currentPath = results.getPath(adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.JPS_PLUS) {
+                                // Keep JPS+ tables between runs, they follow board edits incrementally
+                                if (jumpPointPlus == null || jumpPointPlus.hasDiagonals() != enableDiagonals) {
+                                    if (jumpPointPlus != null) {
+                                        jumpPointPlus.dispose();
+                                    }
+                                    jumpPointPlus = new JumpPointPlus(board, enableDiagonals);
+                                }
+                                // Run JPS+
+                                SearchContext results = jumpPointPlus.search(start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results, filling in the cells between jump points
+                                currentPath = results.getPath(adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.BIDIRECTIONAL_BFS
+                                    || computationalMethod == ComputationalMethod.BIDIRECTIONAL_BFS_THREADED) {
+                                // Run bidirectional BFS, vizualization is only available on a single thread
+                                boolean threaded = computationalMethod == ComputationalMethod.BIDIRECTIONAL_BFS_THREADED;
+                                currentPath = bidirectional.BFS(adj, start, end, threaded, computationList, showVizualization && !threaded).getPath();
+                            } else if (computationalMethod == ComputationalMethod.BIDIRECTIONAL_ASTAR
+                                    || computationalMethod == ComputationalMethod.BIDIRECTIONAL_ASTAR_THREADED) {
+                                // Run bidirectional A*, vizualization is only available on a single thread
+                                boolean threaded = computationalMethod == ComputationalMethod.BIDIRECTIONAL_ASTAR_THREADED;
+                                currentPath = bidirectional.A_Star(adj, start, end, threaded, computationList, showVizualization && !threaded).getPath();
+                            } else if (computationalMethod == ComputationalMethod.BIT_PARALLEL_BFS) {
+                                // Run bit-parallel BFS, one vizualization step per level
+                                SearchContext results = bitParallelBFS.BFS(adj, start, end, searchContext, computationList, showVizualization);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.BFS_path(results, adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.PARALLEL_BFS) {
+                                // Run parallel BFS, levels are expanded by several threads so there is no vizualization
+                                if (parallelDepths == null || parallelDepths.length < adj.size()) {
+                                    parallelDepths = new int[adj.size()];
+                                }
+                                SearchContext results = parallelBFS.BFS(adj, start, end, searchContext, parallelDepths);
+                                // Compute shortest path using results
+                                currentPath = Algorithm.BFS_path(results, adj, start, end);
+                            } else if (computationalMethod == ComputationalMethod.HPA) {
+                                // Keep the cluster abstraction between runs, only clusters touched by edits are rebuilt
+                                if (hierarchicalPathfinder == null || hierarchicalPathfinder.hasDiagonals() != enableDiagonals) {
+                                    if (hierarchicalPathfinder != null) {
+                                        hierarchicalPathfinder.dispose();
+                                    }
+                                    hierarchicalPathfinder = new HierarchicalPathfinder(board, enableDiagonals);
+                                }
+                                // Run HPA*, vizualization shows the abstract search over cluster entrances
+                                PathResult result = hierarchicalPathfinder.search(start, end, computationList, showVizualization);
+                                currentPath = result.getPath();
+                                if (result.isFound()) {
+                                    writeLog("HPA* paths may cost more than the cheapest path, " + result.getExpanded() + " nodes expanded.\n");
+                                }
+                            } else if (computationalMethod == ComputationalMethod.CORRIDOR) {
+                                // Keep the pyramid between runs, it is only rebuilt when the board has changed
+                                if (corridorSearch == null || corridorSearch.hasDiagonals() != enableDiagonals) {
+                                    corridorSearch = new CorridorSearch(board, enableDiagonals);
+                                }
+                                // Plan on the coarsest grid and refine inside a corridor around the path. The corridors
+                                // follow the whole board, so the search ignores dead-end pruning and has no vizualization
+                                PathResult result = corridorSearch.search(start, end, searchContext);
+                                currentPath = result.getPath();
+                                if (corridorSearch.hasFallenBack()) {
+                                    writeLog("No path inside the corridor, searched the whole board, " + result.getExpanded() + " nodes expanded.\n");
+                                } else {
+                                    writeLog("Refined over " + corridorSearch.getLevelCount() + " levels, " + result.getExpanded() + " nodes expanded.\n");
+                                }
+                            } else if (computationalMethod == ComputationalMethod.SUBGOAL_GRAPH) {
+                                // Keep the subgoal graph between runs, it is only rebuilt when the board has changed
+                                if (subgoalGraph == null || subgoalGraph.hasDiagonals() != enableDiagonals) {
+                                    subgoalGraph = new SubgoalGraph(board, enableDiagonals);
+                                }
+                                // Run A* over the subgoals, vizualization shows the subgoals searched
+                                currentPath = subgoalGraph.search(start, end, searchContext, computationList, showVizualization).getPath();
+                            } else if (computationalMethod == ComputationalMethod.DSTAR_LITE) {
+                                // Keep the planner between runs, walls drawn since the last run are repaired incrementally
+                                if (dStarLite == null || dStarLite.hasDiagonals() != enableDiagonals) {
+                                    if (dStarLite != null) {
+                                        dStarLite.dispose();
+                                    }
+                                    dStarLite = new DStarLite(board, enableDiagonals);
+                                }
+                                // Run D* Lite, vizualization shows only the cells repaired by this run
+                                currentPath = dStarLite.search(start, end, computationList, showVizualization).getPath();
+                            } else if (computationalMethod == ComputationalMethod.CPD) {
+                                // Tables cover every pair of cells, so they are only rebuilt after the board has changed
+                                if (pathDatabase == null || !pathDatabase.matches(board, enableDiagonals)) {
+                                    writeLog("Building first-move tables...\n");
+                                    long b = System.currentTimeMillis();
+                                    pathDatabase = CompressedPathDatabase.build(board, enableDiagonals);
+                                    writeLog("Built " + pathDatabase.getRunCount() + " runs in " + (System.currentTimeMillis() - b) + "ms.\n");
+                                }
+                                // Walk the tables, there is no search to vizualize
+                                currentPath = pathDatabase.getPath(start, end).getPath();
+                            } else if (computationalMethod == ComputationalMethod.FLOW_FIELD) {
+                                // Fields are reused until the board changes, so moving only the start costs a single walk
+                                if (flowFieldCache == null) {
+                                    flowFieldCache = new FlowFieldCache(board);
+                                }
+                                // Follow the field of the end node, it covers the whole board so there is no vizualization
+                                currentPath = flowFieldCache.get(end, enableDiagonals).getPath(start);
+                            }
                         }
                         // Update shortest path label
                         shortestPathLabel.setText(currentPath.size()+" blocks"  );
@@ -414,21 +673,23 @@ public class GraphicsCanvas extends Canvas {
      */
     private void paintBoard(Graphics g) {
 
-        // Fetch board
-        Cell[][] board = this.board.getBoard();
-
         // Iterate through each cell in board
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
+        for (int i = 0; i < board.getYSize(); i++) {
+            for (int j = 0; j < board.getXSize(); j++) {
                 
                 // Fetch cell type, and calculate cell position
-                Cell c = board[i][j];
+                Cell c = board.getTile(j, i);
                 int xPos = j*cellDimension;
                 int yPos = i*cellDimension;
 
                 // Draw color depending on cell type
                 switch (c) {
                     case FREE:
+                        // Shade terrain by its cost
+                        int cost = board.getCost(j, i);
+                        if (cost > 1) {
+                            drawTile(g, terrainColor(cost), xPos, yPos, cellDimension);
+                        }
                         break;
                     case START:
                         drawTile(g, Color.RED, xPos, yPos, cellDimension);
@@ -446,6 +707,17 @@ public class GraphicsCanvas extends Canvas {
         }
     }
 
+    /**
+     * Returns the color of terrain with the specified cost, from light tan for cheap terrain
+     * to dark brown for the most expensive terrain.
+     * @param cost - cost of the terrain, at least 2
+     * @return
+     */
+    private Color terrainColor(int cost) {
+        double t = Math.min(1.0, Math.log(cost) / Math.log(16));
+        return new Color((int) (222 - t * 121), (int) (184 - t * 117), (int) (135 - t * 102));
+    }
+
     /**
      * Draws the computation instance to screen, if any is available
      * @param g - Graphics object to draw computation instance with
@@ -550,8 +822,17 @@ public class GraphicsCanvas extends Canvas {
             endPointLabel.setText("NOT SET");
         }
 
-        // Set the tile on board using transformed coordinates
-        board.setTile(Cell.getEnum(mode.getValue()), xPos, yPos);
+        // Set the tile on board using transformed coordinates. Terrain is a free cell with a movement cost,
+        // and erasing a cell also removes its terrain.
+        if (mode == Mode.TERRAINPLACE) {
+            board.setTile(Cell.FREE, xPos, yPos);
+            board.setCost(xPos, yPos, terrainCost);
+        } else {
+            board.setTile(Cell.getEnum(mode.getValue()), xPos, yPos);
+            if (mode == Mode.FREEPLACE) {
+                board.setCost(xPos, yPos, 1);
+            }
+        }
 
         // If tile that was just set, is a start tile, update label
         if (board.getTile(xPos, yPos).equals(Cell.START)) {
@@ -685,4 +966,44 @@ public class GraphicsCanvas extends Canvas {
         this.enableDiagonals = enableDiagonalsCB.isSelected();
     }
 
-}
\ No newline at end of file
+    /**
+     * Sets the movement cost placed in terrain mode.
+     * @param terrainCost - cost between Board.MIN_COST and Board.MAX_COST
+     */
+    public void setTerrainCost(int terrainCost) {
+        this.terrainCost = terrainCost;
+    }
+
+    /**
+     * Sets the suboptimality bound of weighted A* and focal search.
+     * @param suboptimalityBound - bound of at least 1, paths cost at most this many times the optimal cost
+     */
+    public void setSuboptimalityBound(double suboptimalityBound) {
+        this.suboptimalityBound = suboptimalityBound;
+    }
+
+    /**
+     * Sets the time budget of the anytime search.
+     * @param timeBudget - budget in milliseconds
+     */
+    public void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Sets whether grid searches skip dead-end and swamp regions.
+     * @param pruneDeadEnds
+     */
+    public void setPruneDeadEnds(boolean pruneDeadEnds) {
+        this.pruneDeadEnds = pruneDeadEnds;
+    }
+
+    /**
+     * Sets whether A* and weighted A* use rectangular symmetry reduction.
+     * @param reduceSymmetries
+     */
+    public void setReduceSymmetries(boolean reduceSymmetries) {
+        this.reduceSymmetries = reduceSymmetries;
+    }
+
+}
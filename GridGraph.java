@@ -0,0 +1,307 @@
+import java.util.Arrays;
+
+/**
+ * A compact, implicit graph view over a Board.
+ * Instead of storing every edge explicitly, one byte per cell records which of the (up to) 8 adjacent cells
+ * can be reached from it. Neighbors are expanded by looking up the direction list of a mask in a shared table.
+ */
+public class GridGraph {
+
+    /**
+     * Direction offsets, in the same order as the old adjacency matrix:
+     * 0 = left, 1 = right, 2 = up, 3 = down, 4 = up-left, 5 = down-left, 6 = up-right, 7 = down-right
+     */
+    public static final int[] DX = {-1, 1, 0, 0, -1, -1, 1, 1};
+    public static final int[] DY = {0, 0, -1, 1, -1, 1, -1, 1};
+
+    /**
+     * Table mapping every possible neighbor mask to the list of directions set in it.
+     */
+    public static final int[][] DIRECTIONS = new int[256][];
+
+    static {
+        for (int mask = 0; mask < 256; mask++) {
+            int[] dirs = new int[Integer.bitCount(mask)];
+            int k = 0;
+            for (int dir = 0; dir < 8; dir++) {
+                if ((mask & (1 << dir)) != 0) {
+                    dirs[k++] = dir;
+                }
+            }
+            DIRECTIONS[mask] = dirs;
+        }
+    }
+
+    private final int xSize;
+    private final int ySize;
+    private final boolean diagonals;
+
+    // One neighbor bitmask per cell, in row-major order (index = y * xSize + x)
+    private final byte[] masks;
+
+    // Index offset for moving one step in each direction
+    private final int[] offsets = new int[8];
+
+    // Snapshot of the board's wall bitset, for engines that reason about walkability rather than edges
+    private final long[] walls;
+    private final int wordsPerRow;
+
+    // Snapshot of the board's movement costs (unsigned bytes), null while every cell costs 1
+    private byte[] costs;
+
+    // Bounds on the cost of any cell: minCost never exceeds and maxCost is never below any cost in the graph
+    private int minCost = 1;
+    private int maxCost = 1;
+
+    /**
+     * Parses the board and computes the neighbor mask of every cell in a single pass.
+     * @param board - Board to build the graph from.
+     * @param diagonals - Whether diagonal moves are allowed (8-connected) or not (4-connected).
+     */
+    public GridGraph(Board board, boolean diagonals) {
+        this.xSize = board.getXSize();
+        this.ySize = board.getYSize();
+        this.diagonals = diagonals;
+        this.masks = new byte[xSize * ySize];
+        this.walls = board.getWallWords().clone();
+        this.wordsPerRow = board.getWordsPerRow();
+
+        if (!board.isUniform()) {
+            this.costs = board.getCosts().clone();
+            minCost = Board.MAX_COST;
+            maxCost = Board.MIN_COST;
+            for (byte cost : costs) {
+                minCost = Math.min(minCost, cost & 0xFF);
+                maxCost = Math.max(maxCost, cost & 0xFF);
+            }
+        }
+
+        for (int dir = 0; dir < 8; dir++) {
+            offsets[dir] = DY[dir] * xSize + DX[dir];
+        }
+
+        // Iterate for each cell
+        for (int y = 0; y < ySize; y++) {
+            for (int x = 0; x < xSize; x++) {
+                masks[y * xSize + x] = (byte) computeMask(x, y);
+            }
+        }
+    }
+
+    /**
+     * Computes the neighbor mask of a cell from the wall snapshot.
+     * @param x
+     * @param y
+     * @return
+     */
+    private int computeMask(int x, int y) {
+        // Walls have no outgoing edges
+        if (!isWalkable(x, y)) {return 0;}
+
+        int mask = 0;
+        int dirCount = diagonals ? 8 : 4;
+        for (int dir = 0; dir < dirCount; dir++) {
+            // If adjacent cell is in boundaries and isnt wall, put in edge
+            if (isWalkable(x + DX[dir], y + DY[dir])) {
+                mask |= 1 << dir;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Updates the graph after a single cell changed between wall and free, without rebuilding it.
+     * Only the masks of the cell and its 8 adjacent cells are recomputed.
+     * @param xPos
+     * @param yPos
+     * @param wall - whether the cell is now a wall
+     */
+    public void setWall(int xPos, int yPos, boolean wall) {
+        int word = yPos * wordsPerRow + (xPos >>> 6);
+        if (wall) {
+            walls[word] |= 1L << xPos;
+        } else {
+            walls[word] &= ~(1L << xPos);
+        }
+
+        for (int y = yPos - 1; y <= yPos + 1; y++) {
+            for (int x = xPos - 1; x <= xPos + 1; x++) {
+                if ((0 <= x && x < xSize) && (0 <= y && y < ySize)) {
+                    masks[y * xSize + x] = (byte) computeMask(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the movement cost of a single cell. minCost and maxCost are widened if needed but never narrowed,
+     * so they stay valid bounds.
+     * @param xPos
+     * @param yPos
+     * @param cost - cost between Board.MIN_COST and Board.MAX_COST
+     */
+    public void setCost(int xPos, int yPos, int cost) {
+        if (costs == null) {
+            if (cost == 1) {return;}
+            costs = new byte[masks.length];
+            Arrays.fill(costs, (byte) 1);
+        }
+        costs[yPos * xSize + xPos] = (byte) cost;
+        minCost = Math.min(minCost, cost);
+        maxCost = Math.max(maxCost, cost);
+    }
+
+    /**
+     * Returns the cost of moving onto the cell with specified index.
+     * @param index - Row-major cell index.
+     * @return
+     */
+    public int getCost(int index) {
+        return costs == null ? 1 : costs[index] & 0xFF;
+    }
+
+    /**
+     * Returns a lower bound on the cost of every cell, used to scale the grid distance into an admissible heuristic.
+     * @return
+     */
+    public int getMinCost() {
+        return minCost;
+    }
+
+    /**
+     * Returns an upper bound on the cost of every cell, which bounds the key spread of the open lists.
+     * @return
+     */
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Returns whether every move is known to cost 1, as assumed by the unweighted engines.
+     * @return
+     */
+    public boolean isUniform() {
+        return costs == null;
+    }
+
+    /**
+     * Returns the neighbor bitmask of the cell with specified index.
+     * @param index - Row-major cell index.
+     * @return - Bitmask with bit i set if there is an edge in direction i.
+     */
+    public int getMask(int index) {
+        return masks[index] & 0xFF;
+    }
+
+    /**
+     * Returns whether the cell at specified position is inside the board and not a wall.
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public boolean isWalkable(int xPos, int yPos) {
+        return (0 <= xPos && xPos < xSize) && (0 <= yPos && yPos < ySize)
+            && (walls[yPos * wordsPerRow + (xPos >>> 6)] & (1L << xPos)) == 0;
+    }
+
+    /**
+     * Returns the graph's copy of the wall bitset, laid out like Board.getWallWords(). Must not be modified.
+     * @return
+     */
+    public long[] getWallWords() {
+        return walls;
+    }
+
+    /**
+     * Returns the number of 64-bit words used for each row of the wall bitset.
+     * @return
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Returns the index offset of a single step in the specified direction.
+     * @param dir - Direction, see DX and DY.
+     * @return
+     */
+    public int getOffset(int dir) {
+        return offsets[dir];
+    }
+
+    /**
+     * Converts coordinates to a row-major cell index.
+     * @param xPos
+     * @param yPos
+     * @return
+     */
+    public int index(int xPos, int yPos) {
+        return yPos * xSize + xPos;
+    }
+
+    /**
+     * Returns the x coordinate of a cell index.
+     * @param index
+     * @return
+     */
+    public int getX(int index) {
+        return index % xSize;
+    }
+
+    /**
+     * Returns the y coordinate of a cell index.
+     * @param index
+     * @return
+     */
+    public int getY(int index) {
+        return index / xSize;
+    }
+
+    /**
+     * Returns the length of the shortest possible path between two cells if there were no walls:
+     * Manhattan distance on 4-connected graphs, and Chebyshev distance on 8-connected graphs (diagonal steps cost 1).
+     * Used as a consistent heuristic.
+     * @param x1
+     * @param y1
+     * @param x2
+     * @param y2
+     * @return
+     */
+    public int distance(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
+        return diagonals ? Math.max(dx, dy) : dx + dy;
+    }
+
+    /**
+     * Returns the number of cells (nodes) in the graph.
+     * @return
+     */
+    public int size() {
+        return masks.length;
+    }
+
+    /**
+     * Returns the x-Size of the underlying board.
+     * @return
+     */
+    public int getXSize() {
+        return xSize;
+    }
+
+    /**
+     * Returns the y-Size of the underlying board.
+     * @return
+     */
+    public int getYSize() {
+        return ySize;
+    }
+
+    /**
+     * Returns whether diagonal edges are included in the graph.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+}
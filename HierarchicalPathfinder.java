@@ -0,0 +1,706 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * HPA*: hierarchical pathfinding over square clusters of the board.
+ *
+ * Each border between two adjacent clusters is split into segments of cells that are walkable on both sides.
+ * Short segments get one transition in the middle, long ones one at each end. Diagonal crossings that no straight
+ * segment covers, and crossings at cluster corners, get a transition of their own, so every path on the board
+ * can be rerouted through transitions. The cells on either side of a transition are the entrances of their
+ * clusters, and the cost of every entrance-to-entrance path within a cluster is precomputed.
+ *
+ * A query connects start and end to the entrances of their clusters, searches the small abstract graph of
+ * entrances, and then refines every abstract edge into cells with a search restricted to one cluster. Start and
+ * end in the same or adjacent clusters are also joined by a direct search over their clusters, so close queries
+ * don't detour through an entrance. The refined path is then smoothed by searching again around overlapping
+ * stretches of it. Paths are still not always optimal: a cheaper path may leave every stretch's search area.
+ *
+ * The object listens to the board: changed cells mark their cluster (and, on cluster edges, the adjacent
+ * clusters) dirty, and only dirty clusters are rebuilt before the next query.
+ */
+public class HierarchicalPathfinder implements BoardListener {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    // Segments at least this long get two transitions instead of one
+    private static final int LONG_SEGMENT = 6;
+
+    private static final int UNREACHED = -1;
+
+    // Refined paths are smoothed in stretches of this many clusters' worth of moves
+    private static final int SMOOTHING_WINDOW = 2;
+
+    /**
+     * Abstract graph data of one cluster.
+     */
+    private static final class Cluster {
+        // Bounds, inclusive
+        int x0;
+        int y0;
+        int x1;
+        int y1;
+
+        // Cell indices of the entrances
+        int[] entrances = new int[0];
+
+        // distances[i][j] is the cost from entrance i to entrance j within the cluster, UNREACHED if there is no path
+        int[][] distances = new int[0][];
+
+        // Transitions leaving each entrance: cell on the other side, and cost of moving there
+        int[][] interTargets = new int[0][];
+        int[][] interCosts = new int[0][];
+
+        boolean contains(int x, int y) {
+            return x0 <= x && x <= x1 && y0 <= y && y <= y1;
+        }
+    }
+
+    private final Board board;
+    private final boolean diagonals;
+    private final int clusterSize;
+
+    // Graph kept in sync with the board through incremental updates
+    private GridGraph graph;
+
+    private int clustersX;
+    private int clustersY;
+    private Cluster[] clusters;
+
+    // Index of each cell within its cluster's entrances, -1 if it is no entrance
+    private int[] entranceIndex;
+
+    // Cells changed since last refresh, and whether a full rebuild is needed instead
+    private ArrayList<Integer> dirtyCells = new ArrayList<>();
+    private boolean rebuild = true;
+
+    // Contexts for searches within one cluster, and for the abstract search
+    private SearchContext local;
+    private SearchContext abstractContext;
+
+    // Number of clusters rebuilt since creation, for diagnostics
+    private int rebuiltClusters = 0;
+
+    // Number of cells expanded by the last smoothing pass
+    private int smoothingExpanded;
+
+    /**
+     * Creates an HPA* instance with the default cluster size.
+     * @see #HierarchicalPathfinder(Board, boolean, int)
+     */
+    public HierarchicalPathfinder(Board board, boolean diagonals) {
+        this(board, diagonals, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Creates an HPA* instance for a board and starts listening to its changes.
+     * The abstract graph is built lazily on the first query.
+     * @param board - Board to search
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param clusterSize - Width and height of the clusters in cells
+     */
+    public HierarchicalPathfinder(Board board, boolean diagonals, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Cluster size must be at least 2, was " + clusterSize);
+        }
+        this.board = board;
+        this.diagonals = diagonals;
+        this.clusterSize = clusterSize;
+        board.addBoardListener(this);
+    }
+
+    /**
+     * Stops listening to the board. The object must not be used afterwards.
+     */
+    public void dispose() {
+        board.removeBoardListener(this);
+    }
+
+    public synchronized void tileChanged(int xPos, int yPos) {
+        if (!rebuild) {
+            dirtyCells.add(yPos * board.getXSize() + xPos);
+        }
+    }
+
+    public synchronized void costChanged(int xPos, int yPos) {
+        tileChanged(xPos, yPos);
+    }
+
+    public synchronized void boardCleared() {
+        rebuild = true;
+        dirtyCells.clear();
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by this instance.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the graph the abstract graph has been computed for. Only valid after a query or refresh().
+     * @return
+     */
+    public synchronized GridGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of clusters built or rebuilt since this instance was created.
+     * @return
+     */
+    public synchronized int getRebuiltClusters() {
+        return rebuiltClusters;
+    }
+
+    /**
+     * Brings the abstract graph up to date with the board, rebuilding only dirty clusters
+     * unless the board was cleared.
+     */
+    public synchronized void refresh() {
+        if (rebuild) {
+            graph = board.getGraph(diagonals);
+            clustersX = (graph.getXSize() + clusterSize - 1) / clusterSize;
+            clustersY = (graph.getYSize() + clusterSize - 1) / clusterSize;
+            clusters = new Cluster[clustersX * clustersY];
+            entranceIndex = new int[graph.size()];
+            Arrays.fill(entranceIndex, -1);
+            local = new SearchContext(graph.size());
+            abstractContext = new SearchContext(graph.size());
+
+            for (int cy = 0; cy < clustersY; cy++) {
+                for (int cx = 0; cx < clustersX; cx++) {
+                    Cluster cluster = new Cluster();
+                    cluster.x0 = cx * clusterSize;
+                    cluster.y0 = cy * clusterSize;
+                    cluster.x1 = Math.min(graph.getXSize(), cluster.x0 + clusterSize) - 1;
+                    cluster.y1 = Math.min(graph.getYSize(), cluster.y0 + clusterSize) - 1;
+                    clusters[cy * clustersX + cx] = cluster;
+                }
+            }
+            for (Cluster cluster : clusters) {
+                build(cluster);
+            }
+
+            rebuild = false;
+            dirtyCells.clear();
+            return;
+        }
+
+        if (dirtyCells.isEmpty()) {return;}
+
+        // Apply changes to graph, and mark the clusters whose transitions or distances may have changed
+        boolean[] dirty = new boolean[clusters.length];
+        for (int cell : dirtyCells) {
+            int x = graph.getX(cell);
+            int y = graph.getY(cell);
+            graph.setWall(x, y, board.isWall(x, y));
+            graph.setCost(x, y, board.getCost(x, y));
+
+            int cx = x / clusterSize;
+            int cy = y / clusterSize;
+            dirty[cy * clustersX + cx] = true;
+
+            // Cells on the edge of a cluster are part of transitions to the adjacent clusters
+            Cluster cluster = clusters[cy * clustersX + cx];
+            if (x == cluster.x0 || x == cluster.x1 || y == cluster.y0 || y == cluster.y1) {
+                for (int ny = Math.max(0, cy - 1); ny <= Math.min(clustersY - 1, cy + 1); ny++) {
+                    for (int nx = Math.max(0, cx - 1); nx <= Math.min(clustersX - 1, cx + 1); nx++) {
+                        dirty[ny * clustersX + nx] = true;
+                    }
+                }
+            }
+        }
+        dirtyCells.clear();
+
+        for (int i = 0; i < clusters.length; i++) {
+            if (dirty[i]) {
+                build(clusters[i]);
+            }
+        }
+    }
+
+    /**
+     * Computes the shortest path from start to end through the abstract graph, refined into cells.
+     * @param start - Start node
+     * @param end - End node
+     * @param vizualization - Reference to linked list, to which to save each abstract step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     * @return - the path, which is not guaranteed to be optimal
+     */
+    public synchronized PathResult search(int[] start, int[] end, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        refresh();
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+        if (s == t) {
+            return new PathResult(new ArrayList<>(), 0, 0);
+        }
+
+        Cluster startCluster = clusterOf(start[0], start[1]);
+        Cluster endCluster = clusterOf(end[0], end[1]);
+        int expanded = 0;
+
+        // If start and end lie in the same or in adjacent clusters, the cheapest path may not pass any entrance.
+        // Search the clusters around both directly, and offer the result as an edge from start to end
+        int direct = UNREACHED;
+        ArrayList<int[]> directPath = new ArrayList<>();
+        Cluster merged = mergedCluster(start, end);
+        if (merged != null) {
+            clusterSearch(merged, s, t);
+            expanded += local.getExpandedCount();
+            if (local.isSeen(t)) {
+                direct = local.getG(t);
+                for (int c = local.getParent(t); c != s; c = local.getParent(c)) {
+                    directPath.add(new int[] {graph.getX(c), graph.getY(c)});
+                }
+            }
+        }
+
+        // Costs from start to the entrances of its cluster
+        clusterSearch(startCluster, s, false);
+        expanded += local.getExpandedCount();
+        int[] startCosts = entranceCosts(startCluster);
+
+        // Costs from the entrances of the end's cluster to the end
+        clusterSearch(endCluster, t, true);
+        expanded += local.getExpandedCount();
+        int[] endCosts = entranceCosts(endCluster);
+
+        // A* over the entrances, keyed by cell index
+        abstractContext.reset(graph.size());
+        OpenList open = abstractContext.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+        abstractContext.set(s, 0, heuristic(s, end), -1, SearchContext.OPEN);
+        open.insert(s, heuristic(s, end));
+
+        while (!open.isEmpty()) {
+            int u = open.poll();
+            if (u == t) {break;}
+
+            abstractContext.setStatus(u, SearchContext.CLOSED);
+            abstractContext.countExpansion();
+            int g = abstractContext.getG(u);
+            int i = entranceIndex[u];
+
+            if (u == s) {
+                // Edges computed for this query
+                for (int j = 0; j < startCosts.length; j++) {
+                    relax(open, u, startCluster.entrances[j], g, startCosts[j], end);
+                }
+                relax(open, u, t, g, direct, end);
+            } else {
+                // Precomputed edges within the cluster, and the end if it lies in the same cluster
+                Cluster cluster = clusterOf(graph.getX(u), graph.getY(u));
+                for (int j = 0; j < cluster.entrances.length; j++) {
+                    relax(open, u, cluster.entrances[j], g, cluster.distances[i][j], end);
+                }
+                if (cluster == endCluster) {
+                    relax(open, u, t, g, endCosts[i], end);
+                }
+            }
+
+            // Transitions to adjacent clusters
+            if (i >= 0) {
+                Cluster cluster = clusterOf(graph.getX(u), graph.getY(u));
+                for (int k = 0; k < cluster.interTargets[i].length; k++) {
+                    relax(open, u, cluster.interTargets[i][k], g, cluster.interCosts[i][k], end);
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed entrances to visualization list
+                vizualization.addLast(abstractContext.snapshot(graph));
+            }
+        }
+        expanded += abstractContext.getExpandedCount();
+
+        ArrayList<int[]> path = new ArrayList<>();
+        if (abstractContext.getParent(t) == -1) {
+            return new PathResult(path, -1, expanded, Double.POSITIVE_INFINITY);
+        }
+
+        // Refine every abstract edge, from the end back to the start
+        int node = t;
+        while (node != s) {
+            int parent = abstractContext.getParent(node);
+            if (node != t) {
+                path.add(new int[] {graph.getX(node), graph.getY(node)});
+            }
+
+            Cluster cluster = clusterOf(graph.getX(node), graph.getY(node));
+            if (node == t && parent == s && direct != UNREACHED) {
+                // The direct edge costs no more than any other edge from start to end
+                path.addAll(directPath);
+            } else if (cluster == clusterOf(graph.getX(parent), graph.getY(parent))) {
+                // Edge within a cluster, recreate it with a search restricted to the cluster
+                clusterSearch(cluster, parent, node);
+                expanded += local.getExpandedCount();
+                for (int c = local.getParent(node); c != parent; c = local.getParent(c)) {
+                    path.add(new int[] {graph.getX(c), graph.getY(c)});
+                }
+            }
+            node = parent;
+        }
+
+        // Cut short the detours through transitions
+        int[] cells = new int[path.size() + 2];
+        cells[0] = s;
+        for (int i = 0; i < path.size(); i++) {
+            int[] cell = path.get(path.size() - 1 - i);
+            cells[i + 1] = graph.index(cell[0], cell[1]);
+        }
+        cells[cells.length - 1] = t;
+        cells = smooth(cells);
+        expanded += smoothingExpanded;
+
+        path.clear();
+        int cost = 0;
+        for (int i = cells.length - 1; i > 0; i--) {
+            cost += graph.getCost(cells[i]);
+            if (i < cells.length - 1) {
+                path.add(new int[] {graph.getX(cells[i]), graph.getY(cells[i])});
+            }
+        }
+        return new PathResult(path, cost, expanded, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns the bounds of the clusters of start and end together, or null if they are neither the same nor
+     * adjacent, also diagonally.
+     */
+    private Cluster mergedCluster(int[] start, int[] end) {
+        int scx = start[0] / clusterSize;
+        int scy = start[1] / clusterSize;
+        int ecx = end[0] / clusterSize;
+        int ecy = end[1] / clusterSize;
+        if (Math.abs(scx - ecx) > 1 || Math.abs(scy - ecy) > 1) {return null;}
+
+        Cluster merged = new Cluster();
+        merged.x0 = Math.min(scx, ecx) * clusterSize;
+        merged.y0 = Math.min(scy, ecy) * clusterSize;
+        merged.x1 = Math.min(graph.getXSize(), (Math.max(scx, ecx) + 1) * clusterSize) - 1;
+        merged.y1 = Math.min(graph.getYSize(), (Math.max(scy, ecy) + 1) * clusterSize) - 1;
+        return merged;
+    }
+
+    /**
+     * Shortens a refined path by searching again around stretches of it. Each stretch of SMOOTHING_WINDOW moves is
+     * replaced by the cheapest path within its bounding box grown by half a cluster, if that is cheaper.
+     * Stretches overlap by half their length, so a detour across the end of one is caught by the next.
+     * Sets smoothingExpanded to the number of cells expanded.
+     * @param cells - cell indices of the path from start to end, both included
+     * @return - cell indices of the smoothed path, from start to end
+     */
+    private int[] smooth(int[] cells) {
+        smoothingExpanded = 0;
+        int window = SMOOTHING_WINDOW * clusterSize;
+        int margin = clusterSize / 2;
+        int i = 0;
+        while (i < cells.length - 1) {
+            int j = Math.min(i + window, cells.length - 1);
+
+            // Bounding box of the stretch, and its cost
+            Cluster box = new Cluster();
+            box.x0 = box.x1 = graph.getX(cells[i]);
+            box.y0 = box.y1 = graph.getY(cells[i]);
+            int cost = 0;
+            for (int k = i + 1; k <= j; k++) {
+                box.x0 = Math.min(box.x0, graph.getX(cells[k]));
+                box.x1 = Math.max(box.x1, graph.getX(cells[k]));
+                box.y0 = Math.min(box.y0, graph.getY(cells[k]));
+                box.y1 = Math.max(box.y1, graph.getY(cells[k]));
+                cost += graph.getCost(cells[k]);
+            }
+            box.x0 = Math.max(0, box.x0 - margin);
+            box.y0 = Math.max(0, box.y0 - margin);
+            box.x1 = Math.min(graph.getXSize() - 1, box.x1 + margin);
+            box.y1 = Math.min(graph.getYSize() - 1, box.y1 + margin);
+
+            clusterSearch(box, cells[i], cells[j]);
+            smoothingExpanded += local.getExpandedCount();
+            if (local.isSeen(cells[j]) && local.getG(cells[j]) < cost) {
+                // Splice in the cheaper stretch, whose cells run backwards from cells[j]
+                int length = 0;
+                for (int c = local.getParent(cells[j]); c != cells[i]; c = local.getParent(c)) {
+                    length++;
+                }
+                int[] smoothed = new int[i + 1 + length + cells.length - j];
+                System.arraycopy(cells, 0, smoothed, 0, i + 1);
+                int k = i + length;
+                for (int c = local.getParent(cells[j]); c != cells[i]; c = local.getParent(c)) {
+                    smoothed[k--] = c;
+                }
+                System.arraycopy(cells, j, smoothed, i + 1 + length, cells.length - j);
+                j = i + 1 + length;
+                cells = smoothed;
+            }
+
+            if (j == cells.length - 1) {break;}
+            i = Math.max(i + 1, (i + j) / 2);
+        }
+        return cells;
+    }
+
+    /**
+     * Relaxes the abstract edge from u to v.
+     * @param cost - cost of the edge, UNREACHED if there is none
+     */
+    private void relax(OpenList open, int u, int v, int g, int cost, int[] end) {
+        if (cost == UNREACHED) {return;}
+
+        int newg = g + cost;
+        int newf = newg + heuristic(v, end);
+        if (newf >= abstractContext.getF(v)) {return;}
+
+        boolean wasOpen = abstractContext.getStatus(v) == SearchContext.OPEN;
+        abstractContext.set(v, newg, newf, u, SearchContext.OPEN);
+        if (wasOpen) {
+            open.decreaseKey(v, newf);
+        } else {
+            open.insert(v, newf);
+        }
+    }
+
+    private int heuristic(int cell, int[] end) {
+        return graph.distance(graph.getX(cell), graph.getY(cell), end[0], end[1]) * graph.getMinCost();
+    }
+
+    private Cluster clusterOf(int x, int y) {
+        return clusters[(y / clusterSize) * clustersX + x / clusterSize];
+    }
+
+    /**
+     * Returns the g values of the local context at the entrances of a cluster, UNREACHED where unseen.
+     */
+    private int[] entranceCosts(Cluster cluster) {
+        int[] costs = new int[cluster.entrances.length];
+        for (int j = 0; j < costs.length; j++) {
+            int e = cluster.entrances[j];
+            costs[j] = local.isSeen(e) ? local.getG(e) : UNREACHED;
+        }
+        return costs;
+    }
+
+    /**
+     * Recomputes the entrances, transitions and entrance-to-entrance costs of a cluster.
+     */
+    private void build(Cluster cluster) {
+        rebuiltClusters++;
+
+        // Forget the old entrances
+        for (int e : cluster.entrances) {
+            entranceIndex[e] = -1;
+        }
+
+        // Collect transitions as pairs of inside and outside cells
+        ArrayList<int[]> pairs = new ArrayList<>();
+        borderTransitions(cluster, -1, 0, pairs);
+        borderTransitions(cluster, 1, 0, pairs);
+        borderTransitions(cluster, 0, -1, pairs);
+        borderTransitions(cluster, 0, 1, pairs);
+        if (diagonals) {
+            cornerTransition(cluster.x0, cluster.y0, -1, -1, pairs);
+            cornerTransition(cluster.x1, cluster.y0, 1, -1, pairs);
+            cornerTransition(cluster.x0, cluster.y1, -1, 1, pairs);
+            cornerTransition(cluster.x1, cluster.y1, 1, 1, pairs);
+        }
+
+        // Group the transitions by inside cell
+        ArrayList<Integer> entrances = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> targets = new ArrayList<>();
+        for (int[] pair : pairs) {
+            int i = entranceIndex[pair[0]];
+            if (i == -1) {
+                i = entrances.size();
+                entranceIndex[pair[0]] = i;
+                entrances.add(pair[0]);
+                targets.add(new ArrayList<>());
+            }
+            if (!targets.get(i).contains(pair[1])) {
+                targets.get(i).add(pair[1]);
+            }
+        }
+
+        int k = entrances.size();
+        cluster.entrances = new int[k];
+        cluster.interTargets = new int[k][];
+        cluster.interCosts = new int[k][];
+        for (int i = 0; i < k; i++) {
+            cluster.entrances[i] = entrances.get(i);
+            cluster.interTargets[i] = new int[targets.get(i).size()];
+            cluster.interCosts[i] = new int[targets.get(i).size()];
+            for (int j = 0; j < cluster.interTargets[i].length; j++) {
+                cluster.interTargets[i][j] = targets.get(i).get(j);
+                cluster.interCosts[i][j] = graph.getCost(cluster.interTargets[i][j]);
+            }
+        }
+
+        // Costs between entrances, one search within the cluster per entrance
+        cluster.distances = new int[k][];
+        for (int i = 0; i < k; i++) {
+            clusterSearch(cluster, cluster.entrances[i], false);
+            cluster.distances[i] = entranceCosts(cluster);
+        }
+    }
+
+    /**
+     * Adds the transitions on one border of a cluster.
+     * @param dx - x-direction of the border, -1 for left or 1 for right, 0 for top and bottom
+     * @param dy - y-direction of the border, -1 for top or 1 for bottom, 0 for left and right
+     */
+    private void borderTransitions(Cluster cluster, int dx, int dy, ArrayList<int[]> pairs) {
+        // First inside cell of the border, and the step along it
+        int x = dx > 0 ? cluster.x1 : cluster.x0;
+        int y = dy > 0 ? cluster.y1 : cluster.y0;
+        int sx = dx == 0 ? 1 : 0;
+        int sy = dx == 0 ? 0 : 1;
+        int length = dx == 0 ? cluster.x1 - cluster.x0 + 1 : cluster.y1 - cluster.y0 + 1;
+
+        // No transitions at the edge of the board
+        if (!inBoard(x + dx, y + dy)) {return;}
+
+        // Straight crossings, one flag per position along the border
+        boolean[] straight = new boolean[length];
+        for (int p = 0; p < length; p++) {
+            int ix = x + p * sx;
+            int iy = y + p * sy;
+            straight[p] = graph.isWalkable(ix, iy) && graph.isWalkable(ix + dx, iy + dy);
+        }
+
+        // Segments of straight crossings
+        int p = 0;
+        while (p < length) {
+            if (!straight[p]) {
+                p++;
+                continue;
+            }
+            int first = p;
+            while (p < length && straight[p]) {
+                p++;
+            }
+            int last = p - 1;
+
+            if (last - first + 1 < LONG_SEGMENT) {
+                int middle = first + (last - first) / 2;
+                addPair(x + middle * sx, y + middle * sy, x + middle * sx + dx, y + middle * sy + dy, pairs);
+            } else {
+                addPair(x + first * sx, y + first * sy, x + first * sx + dx, y + first * sy + dy, pairs);
+                addPair(x + last * sx, y + last * sy, x + last * sx + dx, y + last * sy + dy, pairs);
+            }
+        }
+
+        // Diagonal crossings between positions p and p + 1 that no straight crossing at p or p + 1 covers
+        if (diagonals) {
+            for (p = 0; p + 1 < length; p++) {
+                if (straight[p] || straight[p + 1]) {continue;}
+                int ax = x + p * sx;
+                int ay = y + p * sy;
+                int bx = ax + sx;
+                int by = ay + sy;
+                if (graph.isWalkable(ax, ay) && graph.isWalkable(bx + dx, by + dy)) {
+                    addPair(ax, ay, bx + dx, by + dy, pairs);
+                }
+                if (graph.isWalkable(bx, by) && graph.isWalkable(ax + dx, ay + dy)) {
+                    addPair(bx, by, ax + dx, ay + dy, pairs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the transition from a corner cell of a cluster to the diagonally adjacent cluster, if both cells are free.
+     */
+    private void cornerTransition(int x, int y, int dx, int dy, ArrayList<int[]> pairs) {
+        if (inBoard(x + dx, y + dy) && graph.isWalkable(x, y) && graph.isWalkable(x + dx, y + dy)) {
+            addPair(x, y, x + dx, y + dy, pairs);
+        }
+    }
+
+    private void addPair(int ix, int iy, int ox, int oy, ArrayList<int[]> pairs) {
+        pairs.add(new int[] {graph.index(ix, iy), graph.index(ox, oy)});
+    }
+
+    private boolean inBoard(int x, int y) {
+        return 0 <= x && x < graph.getXSize() && 0 <= y && y < graph.getYSize();
+    }
+
+    /**
+     * Runs Dijkstra from a cell without leaving its cluster, filling the local context.
+     * @param source - cell index to start from
+     * @param backward - if true, g values are the costs of moving from each cell to the source instead
+     */
+    private void clusterSearch(Cluster cluster, int source, boolean backward) {
+        local.reset(graph.size());
+        OpenList open = local.getOpenList(OpenListType.BUCKET, graph.getMaxCost());
+        local.set(source, 0, 0, -1, SearchContext.OPEN);
+        open.insert(source, 0);
+
+        while (!open.isEmpty()) {
+            int c = open.poll();
+            local.setStatus(c, SearchContext.CLOSED);
+            local.countExpansion();
+
+            // Moving onto n costs cost(n), so going backward from c to n costs cost(c)
+            int g = local.getG(c);
+            int backwardCost = graph.getCost(c);
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                if (!cluster.contains(graph.getX(n), graph.getY(n))) {continue;}
+
+                int newg = g + (backward ? backwardCost : graph.getCost(n));
+                if (newg >= local.getG(n)) {continue;}
+
+                boolean wasOpen = local.getStatus(n) == SearchContext.OPEN;
+                local.set(n, newg, newg, c, SearchContext.OPEN);
+                if (wasOpen) {
+                    open.decreaseKey(n, newg);
+                } else {
+                    open.insert(n, newg);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs A* from one cell to another without leaving their cluster, filling the local context.
+     */
+    private void clusterSearch(Cluster cluster, int source, int target) {
+        int tx = graph.getX(target);
+        int ty = graph.getY(target);
+        int minCost = graph.getMinCost();
+
+        local.reset(graph.size());
+        OpenList open = local.getOpenList(OpenListType.BUCKET, graph.getMaxCost() + minCost);
+        int h = graph.distance(graph.getX(source), graph.getY(source), tx, ty) * minCost;
+        local.set(source, 0, h, -1, SearchContext.OPEN);
+        open.insert(source, h);
+
+        while (!open.isEmpty()) {
+            int c = open.poll();
+            if (c == target) {return;}
+            local.setStatus(c, SearchContext.CLOSED);
+            local.countExpansion();
+
+            int g = local.getG(c);
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                if (!cluster.contains(graph.getX(n), graph.getY(n))) {continue;}
+
+                int newg = g + graph.getCost(n);
+                int newf = newg + graph.distance(graph.getX(n), graph.getY(n), tx, ty) * minCost;
+                if (newf >= local.getF(n)) {continue;}
+
+                boolean wasOpen = local.getStatus(n) == SearchContext.OPEN;
+                local.set(n, newg, newf, c, SearchContext.OPEN);
+                if (wasOpen) {
+                    open.decreaseKey(n, newf);
+                } else {
+                    open.insert(n, newf);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * An indexed d-ary min-heap over cell indices.
+ * The position of every node in the heap is tracked, so decreaseKey() and contains() never have to scan the heap.
+ */
+public class IndexedHeap implements OpenList {
+
+    private final int arity;
+
+    // Heap ordered arrays of nodes and their keys
+    private int[] heap;
+    private long[] keys;
+    private int size = 0;
+
+    // Position of each node in the heap. Only valid if heap[pos[node]] == node and pos[node] < size
+    private int[] pos;
+
+    /**
+     * Creates an empty heap.
+     * @param capacity - number of distinct nodes (cell indices) the heap must hold.
+     * @param arity - number of children per heap node, 2 for a binary heap.
+     */
+    public IndexedHeap(int capacity, int arity) {
+        this.arity = arity;
+        this.heap = new int[Math.max(capacity, 1)];
+        this.keys = new long[Math.max(capacity, 1)];
+        this.pos = new int[Math.max(capacity, 1)];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        int p = pos[node];
+        return p < size && heap[p] == node;
+    }
+
+    public void insert(int node, int key) {
+        // Place node at bottom of heap and let it rise
+        heap[size] = node;
+        keys[size] = key;
+        pos[node] = size;
+        siftUp(size++);
+    }
+
+    public void decreaseKey(int node, int key) {
+        int p = pos[node];
+        keys[p] = key;
+        siftUp(p);
+    }
+
+    public int peekKey() {
+        return (int) keys[0];
+    }
+
+    /**
+     * Returns the key of a node which is in the heap.
+     * @param node - cell index
+     * @return
+     */
+    public int getKey(int node) {
+        return (int) keys[pos[node]];
+    }
+
+    public int poll() {
+        int top = heap[0];
+
+        // Move last node to the top and let it sink
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Removes a node which is in the heap, wherever it is.
+     * @param node - cell index
+     */
+    public void remove(int node) {
+        int p = pos[node];
+
+        // Move last node into the gap, and let it rise or sink
+        size--;
+        if (p < size) {
+            int moved = heap[size];
+            move(size, p);
+            siftUp(p);
+            siftDown(pos[moved]);
+        }
+    }
+
+    /**
+     * Moves the node at heap position "from" to heap position "to", updating its tracked position.
+     * @param from
+     * @param to
+     */
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        pos[heap[to]] = to;
+    }
+
+    private void siftUp(int p) {
+        int node = heap[p];
+        long key = keys[p];
+
+        while (p > 0) {
+            int parent = (p - 1) / arity;
+            if (keys[parent] <= key) {break;}
+            move(parent, p);
+            p = parent;
+        }
+
+        heap[p] = node;
+        keys[p] = key;
+        pos[node] = p;
+    }
+
+    private void siftDown(int p) {
+        int node = heap[p];
+        long key = keys[p];
+
+        while (true) {
+            int first = p * arity + 1;
+            if (first >= size) {break;}
+
+            // Find the child with the smallest key
+            int last = Math.min(first + arity, size);
+            int best = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[best]) {
+                    best = c;
+                }
+            }
+
+            if (keys[best] >= key) {break;}
+            move(best, p);
+            p = best;
+        }
+
+        heap[p] = node;
+        keys[p] = key;
+        pos[node] = p;
+    }
+}
@@ -0,0 +1,416 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * JPS+: Jump Point Search with precomputed jump distances.
+ * For every cell and each of the 8 directions, the distance to the next jump point in that direction
+ * (ignoring the end node) is stored, so a query only has to look up tables instead of scanning the grid.
+ *
+ * Table values are read as follows, for cell c and direction d:
+ *   v > 0  - there is a jump point v steps away from c in direction d.
+ *   v <= 0 - there is no jump point, and -v cells can be walked in direction d before hitting a wall.
+ *
+ * The tables follow the same jump rules as JumpPointSearch. The object listens to the board, and when walls change
+ * only the table entries on the affected rows, columns and diagonals are recomputed before the next query.
+ */
+public class JumpPointPlus implements BoardListener {
+
+    private final Board board;
+    private final boolean diagonals;
+
+    // Graph kept in sync with the board through incremental updates
+    private GridGraph graph;
+
+    // Jump distance tables, distances[dir][cell]
+    private int[][] distances;
+
+    // Cells changed since last refresh, and whether a full rebuild is needed instead
+    private ArrayList<Integer> dirtyCells = new ArrayList<>();
+    private boolean rebuild = true;
+
+    // Marks for deduplicating refresh seeds
+    private int[] seedMark;
+    private int seedGeneration = 0;
+
+    /**
+     * Creates JPS+ tables for a board and starts listening to its changes.
+     * Tables are built lazily on the first query.
+     * @param board - Board to search
+     * @param diagonals - Whether diagonal moves are allowed
+     */
+    public JumpPointPlus(Board board, boolean diagonals) {
+        this.board = board;
+        this.diagonals = diagonals;
+        board.addBoardListener(this);
+    }
+
+    /**
+     * Stops listening to the board. The object must not be used afterwards.
+     */
+    public void dispose() {
+        board.removeBoardListener(this);
+    }
+
+    public synchronized void tileChanged(int xPos, int yPos) {
+        if (!rebuild) {
+            dirtyCells.add(yPos * board.getXSize() + xPos);
+        }
+    }
+
+    public synchronized void boardCleared() {
+        rebuild = true;
+        dirtyCells.clear();
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by this instance.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the graph the tables have been computed for. Only valid after a query or refresh().
+     * @return
+     */
+    public synchronized GridGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Brings the tables up to date with the board, rebuilding everything only if the board was cleared.
+     */
+    public synchronized void refresh() {
+        if (rebuild) {
+            graph = board.getGraph(diagonals);
+            distances = new int[8][graph.size()];
+            seedMark = new int[graph.size()];
+            for (int dir = 0; dir < 8; dir++) {
+                if (!isDependent(dir)) {
+                    build(dir);
+                }
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                if (isDependent(dir)) {
+                    build(dir);
+                }
+            }
+            rebuild = false;
+            dirtyCells.clear();
+            return;
+        }
+
+        if (dirtyCells.isEmpty()) {return;}
+
+        // Apply wall changes to graph, and collect every cell whose jump point conditions may have changed
+        seedGeneration++;
+        ArrayList<Integer> seeds = new ArrayList<>();
+        for (int cell : dirtyCells) {
+            int x = graph.getX(cell);
+            int y = graph.getY(cell);
+            graph.setWall(x, y, board.isWall(x, y));
+
+            for (int sy = y - 1; sy <= y + 1; sy++) {
+                for (int sx = x - 1; sx <= x + 1; sx++) {
+                    addSeed(sx, sy, seeds);
+                }
+            }
+        }
+        dirtyCells.clear();
+
+        // Directions that only depend on walls first, noting cells where a jump point appeared or disappeared
+        ArrayList<Integer> dependentSeeds = new ArrayList<>(seeds);
+        for (int dir = 0; dir < 8; dir++) {
+            if (!isDependent(dir)) {
+                update(dir, seeds, dependentSeeds);
+            }
+        }
+
+        // Then directions that also depend on the jump distances of other directions
+        for (int dir = 0; dir < 8; dir++) {
+            if (isDependent(dir)) {
+                update(dir, dependentSeeds, null);
+            }
+        }
+    }
+
+    private void addSeed(int x, int y, ArrayList<Integer> seeds) {
+        if (0 <= x && x < graph.getXSize() && 0 <= y && y < graph.getYSize()) {
+            int cell = graph.index(x, y);
+            if (seedMark[cell] != seedGeneration) {
+                seedMark[cell] = seedGeneration;
+                seeds.add(cell);
+            }
+        }
+    }
+
+    /**
+     * Returns whether jump points in a direction depend on the tables of other directions:
+     * diagonals depend on straight jumps, and in the 4-connected variant vertical jumps depend on horizontal ones.
+     * @param dir
+     * @return
+     */
+    private boolean isDependent(int dir) {
+        if (diagonals) {
+            return dir >= 4;
+        }
+        return dir == 2 || dir == 3;
+    }
+
+    /**
+     * Computes the table of one direction from scratch, visiting cells so the next cell in direction is done first.
+     * @param dir
+     */
+    private void build(int dir) {
+        int dx = GridGraph.DX[dir];
+        int dy = GridGraph.DY[dir];
+        int xSize = graph.getXSize();
+        int ySize = graph.getYSize();
+
+        if (dx != 0) {
+            for (int i = 0; i < xSize; i++) {
+                int x = dx > 0 ? xSize - 1 - i : i;
+                for (int y = 0; y < ySize; y++) {
+                    distances[dir][graph.index(x, y)] = compute(x, y, dir);
+                }
+            }
+        } else {
+            for (int i = 0; i < ySize; i++) {
+                int y = dy > 0 ? ySize - 1 - i : i;
+                for (int x = 0; x < xSize; x++) {
+                    distances[dir][graph.index(x, y)] = compute(x, y, dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes the entries of one direction that depend on the specified seed cells, walking backwards
+     * along the direction from each seed until entries stop changing.
+     * @param dir - direction to update
+     * @param seeds - cells whose jump point conditions may have changed
+     * @param changedJumpPoints - receives cells whose entry switched between having and not having a jump point, may be null
+     */
+    private void update(int dir, ArrayList<Integer> seeds, ArrayList<Integer> changedJumpPoints) {
+        int dx = GridGraph.DX[dir];
+        int dy = GridGraph.DY[dir];
+
+        // Process seeds furthest along the direction first, so entries ahead are final when walking back
+        Integer[] order = seeds.toArray(new Integer[0]);
+        Arrays.sort(order, (a, b) -> Integer.compare(projection(b, dx, dy), projection(a, dx, dy)));
+
+        for (int seed : order) {
+            int x = graph.getX(seed) - dx;
+            int y = graph.getY(seed) - dy;
+
+            while (0 <= x && x < graph.getXSize() && 0 <= y && y < graph.getYSize()) {
+                int cell = graph.index(x, y);
+                int old = distances[dir][cell];
+                int value = compute(x, y, dir);
+                if (value == old) {break;}
+
+                distances[dir][cell] = value;
+                if (changedJumpPoints != null && (old > 0) != (value > 0)) {
+                    addSeed(x, y, changedJumpPoints);
+                }
+
+                x -= dx;
+                y -= dy;
+            }
+        }
+    }
+
+    private int projection(int cell, int dx, int dy) {
+        return graph.getX(cell) * dx + graph.getY(cell) * dy;
+    }
+
+    /**
+     * Computes the table entry of cell (x, y) in a direction, from the entry of the next cell in that direction.
+     * @param x
+     * @param y
+     * @param dir
+     * @return
+     */
+    private int compute(int x, int y, int dir) {
+        int nx = x + GridGraph.DX[dir];
+        int ny = y + GridGraph.DY[dir];
+
+        if (!graph.isWalkable(nx, ny)) {return 0;}
+        if (isJumpPoint(nx, ny, dir)) {return 1;}
+
+        int next = distances[dir][graph.index(nx, ny)];
+        return next > 0 ? next + 1 : next - 1;
+    }
+
+    /**
+     * Returns whether a walkable cell is a jump point when reached moving in a direction, ignoring the end node.
+     * Mirrors the conditions in JumpPointSearch.jump().
+     * @param x
+     * @param y
+     * @param dir
+     * @return
+     */
+    private boolean isJumpPoint(int x, int y, int dir) {
+        int dx = GridGraph.DX[dir];
+        int dy = GridGraph.DY[dir];
+        int c = graph.index(x, y);
+
+        if (diagonals) {
+            if (dx != 0 && dy != 0) {
+                return (graph.isWalkable(x - dx, y + dy) && !graph.isWalkable(x - dx, y))
+                    || (graph.isWalkable(x + dx, y - dy) && !graph.isWalkable(x, y - dy))
+                    || distances[JumpPointSearch.direction(dx, 0)][c] > 0
+                    || distances[JumpPointSearch.direction(0, dy)][c] > 0;
+            } else if (dx != 0) {
+                return (graph.isWalkable(x + dx, y + 1) && !graph.isWalkable(x, y + 1))
+                    || (graph.isWalkable(x + dx, y - 1) && !graph.isWalkable(x, y - 1));
+            } else {
+                return (graph.isWalkable(x + 1, y + dy) && !graph.isWalkable(x + 1, y))
+                    || (graph.isWalkable(x - 1, y + dy) && !graph.isWalkable(x - 1, y));
+            }
+        } else {
+            if (dx != 0) {
+                return (graph.isWalkable(x, y - 1) && !graph.isWalkable(x - dx, y - 1))
+                    || (graph.isWalkable(x, y + 1) && !graph.isWalkable(x - dx, y + 1));
+            } else {
+                return (graph.isWalkable(x - 1, y) && !graph.isWalkable(x - 1, y - dy))
+                    || (graph.isWalkable(x + 1, y) && !graph.isWalkable(x + 1, y - dy))
+                    || distances[JumpPointSearch.direction(-1, 0)][c] > 0
+                    || distances[JumpPointSearch.direction(1, 0)][c] > 0;
+            }
+        }
+    }
+
+    /**
+     * Looks up the successor of a node in a direction, taking the end node into account.
+     * @param c - cell index of node
+     * @param dir - direction to jump in
+     * @param end - End node
+     * @return - cell index of successor, or -1 if there is none.
+     */
+    private int jump(int c, int dir, int[] end) {
+        int v = distances[dir][c];
+        int steps = v > 0 ? v : -v;
+
+        int x = graph.getX(c);
+        int y = graph.getY(c);
+        int dx = GridGraph.DX[dir];
+        int dy = GridGraph.DY[dir];
+        int gx = end[0] - x;
+        int gy = end[1] - y;
+
+        if (dx != 0 && dy != 0) {
+            // Diagonal: stop where the row or column of the end node is crossed, a straight jump may find it there
+            if (Integer.signum(gx) == dx && Integer.signum(gy) == dy) {
+                int k = Math.min(Math.abs(gx), Math.abs(gy));
+                if (k <= steps) {
+                    return graph.index(x + k * dx, y + k * dy);
+                }
+            }
+        } else if (!diagonals && dy != 0) {
+            // 4-connected vertical: stop on the row of the end node, a horizontal jump may find it there
+            if (Integer.signum(gy) == dy && Math.abs(gy) <= steps) {
+                return graph.index(x, end[1]);
+            }
+        } else {
+            // Straight: stop at the end node if it lies on the way
+            if (dx != 0 && gy == 0 && Integer.signum(gx) == dx && Math.abs(gx) <= steps) {
+                return graph.index(end[0], end[1]);
+            }
+            if (dy != 0 && gx == 0 && Integer.signum(gy) == dy && Math.abs(gy) <= steps) {
+                return graph.index(end[0], end[1]);
+            }
+        }
+
+        return v > 0 ? graph.index(x + v * dx, y + v * dy) : -1;
+    }
+
+    /**
+      * Computes the shortest path from specified start node to specified end node using JPS+.
+      * Brings the tables up to date first. Fills the context with the jump points and their parents;
+      * use SearchContext.getPath() with getGraph() to recreate the full path.
+      * @param start - Start node
+      * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
+      * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+      * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+      * @return - the context holding the results
+      */
+    public synchronized SearchContext search(int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        refresh();
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node
+        int h = graph.distance(start[0], start[1], end[0], end[1]);
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        open.insert(s, h);
+
+        // Buffer for successor directions of a node
+        int[] successors = new int[8];
+
+        // Iterate while there are still open nodes
+        while (!open.isEmpty()) {
+
+            // Remove first node in queue
+            int c = open.poll();
+
+            // Check if c is end/target node
+            if (c == t) {
+                break;
+            }
+
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
+
+            int x = graph.getX(c);
+            int y = graph.getY(c);
+
+            // Find directions worth jumping in, based on the direction this node was reached from
+            int count = JumpPointSearch.prunedDirections(graph, c, context.getParent(c), successors);
+
+            for (int i = 0; i < count; i++) {
+
+                // Look up jump point in table
+                int n = jump(c, successors[i], end);
+                if (n == -1) {continue;}
+
+                int nx = graph.getX(n);
+                int ny = graph.getY(n);
+
+                // Cost of a jump is the number of steps taken
+                int newg = context.getG(c) + Math.max(Math.abs(nx - x), Math.abs(ny - y));
+                int newf = newg + graph.distance(nx, ny, end[0], end[1]);
+
+                // If newf isnt better than the jump point's previous f, dont do anything
+                if (newf >= context.getF(n)) {continue;}
+
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+
+                // Update jump point with new f, g and parent values based on current node
+                context.set(n, newg, newf, c, SearchContext.OPEN);
+
+                if (wasOpen) {
+                    open.decreaseKey(n, newf);
+                } else {
+                    open.insert(n, newf);
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed jump points to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+        }
+
+        return context;
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/**
+ * Jump Point Search for uniform-cost grids.
+ * Runs A* over jump points only: instead of adding every neighbor to the open list, each direction is scanned
+ * ("jumped") until a cell is reached where an optimal path might have to turn. Symmetric paths through open
+ * areas are never expanded, which removes most of the work A* does on open maps.
+ *
+ * Diagonal moves follow the same rules as GridGraph, so they may cut wall corners and cost 1 like straight moves.
+ * Without diagonals, the 4-connected variant is used, where vertical jumps also stop at cells from which a
+ * horizontal jump finds a jump point.
+ */
+public class JumpPointSearch {
+
+    /**
+      * Computes the shortest path from specified start node to specified end node using Jump Point Search.
+      * Fills the context with the g and f values of all jump points, as well as their parent jump point.
+      * Use SearchContext.getPath() to recreate the full path.
+      * @param graph - Graph to search, only walkability and connectivity are used
+      * @param start - Start node
+      * @param end   - End node
+      * @param context - Search context to store node state in, reset by this method
+      * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+      * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+      * @return - the context holding the results
+      */
+    public static SearchContext search(GridGraph graph, int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+
+        // Jump points are far apart, so g values make arbitrary jumps and a heap is needed
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node
+        int h = graph.distance(start[0], start[1], end[0], end[1]);
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        open.insert(s, h);
+
+        // Buffer for successor directions of a node
+        int[] successors = new int[8];
+
+        // Iterate while there are still open nodes
+        while (!open.isEmpty()) {
+
+            // Remove first node in queue
+            int c = open.poll();
+
+            // Check if c is end/target node
+            if (c == t) {
+                break;
+            }
+
+            // Update node as closed
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
+
+            int x = graph.getX(c);
+            int y = graph.getY(c);
+
+            // Find directions worth jumping in, based on the direction this node was reached from
+            int count = prunedDirections(graph, c, context.getParent(c), successors);
+
+            for (int i = 0; i < count; i++) {
+                int dir = successors[i];
+
+                // Jump in direction until a jump point is found
+                int n = jump(graph, x + GridGraph.DX[dir], y + GridGraph.DY[dir], GridGraph.DX[dir], GridGraph.DY[dir], end);
+                if (n == -1) {continue;}
+
+                int nx = graph.getX(n);
+                int ny = graph.getY(n);
+
+                // Cost of a jump is the number of steps taken
+                int newg = context.getG(c) + Math.max(Math.abs(nx - x), Math.abs(ny - y));
+                int newf = newg + graph.distance(nx, ny, end[0], end[1]);
+
+                // If newf isnt better than the jump point's previous f, dont do anything
+                if (newf >= context.getF(n)) {continue;}
+
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+
+                // Update jump point with new f, g and parent values based on current node
+                context.set(n, newg, newf, c, SearchContext.OPEN);
+
+                if (wasOpen) {
+                    open.decreaseKey(n, newf);
+                } else {
+                    open.insert(n, newf);
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed jump points to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * Computes the directions to search from a node, pruning every neighbor that can be reached at least as cheaply
+     * from the parent without passing through the node.
+     * @param graph - Graph to search
+     * @param node - cell index of node
+     * @param parent - cell index of parent jump point, -1 for the start node
+     * @param out - array receiving the directions
+     * @return - number of directions written to out
+     */
+    static int prunedDirections(GridGraph graph, int node, int parent, int[] out) {
+
+        // The start node has no parent, so all neighbors are searched
+        if (parent == -1) {
+            int[] directions = GridGraph.DIRECTIONS[graph.getMask(node)];
+            System.arraycopy(directions, 0, out, 0, directions.length);
+            return directions.length;
+        }
+
+        int x = graph.getX(node);
+        int y = graph.getY(node);
+
+        // Direction of travel, parent may be several steps away
+        int dx = Integer.signum(x - graph.getX(parent));
+        int dy = Integer.signum(y - graph.getY(parent));
+
+        int count = 0;
+
+        if (!graph.hasDiagonals()) {
+            // 4-connected: keep going forward, and turn either way
+            if (dx != 0) {
+                count = add(graph, x, y, 0, -1, out, count);
+                count = add(graph, x, y, 0, 1, out, count);
+                count = add(graph, x, y, dx, 0, out, count);
+            } else {
+                count = add(graph, x, y, -1, 0, out, count);
+                count = add(graph, x, y, 1, 0, out, count);
+                count = add(graph, x, y, 0, dy, out, count);
+            }
+        } else if (dx != 0 && dy != 0) {
+            // Diagonal: natural neighbors
+            count = add(graph, x, y, 0, dy, out, count);
+            count = add(graph, x, y, dx, 0, out, count);
+            count = add(graph, x, y, dx, dy, out, count);
+
+            // Forced neighbors
+            if (!graph.isWalkable(x - dx, y)) {
+                count = add(graph, x, y, -dx, dy, out, count);
+            }
+            if (!graph.isWalkable(x, y - dy)) {
+                count = add(graph, x, y, dx, -dy, out, count);
+            }
+        } else if (dx != 0) {
+            // Horizontal: natural neighbor
+            count = add(graph, x, y, dx, 0, out, count);
+
+            // Forced neighbors
+            if (!graph.isWalkable(x, y + 1)) {
+                count = add(graph, x, y, dx, 1, out, count);
+            }
+            if (!graph.isWalkable(x, y - 1)) {
+                count = add(graph, x, y, dx, -1, out, count);
+            }
+        } else {
+            // Vertical: natural neighbor
+            count = add(graph, x, y, 0, dy, out, count);
+
+            // Forced neighbors
+            if (!graph.isWalkable(x + 1, y)) {
+                count = add(graph, x, y, 1, dy, out, count);
+            }
+            if (!graph.isWalkable(x - 1, y)) {
+                count = add(graph, x, y, -1, dy, out, count);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds the direction (dx, dy) to out if the neighbor in that direction is walkable.
+     * @return - new number of directions in out
+     */
+    private static int add(GridGraph graph, int x, int y, int dx, int dy, int[] out, int count) {
+        if (graph.isWalkable(x + dx, y + dy)) {
+            out[count++] = direction(dx, dy);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the GridGraph direction index of a single step.
+     * @param dx - step in x, -1, 0 or 1
+     * @param dy - step in y, -1, 0 or 1
+     * @return
+     */
+    static int direction(int dx, int dy) {
+        for (int dir = 0; dir < 8; dir++) {
+            if (GridGraph.DX[dir] == dx && GridGraph.DY[dir] == dy) {
+                return dir;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Walks from (x, y) in direction (dx, dy) until a jump point, the end node, or a wall is found.
+     * @param graph - Graph to search
+     * @param x - x-position of first cell to examine
+     * @param y - y-position of first cell to examine
+     * @param dx - step in x
+     * @param dy - step in y
+     * @param end - End node
+     * @return - cell index of the jump point, or -1 if there is none in this direction.
+     */
+    static int jump(GridGraph graph, int x, int y, int dx, int dy, int[] end) {
+        while (true) {
+            if (!graph.isWalkable(x, y)) {return -1;}
+            if (x == end[0] && y == end[1]) {return graph.index(x, y);}
+
+            if (graph.hasDiagonals()) {
+                if (dx != 0 && dy != 0) {
+                    // A neighbor behind is only reachable through this cell
+                    if ((graph.isWalkable(x - dx, y + dy) && !graph.isWalkable(x - dx, y))
+                        || (graph.isWalkable(x + dx, y - dy) && !graph.isWalkable(x, y - dy))) {
+                        return graph.index(x, y);
+                    }
+
+                    // Diagonal moves stop where a straight jump finds something
+                    if (jump(graph, x + dx, y, dx, 0, end) != -1 || jump(graph, x, y + dy, 0, dy, end) != -1) {
+                        return graph.index(x, y);
+                    }
+                } else if (dx != 0) {
+                    if ((graph.isWalkable(x + dx, y + 1) && !graph.isWalkable(x, y + 1))
+                        || (graph.isWalkable(x + dx, y - 1) && !graph.isWalkable(x, y - 1))) {
+                        return graph.index(x, y);
+                    }
+                } else {
+                    if ((graph.isWalkable(x + 1, y + dy) && !graph.isWalkable(x + 1, y))
+                        || (graph.isWalkable(x - 1, y + dy) && !graph.isWalkable(x - 1, y))) {
+                        return graph.index(x, y);
+                    }
+                }
+            } else {
+                if (dx != 0) {
+                    // A cell above or below can't be reached from behind
+                    if ((graph.isWalkable(x, y - 1) && !graph.isWalkable(x - dx, y - 1))
+                        || (graph.isWalkable(x, y + 1) && !graph.isWalkable(x - dx, y + 1))) {
+                        return graph.index(x, y);
+                    }
+                } else {
+                    if ((graph.isWalkable(x - 1, y) && !graph.isWalkable(x - 1, y - dy))
+                        || (graph.isWalkable(x + 1, y) && !graph.isWalkable(x + 1, y - dy))) {
+                        return graph.index(x, y);
+                    }
+
+                    // Vertical moves stop where a horizontal jump finds something
+                    if (jump(graph, x + 1, y, 1, 0, end) != -1 || jump(graph, x - 1, y, -1, 0, end) != -1) {
+                        return graph.index(x, y);
+                    }
+                }
+            }
+
+            x += dx;
+            y += dy;
+        }
+    }
+}
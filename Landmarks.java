@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/**
+ * Landmark tables for the ALT heuristic (A*, Landmarks, Triangle inequality).
+ * For a few landmark cells the cost from every cell to the landmark is precomputed. By the triangle inequality
+ * the cost from n to t is at least d(n, L) - d(t, L) for every landmark L, which is far more informed than the
+ * grid distance on boards where walls force detours.
+ *
+ * Landmarks are picked by farthest-point selection: each new landmark is the cell farthest from all landmarks
+ * picked so far, and cells no landmark can reach count as infinitely far, so every region gets a landmark
+ * before any region gets a second one.
+ *
+ * Tables are stored as short[] while all costs fit, and as int[] otherwise. They are rebuilt on the first
+ * use after the board version changes.
+ */
+public class Landmarks {
+
+    public static final int DEFAULT_COUNT = 8;
+
+    // Cost of cells that can't reach a landmark
+    private static final int UNREACHED = -1;
+
+    private final Board board;
+    private final boolean diagonals;
+    private final int count;
+
+    // Version of the board the tables were built for, version - 1 before the first build
+    private int version;
+
+    // Cell index of every landmark
+    private int[] cells = new int[0];
+
+    // Cost from each cell to each landmark, either compact or wide depending on the largest cost
+    private short[][] shortTables;
+    private int[][] intTables;
+
+    // Movement cost of each cell, needed to turn costs to a landmark into costs from it
+    private int[] costs;
+    private int minCost;
+    private boolean uniform;
+
+    private GridGraph graph;
+
+    /**
+     * Creates landmark tables with the default number of landmarks.
+     * @see #Landmarks(Board, boolean, int)
+     */
+    public Landmarks(Board board, boolean diagonals) {
+        this(board, diagonals, DEFAULT_COUNT);
+    }
+
+    /**
+     * Creates landmark tables for a board. Tables are built lazily on the first refresh().
+     * @param board - Board to build tables for
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param count - Maximum number of landmarks, fewer are used if the board has fewer free cells
+     */
+    public Landmarks(Board board, boolean diagonals, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Landmark count must be at least 1, was " + count);
+        }
+        this.board = board;
+        this.diagonals = diagonals;
+        this.count = count;
+        this.version = board.getVersion() - 1;
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by these tables.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the cells of the landmarks, as {x, y} pairs. Only valid after refresh().
+     * @return
+     */
+    public synchronized int[][] getLandmarks() {
+        int[][] landmarks = new int[cells.length][];
+        for (int i = 0; i < cells.length; i++) {
+            landmarks[i] = new int[] {graph.getX(cells[i]), graph.getY(cells[i])};
+        }
+        return landmarks;
+    }
+
+    /**
+     * Returns whether the tables are stored as short[].
+     * @return
+     */
+    public synchronized boolean isCompact() {
+        return shortTables != null;
+    }
+
+    /**
+     * Rebuilds the tables if the board has changed since they were built.
+     * @return - the graph the tables were built for, which A* should search
+     */
+    public synchronized GridGraph refresh() {
+        int current = board.getVersion();
+        if (current == version && graph != null) {
+            return graph;
+        }
+
+        graph = board.getGraph(diagonals);
+        version = current;
+        int size = graph.size();
+        minCost = graph.getMinCost();
+        uniform = graph.isUniform();
+        costs = new int[size];
+        for (int i = 0; i < size; i++) {
+            costs[i] = graph.getCost(i);
+        }
+
+        // Smallest cost from any picked landmark to each cell, UNREACHED until some landmark reaches it
+        int[] nearest = new int[size];
+        Arrays.fill(nearest, UNREACHED);
+        int[][] tables = new int[count][];
+        int[] picked = new int[count];
+        int found = 0;
+        int largest = 0;
+
+        // Start the selection from the first free cell
+        int candidate = -1;
+        for (int i = 0; i < size && candidate == -1; i++) {
+            if (graph.isWalkable(graph.getX(i), graph.getY(i))) {
+                candidate = i;
+            }
+        }
+
+        while (candidate != -1 && found < count) {
+            int[] table = distancesTo(candidate);
+
+            // The first table only serves to find a cell on the rim of the board, which becomes the first landmark
+            if (found == 0) {
+                int far = farthest(table);
+                if (far != candidate) {
+                    candidate = far;
+                    table = distancesTo(candidate);
+                }
+            }
+
+            picked[found] = candidate;
+            tables[found] = table;
+            found++;
+
+            // Pick the cell farthest from all landmarks, preferring cells no landmark reaches
+            candidate = -1;
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                if (table[i] != UNREACHED) {
+                    largest = Math.max(largest, table[i]);
+                    if (nearest[i] == UNREACHED || table[i] < nearest[i]) {
+                        nearest[i] = table[i];
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (!graph.isWalkable(graph.getX(i), graph.getY(i))) {continue;}
+                if (nearest[i] == UNREACHED) {
+                    candidate = i;
+                    break;
+                }
+                if (nearest[i] > best) {
+                    best = nearest[i];
+                    candidate = i;
+                }
+            }
+
+            // Every free cell is already a landmark
+            if (best == 0) {
+                candidate = -1;
+            }
+        }
+
+        cells = Arrays.copyOf(picked, found);
+
+        // Store compactly if every cost fits in a short
+        if (largest <= Short.MAX_VALUE) {
+            shortTables = new short[found][size];
+            intTables = null;
+            for (int l = 0; l < found; l++) {
+                for (int i = 0; i < size; i++) {
+                    shortTables[l][i] = (short) tables[l][i];
+                }
+            }
+        } else {
+            intTables = Arrays.copyOf(tables, found);
+            shortTables = null;
+        }
+
+        return graph;
+    }
+
+    /**
+     * Returns a lower bound on the cost of moving from a cell to the target, the best of the landmark bounds
+     * and the grid distance. The bound is consistent, so A* stays optimal without reopening nodes.
+     * @param cell - cell index
+     * @param target - cell index of the target
+     * @return
+     */
+    public int heuristic(int cell, int target) {
+        int h = graph.distance(graph.getX(cell), graph.getY(cell), graph.getX(target), graph.getY(target)) * minCost;
+
+        // d(n, L) - d(t, L) bounds d(n, t) from below, and so does d(L, t) - d(L, n).
+        // Entering a cell costs its cost, so d(L, n) = d(n, L) + cost(n) - cost(L)
+        int correction = uniform ? 0 : costs[target] - costs[cell];
+        if (shortTables != null) {
+            for (short[] table : shortTables) {
+                int dn = table[cell];
+                int dt = table[target];
+                if (dn == UNREACHED || dt == UNREACHED) {continue;}
+                h = Math.max(h, Math.max(dn - dt, dt - dn + correction));
+            }
+        } else {
+            for (int[] table : intTables) {
+                int dn = table[cell];
+                int dt = table[target];
+                if (dn == UNREACHED || dt == UNREACHED) {continue;}
+                h = Math.max(h, Math.max(dn - dt, dt - dn + correction));
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Returns the cost from every cell to a landmark, UNREACHED for cells that can't reach it.
+     */
+    private int[] distancesTo(int cell) {
+        FlowField field = FlowField.compute(graph, new int[] {graph.getX(cell), graph.getY(cell)}, version);
+        int[] table = new int[graph.size()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = field.getDistance(graph.getX(i), graph.getY(i));
+        }
+        return table;
+    }
+
+    /**
+     * Returns the cell with the largest finite value in a table.
+     */
+    private int farthest(int[] table) {
+        int far = 0;
+        for (int i = 1; i < table.length; i++) {
+            if (table[i] > table[far]) {
+                far = i;
+            }
+        }
+        return far;
+    }
+}
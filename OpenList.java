@@ -0,0 +1,56 @@
+/**
+ * A priority queue of nodes identified by cell index, keyed by an integer value (typically the f value).
+ * Every node is in the list at most once, and its key can be lowered in place with decreaseKey().
+ */
+public interface OpenList {
+
+    /**
+     * Removes all nodes from the list.
+     */
+    void clear();
+
+    /**
+     * Returns whether the list holds no nodes.
+     * @return
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns the number of nodes in the list.
+     * @return
+     */
+    int size();
+
+    /**
+     * Returns whether the specified node is currently in the list.
+     * @param node - cell index
+     * @return
+     */
+    boolean contains(int node);
+
+    /**
+     * Adds a node which is not in the list yet.
+     * @param node - cell index
+     * @param key - priority of node, lower is polled first
+     */
+    void insert(int node, int key);
+
+    /**
+     * Lowers the key of a node already in the list.
+     * @param node - cell index
+     * @param key - new key, not larger than the current key
+     */
+    void decreaseKey(int node, int key);
+
+    /**
+     * Returns the smallest key in the list without removing anything.
+     * @return
+     */
+    int peekKey();
+
+    /**
+     * Removes and returns a node with the smallest key.
+     * @return - cell index of removed node
+     */
+    int poll();
+}
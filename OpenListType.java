@@ -0,0 +1,40 @@
+/**
+ * Enum representing the different open list implementations A* can run with
+ */
+enum OpenListType {
+    BINARY_HEAP("Binary Heap"),
+    QUATERNARY_HEAP("4-ary Heap"),
+    BUCKET("Bucket Queue"),
+    RADIX("Radix Queue");
+
+    private final String value;
+    private OpenListType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Creates an empty open list of this type.
+     * @param capacity - Number of distinct nodes (cell indices) the list must be able to hold.
+     * @param maxKeySpread - Upper bound on the difference between any key in the list and the current minimum key.
+     *                       Only used by the bucket queue, which keeps that many buckets in a ring.
+     * @return
+     */
+    public OpenList create(int capacity, int maxKeySpread) {
+        switch (this) {
+            case BINARY_HEAP:
+                return new IndexedHeap(capacity, 2);
+            case QUATERNARY_HEAP:
+                return new IndexedHeap(capacity, 4);
+            case BUCKET:
+                return new BucketQueue(capacity, maxKeySpread);
+            case RADIX:
+                return new RadixQueue(capacity);
+            default:
+                return new IndexedHeap(capacity, 2);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous parallel Breadth First Search, meant for distance maps over very large boards.
+ * Each level's frontier is split into chunks that are expanded by ForkJoinPool workers. A worker claims a cell by
+ * setting its bit in a shared visited bitset with compare-and-set, so every cell gets exactly one owner, which
+ * writes the cell's depth and appends it to its own thread-local buffer. After the level the buffers are
+ * concatenated into the next frontier.
+ *
+ * Small frontiers are expanded on the calling thread, since forking them would cost more than it saves.
+ * An instance reuses its frontier arrays between queries but may only run one query at a time.
+ */
+public class ParallelBFS {
+
+    // Depth of cells that can't be reached from the source
+    public static final int UNREACHED = -1;
+
+    // Frontiers smaller than this are expanded on the calling thread
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+    // Number of frontier cells expanded by one task
+    private static final int CHUNK = 1024;
+
+    /**
+     * Growable list of cells found by one thread during a level.
+     */
+    private static final class Buffer {
+        final int run;
+        int[] cells = new int[CHUNK];
+        int size = 0;
+
+        Buffer(int run) {
+            this.run = run;
+        }
+
+        void add(int cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    // Buffers of the threads taking part in the running query, so they can be merged after each level. A thread's
+    // buffer from an earlier query is stale and gets replaced, so the list never outgrows one query
+    private final ConcurrentLinkedQueue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer> local = new ThreadLocal<>();
+
+    // Number of the running query
+    private int run = 0;
+
+    // Bit i is set once cell i has been claimed
+    private AtomicLongArray visited = new AtomicLongArray(0);
+
+    // Current and next frontier
+    private int[] frontier = new int[CHUNK];
+    private int[] next = new int[CHUNK];
+    private int frontierSize;
+
+    // State of the running query, read by the tasks
+    private GridGraph graph;
+    private int[] depths;
+    private int depth;
+
+    /**
+     * Creates a parallel BFS running on the common ForkJoinPool.
+     */
+    public ParallelBFS() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a parallel BFS running on the specified pool.
+     * @param pool - pool to run the workers on
+     */
+    public ParallelBFS(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the depth of every cell reachable from the source.
+     * @param graph - Graph storing neighbor bitmasks
+     * @param source - Source node
+     * @param depths - Array to store the depths in, indexed by cell index. Allocated if null or too small.
+     * @return - depths of all cells, UNREACHED for walls and cells that can't be reached.
+     */
+    public int[] distances(GridGraph graph, int[] source, int[] depths) {
+        if (depths == null || depths.length < graph.size()) {
+            depths = new int[graph.size()];
+        }
+        run(graph, graph.index(source[0], source[1]), -1, depths);
+        return depths;
+    }
+
+    /**
+     * Computes the shortest path from start to end, stopping after the level that contains the end node.
+     * The nodes on the path are written to the context with their depth as g value and their parent,
+     * so Algorithm.BFS_path can recreate the path like for Algorithm.BFS.
+     * @param graph - Graph storing neighbor bitmasks
+     * @param start - Start node
+     * @param end - End node
+     * @param context - Search context receiving the nodes of the path, reset by this method
+     * @param depths - Scratch array for depths, indexed by cell index. Allocated if null or too small.
+     * @return - the context holding the results
+     */
+    public SearchContext BFS(GridGraph graph, int[] start, int[] end, SearchContext context, int[] depths) {
+        context.reset(graph.size());
+        if (depths == null || depths.length < graph.size()) {
+            depths = new int[graph.size()];
+        }
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+        int expanded = run(graph, s, t, depths);
+        context.countExpansions(expanded);
+
+        if (depths[t] == UNREACHED) {
+            return context;
+        }
+
+        // Walk back from the end node, each step to a neighbor one level closer to the start
+        context.set(s, 0, 0, -1, SearchContext.CLOSED);
+        int node = t;
+        while (node != s) {
+            int d = depths[node];
+            int parent = -1;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(node)]) {
+                int n = node + graph.getOffset(dir);
+                if (depths[n] == d - 1) {
+                    parent = n;
+                    break;
+                }
+            }
+            context.set(node, d, d, parent, SearchContext.CLOSED);
+            node = parent;
+        }
+
+        return context;
+    }
+
+    /**
+     * Runs the BFS levels from s until the frontier is empty, or until the level containing t is complete.
+     * @param t - cell index of the end node, -1 to compute all depths
+     * @return - number of expanded cells
+     */
+    private int run(GridGraph graph, int s, int t, int[] depths) {
+        int size = graph.size();
+        this.graph = graph;
+        this.depths = depths;
+        run++;
+
+        // Clear depths and visited cells in parallel, a full board can have hundreds of millions of cells
+        pool.invoke(new Fill(depths, 0, size));
+        if (visited.length() < (size + 63) >>> 6) {
+            visited = new AtomicLongArray((size + 63) >>> 6);
+        } else {
+            for (int i = 0; i < (size + 63) >>> 6; i++) {
+                visited.set(i, 0L);
+            }
+        }
+
+        // Level 0 is the source
+        claim(s);
+        depths[s] = 0;
+        frontier[0] = s;
+        frontierSize = 1;
+        depth = 0;
+        int expanded = 0;
+
+        while (frontierSize > 0 && (t == -1 || depths[t] == UNREACHED)) {
+            depth++;
+            expanded += frontierSize;
+
+            if (frontierSize < SEQUENTIAL_THRESHOLD) {
+                expand(0, frontierSize);
+            } else {
+                pool.invoke(new Expand(0, frontierSize));
+            }
+
+            // Concatenate the thread-local buffers into the next frontier
+            int nextSize = 0;
+            for (Buffer buffer : buffers) {
+                nextSize += buffer.size;
+            }
+            if (next.length < nextSize) {
+                next = new int[Math.max(nextSize, next.length * 2)];
+            }
+            int offset = 0;
+            for (Buffer buffer : buffers) {
+                System.arraycopy(buffer.cells, 0, next, offset, buffer.size);
+                offset += buffer.size;
+                buffer.size = 0;
+            }
+
+            int[] levelCells = frontier;
+            frontier = next;
+            next = levelCells;
+            frontierSize = nextSize;
+        }
+
+        // Drop references to the query's arrays and buffers. Workers keep an empty stale buffer until their next query
+        for (Buffer buffer : buffers) {
+            buffer.cells = null;
+        }
+        buffers.clear();
+        local.remove();
+        this.graph = null;
+        this.depths = null;
+        return expanded;
+    }
+
+    /**
+     * Expands the frontier cells in [from, to), claiming and recording their unvisited neighbors.
+     */
+    private void expand(int from, int to) {
+        Buffer buffer = local.get();
+        if (buffer == null || buffer.run != run) {
+            buffer = new Buffer(run);
+            local.set(buffer);
+            buffers.add(buffer);
+        }
+        GridGraph graph = this.graph;
+        int[] depths = this.depths;
+        int depth = this.depth;
+
+        for (int i = from; i < to; i++) {
+            int c = frontier[i];
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                if (claim(n)) {
+                    depths[n] = depth;
+                    buffer.add(n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the visited bit of a cell.
+     * @param cell - cell index
+     * @return - true if this call set the bit, false if it was already set
+     */
+    private boolean claim(int cell) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long old = visited.get(word);
+        while ((old & bit) == 0) {
+            if (visited.compareAndSet(word, old, old | bit)) {
+                return true;
+            }
+            old = visited.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Expands a range of the frontier, splitting it until it is at most CHUNK cells long.
+     */
+    private final class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        Expand(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                expand(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Expand(from, mid), new Expand(mid, to));
+            }
+        }
+    }
+
+    /**
+     * Fills a range of an array with UNREACHED.
+     */
+    private static final class Fill extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int LENGTH = 1 << 20;
+        private final int[] array;
+        private final int from;
+        private final int to;
+
+        Fill(int[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LENGTH) {
+                Arrays.fill(array, from, to, UNREACHED);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Fill(array, from, mid), new Fill(array, mid, to));
+            }
+        }
+    }
+}
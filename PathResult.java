@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+
+/**
+ * Result of a single path query: the path itself, its cost, and some statistics about the search.
+ */
+public class PathResult {
+
+    private final ArrayList<int[]> path;
+    private final int cost;
+    private final int expanded;
+    private final double bound;
+
+    /**
+     * Creates a result for an optimal search.
+     * @param path - Nodes on the path excluding start and end, ordered from end to start.
+     * @param cost - Cost of the path, -1 if no path was found.
+     * @param expanded - Number of nodes expanded by the search.
+     */
+    public PathResult(ArrayList<int[]> path, int cost, int expanded) {
+        this(path, cost, expanded, 1.0);
+    }
+
+    /**
+     * Creates a result.
+     * @param path - Nodes on the path excluding start and end, ordered from end to start.
+     * @param cost - Cost of the path, -1 if no path was found.
+     * @param expanded - Number of nodes expanded by the search.
+     * @param bound - Guaranteed suboptimality bound: the cost is at most bound times the optimal cost.
+     */
+    public PathResult(ArrayList<int[]> path, int cost, int expanded, double bound) {
+        this.path = path;
+        this.cost = cost;
+        this.expanded = expanded;
+        this.bound = bound;
+    }
+
+    /**
+     * Creates a result from a search context, after one of the searches has filled it.
+     * @param context - context holding the results
+     * @param graph - Graph that was searched
+     * @param start - Start node
+     * @param end - End node
+     * @return
+     */
+    public static PathResult fromContext(SearchContext context, GridGraph graph, int[] start, int[] end) {
+        return fromContext(context, graph, start, end, 1.0);
+    }
+
+    /**
+     * Creates a result from a search context, after a bounded-suboptimal search has filled it.
+     * @param context - context holding the results
+     * @param graph - Graph that was searched
+     * @param start - Start node
+     * @param end - End node
+     * @param bound - Suboptimality bound the search guarantees
+     * @return
+     */
+    public static PathResult fromContext(SearchContext context, GridGraph graph, int[] start, int[] end, double bound) {
+        int t = graph.index(end[0], end[1]);
+
+        // Start and end are the same cell, an empty path is the cheapest. The end has no parent then either
+        if (t == graph.index(start[0], start[1])) {
+            return new PathResult(new ArrayList<>(), 0, context.getExpandedCount(), bound);
+        }
+
+        int cost = context.getParent(t) == -1 ? -1 : context.getG(t);
+        return new PathResult(context.getPath(graph, start, end), cost, context.getExpandedCount(), bound);
+    }
+
+    /**
+     * Returns the nodes on the path excluding start and end, ordered from end to start. Empty if there is no path.
+     * @return
+     */
+    public ArrayList<int[]> getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the cost of the path, or -1 if no path was found.
+     * @return
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns whether a path was found.
+     * @return
+     */
+    public boolean isFound() {
+        return cost >= 0;
+    }
+
+    /**
+     * Returns the number of nodes expanded by the search.
+     * @return
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the guaranteed suboptimality bound, 1 for optimal searches.
+     * @return
+     */
+    public double getBound() {
+        return bound;
+    }
+}
@@ -0,0 +1,309 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless service for running many path queries against one graph, e.g. for offline route precomputation.
+ * Queries run on a fixed pool of worker threads. Every worker owns one SearchContext which it reuses for all of its
+ * queries, and workers take queries in small blocks from a shared counter, so uneven query costs balance out.
+ * Results are returned in submission order.
+ *
+ * Only the stateless searches can run concurrently on a shared graph: A* (any open list), Dijkstra, BFS, JPS, and the
+ * bounded-suboptimal weighted A* and focal search. BFS and JPS count every move as 1, so on a graph with terrain
+ * their results carry the terrain cost of the path they found and an infinite bound.
+ */
+public class PathService {
+
+    // Number of queries a worker takes at once, large enough to keep the shared counter cold
+    private static final int BLOCK = 64;
+
+    /**
+     * One path query.
+     */
+    public static final class Query {
+        private final int[] start;
+        private final int[] end;
+
+        /**
+         * Creates a query.
+         * @param start - Start node
+         * @param end - End node
+         */
+        public Query(int[] start, int[] end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int[] getStart() {
+            return start;
+        }
+
+        public int[] getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * Aggregate statistics of one batch.
+     */
+    public static final class Stats {
+        private final int queries;
+        private final int found;
+        private final long expanded;
+        private final long elapsedNanos;
+        private final int threads;
+
+        Stats(int queries, int found, long expanded, long elapsedNanos, int threads) {
+            this.queries = queries;
+            this.found = found;
+            this.expanded = expanded;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        public int getQueries() {
+            return queries;
+        }
+
+        public int getFound() {
+            return found;
+        }
+
+        public long getExpanded() {
+            return expanded;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Returns the number of queries answered per second.
+         * @return
+         */
+        public double getQueriesPerSecond() {
+            return elapsedNanos == 0 ? 0 : queries * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns the number of nodes expanded per second, over all workers.
+         * @return
+         */
+        public double getExpansionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : expanded * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d queries (%d found) in %.1f ms on %d threads: %.0f queries/s, %.3g expansions/s",
+                    queries, found, elapsedNanos / 1e6, threads, getQueriesPerSecond(), getExpansionsPerSecond());
+        }
+    }
+
+    private final GridGraph graph;
+    private final ComputationalMethod method;
+    private final int threads;
+
+    // Suboptimality bound of weighted A* and focal search, 1 for the optimal searches
+    private final double bound;
+    private final ExecutorService executor;
+
+    // One context per worker, grown on demand and reused across batches
+    private final SearchContext[] contexts;
+
+    private volatile Stats lastStats;
+
+    /**
+     * Creates a service with one worker per available processor.
+     * @see #PathService(GridGraph, ComputationalMethod, int)
+     */
+    public PathService(GridGraph graph, ComputationalMethod method) {
+        this(graph, method, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a service for an optimal search.
+     * @see #PathService(GridGraph, ComputationalMethod, int, double)
+     */
+    public PathService(GridGraph graph, ComputationalMethod method, int threads) {
+        this(graph, method, threads, 1.0);
+    }
+
+    /**
+     * Creates a service and starts its workers.
+     * @param graph - Graph to search, must not be modified while the service is in use
+     * @param method - Search to run, one of ASTAR, ASTAR_DIAL, DIJKSTRA, BFS, JPS, WEIGHTED_ASTAR or FOCAL_SEARCH
+     * @param threads - Number of worker threads
+     * @param bound - Suboptimality bound of WEIGHTED_ASTAR and FOCAL_SEARCH, at least 1, ignored by the other searches
+     */
+    public PathService(GridGraph graph, ComputationalMethod method, int threads, double bound) {
+        switch (method) {
+            case ASTAR:
+            case ASTAR_DIAL:
+            case DIJKSTRA:
+            case BFS:
+            case JPS:
+            case WEIGHTED_ASTAR:
+            case FOCAL_SEARCH:
+                break;
+            default:
+                throw new IllegalArgumentException(method.getValue() + " can't run as a batch query");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, was " + threads);
+        }
+        if (!(bound >= 1)) {
+            throw new IllegalArgumentException("Suboptimality bound must be at least 1, was " + bound);
+        }
+
+        this.graph = graph;
+        this.method = method;
+        this.threads = threads;
+        this.bound = bound;
+        this.contexts = new SearchContext[threads];
+        for (int i = 0; i < threads; i++) {
+            contexts[i] = new SearchContext(graph.size());
+        }
+
+        AtomicInteger created = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "path-service-" + created.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a batch of queries and waits for all of them.
+     * @param queries - Queries to run
+     * @return - one result per query, in the order of the queries
+     */
+    public List<PathResult> batch(List<Query> queries) {
+        int count = queries.size();
+        PathResult[] results = new PathResult[count];
+        AtomicInteger next = new AtomicInteger();
+        long t = System.nanoTime();
+
+        // Every worker claims blocks of queries until none are left
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            SearchContext context = contexts[w];
+            workers.add(executor.submit(() -> {
+                int from;
+                while ((from = next.getAndAdd(BLOCK)) < count) {
+                    int to = Math.min(count, from + BLOCK);
+                    for (int i = from; i < to; i++) {
+                        Query query = queries.get(i);
+                        results[i] = run(query.start, query.end, context);
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            // Stop the remaining workers by claiming every query
+            next.set(count);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch", e);
+        } catch (ExecutionException e) {
+            next.set(count);
+            throw new IllegalStateException("Batch query failed", e.getCause());
+        }
+        long elapsed = System.nanoTime() - t;
+
+        int found = 0;
+        long expanded = 0;
+        for (PathResult result : results) {
+            if (result.isFound()) {
+                found++;
+            }
+            expanded += result.getExpanded();
+        }
+        lastStats = new Stats(count, found, expanded, elapsed, threads);
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Returns the statistics of the most recent batch, or null if no batch has finished.
+     * @return
+     */
+    public Stats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * Returns the graph the service searches.
+     * @return
+     */
+    public GridGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Stops the worker threads. The service must not be used afterwards.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs one query with the configured search.
+     */
+    private PathResult run(int[] start, int[] end, SearchContext context) {
+        switch (method) {
+            case ASTAR:
+                Algorithm.A_Star(graph, start, end, context, null, false);
+                break;
+            case ASTAR_DIAL:
+                Algorithm.A_Star(graph, start, end, context, OpenListType.BUCKET, null, false);
+                break;
+            case DIJKSTRA:
+                Algorithm.Dijkstra(graph, start, end, context, null, false);
+                break;
+            case BFS:
+                Algorithm.BFS(graph, start, end, context, null, false);
+                return unweighted(PathResult.fromContext(context, graph, start, end), end);
+            case WEIGHTED_ASTAR:
+                Algorithm.Weighted_A_Star(graph, start, end, context, bound, null, false);
+                return PathResult.fromContext(context, graph, start, end, bound);
+            case FOCAL_SEARCH:
+                Algorithm.Focal_Search(graph, start, end, context, bound, null, false);
+                return PathResult.fromContext(context, graph, start, end, bound);
+            default:
+                JumpPointSearch.search(graph, start, end, context, null, false);
+                return unweighted(PathResult.fromContext(context, graph, start, end), end);
+        }
+        return PathResult.fromContext(context, graph, start, end);
+    }
+
+    /**
+     * Corrects the result of a search that counts every move as 1. On a graph with terrain its g is the number of
+     * moves, so the cost is recounted along the path, and since a cheaper path may exist the bound is infinite.
+     */
+    private PathResult unweighted(PathResult result, int[] end) {
+        if (graph.isUniform() || !result.isFound() || result.getCost() == 0) {
+            return result;
+        }
+
+        // Paths exclude the start and the end, moving onto a cell costs that cell's cost
+        int cost = graph.getCost(graph.index(end[0], end[1]));
+        for (int[] cell : result.getPath()) {
+            cost += graph.getCost(graph.index(cell[0], cell[1]));
+        }
+        return new PathResult(result.getPath(), cost, result.getExpanded(), Double.POSITIVE_INFINITY);
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+/**
+ * A radix heap over cell indices with non-negative integer keys.
+ * Keys must be monotone: nothing may be inserted with a key smaller than the last polled key, which holds for
+ * A* with a consistent heuristic. Bucket i holds keys whose highest bit differing from the last polled key is i - 1,
+ * so each node moves down through at most 33 buckets over its lifetime.
+ */
+public class RadixQueue implements OpenList {
+
+    private static final int BUCKETS = 33;
+
+    // Nodes per bucket, stored as growable arrays
+    private final int[][] buckets = new int[BUCKETS][];
+    private final int[] bucketSizes = new int[BUCKETS];
+
+    // Key, bucket and position within bucket of every node (bucket -1 if not queued)
+    private final int[] keys;
+    private final int[] bucketOf;
+    private final int[] slotOf;
+
+    private int size = 0;
+
+    // Last polled key
+    private int last = 0;
+
+    /**
+     * Creates an empty radix queue.
+     * @param capacity - number of distinct nodes (cell indices) the queue must hold.
+     */
+    public RadixQueue(int capacity) {
+        this.keys = new int[Math.max(capacity, 1)];
+        this.bucketOf = new int[Math.max(capacity, 1)];
+        this.slotOf = new int[Math.max(capacity, 1)];
+        Arrays.fill(bucketOf, -1);
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets[b] = new int[16];
+        }
+    }
+
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b++) {
+            for (int i = 0; i < bucketSizes[b]; i++) {
+                bucketOf[buckets[b][i]] = -1;
+            }
+            bucketSizes[b] = 0;
+        }
+        size = 0;
+        last = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return bucketOf[node] != -1;
+    }
+
+    public void insert(int node, int key) {
+        // An empty queue can restart its monotone sequence lower
+        if (size == 0 && key < last) {
+            last = key;
+        }
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " is smaller than last polled key " + last);
+        }
+        keys[node] = key;
+        add(node, bucketIndex(key));
+        size++;
+    }
+
+    public void decreaseKey(int node, int key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " is smaller than last polled key " + last);
+        }
+        remove(node);
+        keys[node] = key;
+        add(node, bucketIndex(key));
+    }
+
+    public int peekKey() {
+        refill();
+        return last;
+    }
+
+    public int poll() {
+        refill();
+        int node = buckets[0][bucketSizes[0] - 1];
+        remove(node);
+        size--;
+        return node;
+    }
+
+    /**
+     * Makes sure bucket 0 (keys equal to last) is non-empty, by redistributing the first non-empty bucket.
+     */
+    private void refill() {
+        if (bucketSizes[0] > 0) {return;}
+
+        int b = 1;
+        while (bucketSizes[b] == 0) {
+            b++;
+        }
+
+        // New last key is the smallest key in that bucket
+        int[] bucket = buckets[b];
+        int count = bucketSizes[b];
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, keys[bucket[i]]);
+        }
+        last = min;
+
+        // All nodes of the bucket now fall in lower buckets
+        bucketSizes[b] = 0;
+        for (int i = 0; i < count; i++) {
+            int node = bucket[i];
+            add(node, bucketIndex(keys[node]));
+        }
+    }
+
+    private int bucketIndex(int key) {
+        return key == last ? 0 : 32 - Integer.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void add(int node, int b) {
+        if (bucketSizes[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], buckets[b].length * 2);
+        }
+        buckets[b][bucketSizes[b]] = node;
+        bucketOf[node] = b;
+        slotOf[node] = bucketSizes[b]++;
+    }
+
+    private void remove(int node) {
+        // Swap with last node in the same bucket
+        int b = bucketOf[node];
+        int slot = slotOf[node];
+        int moved = buckets[b][--bucketSizes[b]];
+        buckets[b][slot] = moved;
+        slotOf[moved] = slot;
+        bucketOf[node] = -1;
+    }
+}
@@ -0,0 +1,516 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Command line check of every search engine against a plain Dijkstra, for use after changing any of them.
+ * Usage: java SearchCheck [boards] [seed]
+ *
+ * Random boards with walls, rooms and terrain are searched between random cells, including from a cell to itself.
+ * Every path must be valid and cost what its result reports, and queries between disconnected cells must find
+ * nothing. Optimal engines must match the reference cost, bounded-suboptimal ones stay within the bound of their
+ * result, and HPA* and corridor search only need to find some path. Engines that count every move as 1 are only
+ * held to the optimal cost on boards without terrain. Between rounds some walls and costs change, so the engines
+ * that follow board edits are checked on updated boards too.
+ *
+ * Prints one line per engine and exits with status 1 if any check failed.
+ */
+public class SearchCheck {
+
+    // Boards with at most this many cells also run the engines that precompute tables for every pair of cells
+    private static final int SMALL_BOARD_CELLS = 40 * 40;
+
+    // Rounds of queries per board, with edits in between, and queries per round
+    private static final int ROUNDS = 3;
+    private static final int QUERIES = 10;
+
+    // Suboptimality bound given to weighted A*, focal search and weighted symmetry reduction
+    private static final double BOUND = 1.5;
+
+    // Number of failures printed in full
+    private static final int REPORTED_FAILURES = 20;
+
+    /**
+     * A search under test, run on the graph of the board's current state.
+     */
+    private interface Search {
+        PathResult run(GridGraph graph, int[] start, int[] end) throws IOException;
+    }
+
+    /**
+     * A named search, and whether it takes terrain costs into account.
+     */
+    private static final class Engine {
+        final String name;
+        final boolean weighted;
+        final Search search;
+
+        Engine(String name, boolean weighted, Search search) {
+            this.name = name;
+            this.weighted = weighted;
+            this.search = search;
+        }
+    }
+
+    /**
+     * Results of one engine over all boards.
+     */
+    private static final class Tally {
+        int checked = 0;
+        int failed = 0;
+        int skipped = 0;
+        double worstRatio = 1.0;
+    }
+
+    private final Map<String, Tally> tallies = new LinkedHashMap<>();
+    private int failures = 0;
+
+    private final SearchContext context = new SearchContext(16);
+    private final FringeSearch fringeSearch = new FringeSearch();
+    private final AnytimeSearch anytimeSearch = new AnytimeSearch();
+    private final Bidirectional bidirectional = new Bidirectional();
+    private final BitParallelBFS bitParallelBFS = new BitParallelBFS();
+    private final ParallelBFS parallelBFS = new ParallelBFS();
+
+    public static void main(String[] args) throws IOException {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        SearchCheck check = new SearchCheck();
+        try {
+            Random random = new Random(seed);
+            for (int i = 0; i < boards; i++) {
+                check.checkBoard(i, random.nextLong());
+            }
+        } finally {
+            check.bidirectional.shutdown();
+        }
+        check.printSummary();
+        System.exit(check.failures > 0 ? 1 : 0);
+    }
+
+    /**
+     * Runs every engine on one random board.
+     * @param number - number of the board, for failure messages
+     * @param seed - seed the board and its queries are generated from
+     */
+    private void checkBoard(int number, long seed) throws IOException {
+        Random random = new Random(seed);
+        boolean small = random.nextBoolean();
+        int xSize = small ? 2 + random.nextInt(39) : 41 + random.nextInt(110);
+        int ySize = small ? 2 + random.nextInt(39) : 41 + random.nextInt(110);
+        boolean diagonals = random.nextBoolean();
+        Board board = randomBoard(random, xSize, ySize);
+        String label = "board " + number + " (seed " + seed + ", " + xSize + "x" + ySize + (diagonals ? ", diagonal" : "") + ")";
+
+        fringeSearch.setMaxExpansions(1_000_000L);
+        List<BoardListener> listeners = new ArrayList<>();
+        List<Engine> engines = engines(board, diagonals, xSize * ySize <= SMALL_BOARD_CELLS, listeners);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            if (round > 0) {
+                edit(random, board);
+            }
+            GridGraph graph = board.getGraph(diagonals);
+
+            // Queries between free cells, one of them from a cell to itself
+            List<PathService.Query> queries = new ArrayList<>();
+            for (int attempt = 0; attempt < 100 * QUERIES && queries.size() < QUERIES; attempt++) {
+                int[] start = {random.nextInt(xSize), random.nextInt(ySize)};
+                int[] end = queries.isEmpty() ? start : new int[] {random.nextInt(xSize), random.nextInt(ySize)};
+                if (!board.isWall(start[0], start[1]) && !board.isWall(end[0], end[1])) {
+                    queries.add(new PathService.Query(start, end));
+                }
+            }
+            int[] optimal = new int[queries.size()];
+            for (int q = 0; q < queries.size(); q++) {
+                optimal[q] = dijkstra(graph, queries.get(q).getStart(), queries.get(q).getEnd());
+            }
+
+            for (int q = 0; q < queries.size(); q++) {
+                int[] start = queries.get(q).getStart();
+                int[] end = queries.get(q).getEnd();
+                String query = label + ", round " + round + ", " + Arrays.toString(start) + " to " + Arrays.toString(end);
+
+                boolean connected = board.isConnected(start, end, diagonals);
+                record("Connectivity", connected == (optimal[q] >= 0) ? null : "reports connected " + connected, query, 1.0);
+
+                for (Engine engine : engines) {
+                    PathResult result = engine.search.run(graph, start, end);
+                    check(engine.name, engine.weighted, result, graph, start, end, optimal[q], query);
+                }
+            }
+
+            // Batch queries run on worker threads, each with its own context
+            for (ComputationalMethod method : new ComputationalMethod[] {ComputationalMethod.ASTAR, ComputationalMethod.ASTAR_DIAL,
+                    ComputationalMethod.DIJKSTRA, ComputationalMethod.BFS, ComputationalMethod.JPS,
+                    ComputationalMethod.WEIGHTED_ASTAR, ComputationalMethod.FOCAL_SEARCH}) {
+                PathService service = new PathService(graph, method, 2, BOUND);
+                try {
+                    List<PathResult> results = service.batch(queries);
+                    for (int q = 0; q < queries.size(); q++) {
+                        String query = label + ", round " + round + ", " + Arrays.toString(queries.get(q).getStart())
+                                + " to " + Arrays.toString(queries.get(q).getEnd());
+                        check("PathService " + method.getValue(), true, results.get(q), graph,
+                                queries.get(q).getStart(), queries.get(q).getEnd(), optimal[q], query);
+                    }
+                } finally {
+                    service.shutdown();
+                }
+            }
+        }
+
+        for (BoardListener listener : listeners) {
+            board.removeBoardListener(listener);
+        }
+    }
+
+    /**
+     * Creates every engine for a board, in the order of ComputationalMethod.
+     * @param board - Board to search
+     * @param diagonals - Whether diagonal moves are allowed
+     * @param small - Whether to include the engines with tables for every pair of cells
+     * @param listeners - List receiving the engines that listen to the board, to stop them afterwards
+     * @return
+     */
+    private List<Engine> engines(Board board, boolean diagonals, boolean small, List<BoardListener> listeners) {
+        List<Engine> engines = new ArrayList<>();
+        SearchContext context = this.context;
+
+        engines.add(new Engine("A*", true, (graph, start, end) -> {
+            Algorithm.A_Star(graph, start, end, context, null, false);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+        engines.add(new Engine("A* (Dial's Buckets)", true, (graph, start, end) -> {
+            Algorithm.A_Star(graph, start, end, context, OpenListType.BUCKET, null, false);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+        for (OpenListType type : OpenListType.values()) {
+            if (type == OpenListType.BUCKET) {continue;}
+            engines.add(new Engine("A* (" + type.getValue() + ")", true, (graph, start, end) -> {
+                Algorithm.A_Star(graph, start, end, context, type, null, false);
+                return PathResult.fromContext(context, graph, start, end);
+            }));
+        }
+
+        Landmarks landmarks = new Landmarks(board, diagonals);
+        engines.add(new Engine("A* (ALT Landmarks)", true, (graph, start, end) -> {
+            GridGraph landmarkGraph = landmarks.refresh();
+            Algorithm.A_Star(landmarkGraph, start, end, context, OpenListType.QUATERNARY_HEAP, landmarks, null, false);
+            return PathResult.fromContext(context, landmarkGraph, start, end);
+        }));
+
+        if (small) {
+            engines.add(new Engine("A* (Goal Bounding)", true, new Search() {
+                private GoalBounding goalBounding;
+
+                @Override
+                public PathResult run(GridGraph graph, int[] start, int[] end) throws IOException {
+                    // Tables are rebuilt after every edit, like in the GUI
+                    if (goalBounding == null || !goalBounding.matches(board, diagonals)) {
+                        File file = File.createTempFile("goal-bounding", ".gbt");
+                        file.deleteOnExit();
+                        goalBounding = GoalBounding.build(board, diagonals, file);
+                    }
+                    goalBounding.search(graph, start, end, context, null, false);
+                    return PathResult.fromContext(context, graph, start, end);
+                }
+            }));
+        }
+
+        engines.add(new Engine("Weighted A*", true, (graph, start, end) -> {
+            Algorithm.Weighted_A_Star(graph, start, end, context, BOUND, null, false);
+            return PathResult.fromContext(context, graph, start, end, BOUND);
+        }));
+        engines.add(new Engine("Focal Search", true, (graph, start, end) -> {
+            Algorithm.Focal_Search(graph, start, end, context, BOUND, null, false);
+            return PathResult.fromContext(context, graph, start, end, BOUND);
+        }));
+        engines.add(new Engine("ARA*", true, (graph, start, end) ->
+                anytimeSearch.search(graph, start, end, context, 10_000, null, false)));
+        engines.add(new Engine("Fringe Search", true, (graph, start, end) -> fringeSearch.fringe(graph, start, end)));
+        if (small) {
+            // IDA* may give up, which counts as skipped
+            engines.add(new Engine("IDA*", true, (graph, start, end) -> fringeSearch.idaStar(graph, start, end)));
+        }
+        engines.add(new Engine("Dijkstra", true, (graph, start, end) -> {
+            Algorithm.Dijkstra(graph, start, end, context, null, false);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+
+        engines.add(new Engine("Breadth First Search", false, (graph, start, end) -> {
+            Algorithm.BFS(graph, start, end, context, null, false);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+        engines.add(new Engine("Jump Point Search", false, (graph, start, end) -> {
+            JumpPointSearch.search(graph, start, end, context, null, false);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+        JumpPointPlus jumpPointPlus = new JumpPointPlus(board, diagonals);
+        listeners.add(jumpPointPlus);
+        engines.add(new Engine("JPS+", false, (graph, start, end) -> {
+            jumpPointPlus.search(start, end, context, null, false);
+            return PathResult.fromContext(context, jumpPointPlus.getGraph(), start, end);
+        }));
+        engines.add(new Engine("Bidirectional BFS", false, (graph, start, end) -> bidirectional.BFS(graph, start, end, false, null, false)));
+        engines.add(new Engine("Bidirectional A*", false, (graph, start, end) -> bidirectional.A_Star(graph, start, end, false, null, false)));
+        engines.add(new Engine("Bidirectional BFS (2 Threads)", false, (graph, start, end) -> bidirectional.BFS(graph, start, end, true, null, false)));
+        engines.add(new Engine("Bidirectional A* (2 Threads)", false, (graph, start, end) -> bidirectional.A_Star(graph, start, end, true, null, false)));
+        engines.add(new Engine("Bit-Parallel BFS", false, (graph, start, end) -> {
+            bitParallelBFS.BFS(graph, start, end, context, null, false);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+        engines.add(new Engine("Parallel BFS", false, (graph, start, end) -> {
+            parallelBFS.BFS(graph, start, end, context, null);
+            return PathResult.fromContext(context, graph, start, end);
+        }));
+
+        HierarchicalPathfinder hierarchicalPathfinder = new HierarchicalPathfinder(board, diagonals);
+        listeners.add(hierarchicalPathfinder);
+        engines.add(new Engine("HPA*", true, (graph, start, end) -> hierarchicalPathfinder.search(start, end, null, false)));
+        CorridorSearch corridorSearch = new CorridorSearch(board, diagonals);
+        engines.add(new Engine("Corridor Search", true, (graph, start, end) -> corridorSearch.search(start, end, context)));
+        SubgoalGraph subgoalGraph = new SubgoalGraph(board, diagonals);
+        engines.add(new Engine("Subgoal Graph", true, (graph, start, end) -> subgoalGraph.search(start, end, context, null, false)));
+
+        FlowFieldCache flowFieldCache = new FlowFieldCache(board);
+        engines.add(new Engine("Flow Field", true, (graph, start, end) -> {
+            FlowField field = flowFieldCache.get(end, diagonals);
+            return new PathResult(field.getPath(start), field.getDistance(start[0], start[1]), 0);
+        }));
+        DStarLite dStarLite = new DStarLite(board, diagonals);
+        listeners.add(dStarLite);
+        engines.add(new Engine("D* Lite", true, (graph, start, end) -> dStarLite.search(start, end, null, false)));
+        if (small) {
+            engines.add(new Engine("Compressed Path Database", true, new Search() {
+                private CompressedPathDatabase pathDatabase;
+
+                @Override
+                public PathResult run(GridGraph graph, int[] start, int[] end) {
+                    if (pathDatabase == null || !pathDatabase.matches(board, diagonals)) {
+                        pathDatabase = CompressedPathDatabase.build(board, diagonals);
+                    }
+                    return pathDatabase.getPath(start, end);
+                }
+            }));
+        }
+
+        // Options of the GUI that change how A* runs
+        SymmetryReduction symmetryReduction = new SymmetryReduction(board, diagonals);
+        listeners.add(symmetryReduction);
+        engines.add(new Engine("A* (Symmetry Reduction)", true, (graph, start, end) -> {
+            symmetryReduction.search(start, end, context, 1.0, null, false);
+            return PathResult.fromContext(context, symmetryReduction.getGraph(), start, end);
+        }));
+        engines.add(new Engine("Weighted A* (Symmetry Reduction)", true, (graph, start, end) -> {
+            symmetryReduction.search(start, end, context, BOUND, null, false);
+            return PathResult.fromContext(context, symmetryReduction.getGraph(), start, end, BOUND);
+        }));
+        DeadEndPruning deadEndPruning = new DeadEndPruning(board, diagonals);
+        engines.add(new Engine("A* (Dead-End Pruning)", true, (graph, start, end) -> {
+            GridGraph pruned = deadEndPruning.prepare(start, end);
+            Algorithm.A_Star(pruned, start, end, context, null, false);
+            return PathResult.fromContext(context, pruned, start, end);
+        }));
+
+        return engines;
+    }
+
+    /**
+     * Checks one result against the cost of the cheapest path.
+     * @param name - Name of the engine
+     * @param weighted - Whether the engine takes terrain costs into account
+     * @param result - Result of the engine
+     * @param graph - Graph of the board's current state
+     * @param start - Start node
+     * @param end - End node
+     * @param optimal - Cost of the cheapest path, -1 if there is none
+     * @param query - Description of the query, for failure messages
+     */
+    private void check(String name, boolean weighted, PathResult result, GridGraph graph, int[] start, int[] end, int optimal, String query) {
+        // A search that gave up has found nothing and promised nothing
+        if (!result.isFound() && result.getBound() == Double.POSITIVE_INFINITY && optimal >= 0) {
+            tally(name).skipped++;
+            return;
+        }
+
+        if (optimal < 0) {
+            record(name, result.isFound() ? "found a path of cost " + result.getCost() + " where none exists" : null, query, 1.0);
+            return;
+        }
+        if (!result.isFound()) {
+            record(name, "found no path, the cheapest costs " + optimal, query, 1.0);
+            return;
+        }
+
+        int cost = pathCost(graph, result.getPath(), start, end);
+        if (cost < 0) {
+            record(name, "returned an invalid path", query, 1.0);
+        } else if (!weighted && !graph.isUniform()) {
+            // Engines that count every move as 1 only need a valid path on boards with terrain
+            record(name, null, query, 1.0);
+        } else if (cost != result.getCost()) {
+            record(name, "reported cost " + result.getCost() + " for a path costing " + cost, query, 1.0);
+        } else if (cost < optimal || cost > result.getBound() * optimal + 1e-9) {
+            record(name, "cost " + cost + " with bound " + result.getBound() + ", the cheapest costs " + optimal, query, 1.0);
+        } else {
+            record(name, null, query, optimal == 0 ? 1.0 : (double) cost / optimal);
+        }
+    }
+
+    private void record(String name, String failure, String query, double ratio) {
+        Tally tally = tally(name);
+        tally.checked++;
+        tally.worstRatio = Math.max(tally.worstRatio, ratio);
+        if (failure != null) {
+            tally.failed++;
+            if (failures++ < REPORTED_FAILURES) {
+                System.out.println("FAIL " + name + ": " + failure + ", " + query);
+            }
+        }
+    }
+
+    private Tally tally(String name) {
+        return tallies.computeIfAbsent(name, key -> new Tally());
+    }
+
+    private void printSummary() {
+        for (Map.Entry<String, Tally> entry : tallies.entrySet()) {
+            Tally tally = entry.getValue();
+            System.out.println(String.format("%-40s %6d checked %4d failed %4d skipped, worst cost ratio %.3f",
+                    entry.getKey(), tally.checked, tally.failed, tally.skipped, tally.worstRatio));
+        }
+        System.out.println(failures == 0 ? "All checks passed." : failures + " checks failed.");
+    }
+
+    /**
+     * Computes the cost of a path along the moves of a graph.
+     * @param path - Nodes excluding start and end, ordered from end to start
+     * @return - the cost, or -1 if some step isn't a move of the graph
+     */
+    private static int pathCost(GridGraph graph, ArrayList<int[]> path, int[] start, int[] end) {
+        ArrayList<int[]> cells = new ArrayList<>(path);
+        Collections.reverse(cells);
+        cells.add(0, start);
+        cells.add(end);
+        if (start[0] == end[0] && start[1] == end[1]) {
+            return path.isEmpty() ? 0 : -1;
+        }
+
+        int cost = 0;
+        for (int i = 1; i < cells.size(); i++) {
+            int from = graph.index(cells.get(i - 1)[0], cells.get(i - 1)[1]);
+            int dx = cells.get(i)[0] - cells.get(i - 1)[0];
+            int dy = cells.get(i)[1] - cells.get(i - 1)[1];
+            int move = -1;
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(from)]) {
+                if (GridGraph.DX[dir] == dx && GridGraph.DY[dir] == dy) {
+                    move = dir;
+                }
+            }
+            if (move == -1) {return -1;}
+            cost += graph.getCost(from + graph.getOffset(move));
+        }
+        return cost;
+    }
+
+    /**
+     * Reference Dijkstra over a graph, sharing no code with the engines.
+     * @return - cost of the cheapest path, -1 if there is none
+     */
+    private static int dijkstra(GridGraph graph, int[] start, int[] end) {
+        int[] distances = new int[graph.size()];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Entries hold the distance in the high and the cell in the low half
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        distances[s] = 0;
+        queue.add((long) s);
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int c = (int) entry;
+            int distance = (int) (entry >>> 32);
+            if (distance > distances[c]) {continue;}
+            if (c == t) {return distance;}
+
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                int newDistance = distance + graph.getCost(n);
+                if (newDistance < distances[n]) {
+                    distances[n] = newDistance;
+                    queue.add(((long) newDistance << 32) | n);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a board with random walls or rooms, and terrain on half of the boards.
+     */
+    private static Board randomBoard(Random random, int xSize, int ySize) {
+        Board board = new Board(xSize, ySize);
+        if (random.nextBoolean()) {
+            double density = 0.35 * random.nextDouble();
+            for (int y = 0; y < ySize; y++) {
+                for (int x = 0; x < xSize; x++) {
+                    if (random.nextDouble() < density) {
+                        board.setTile(Cell.WALL, x, y);
+                    }
+                }
+            }
+        } else {
+            // Rooms separated by walls with doors in them, some of them closed
+            int room = 4 + random.nextInt(12);
+            for (int y = 0; y < ySize; y++) {
+                for (int x = 0; x < xSize; x++) {
+                    if ((x % room == room - 1 || y % room == room - 1) && random.nextInt(room) != 0) {
+                        board.setTile(Cell.WALL, x, y);
+                    }
+                }
+            }
+        }
+
+        if (random.nextBoolean()) {
+            for (int i = 0; i < 1 + xSize * ySize / 200; i++) {
+                paintTerrain(random, board);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Changes a few walls, and sometimes the cost of a patch of terrain.
+     */
+    private static void edit(Random random, Board board) {
+        for (int i = 0; i < 1 + random.nextInt(8); i++) {
+            int x = random.nextInt(board.getXSize());
+            int y = random.nextInt(board.getYSize());
+            board.setTile(board.isWall(x, y) ? Cell.FREE : Cell.WALL, x, y);
+        }
+        if (random.nextInt(3) == 0) {
+            paintTerrain(random, board);
+        }
+    }
+
+    private static void paintTerrain(Random random, Board board) {
+        int cost = 1 + random.nextInt(30);
+        int radius = 1 + random.nextInt(1 + Math.min(board.getXSize(), board.getYSize()) / 8);
+        int cx = random.nextInt(board.getXSize());
+        int cy = random.nextInt(board.getYSize());
+        for (int y = Math.max(0, cy - radius); y < Math.min(board.getYSize(), cy + radius); y++) {
+            for (int x = Math.max(0, cx - radius); x < Math.min(board.getXSize(), cx + radius); x++) {
+                board.setCost(x, y, cost);
+            }
+        }
+    }
+}
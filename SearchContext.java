@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reusable per-node state for the pathfinding algorithms, stored as flat arrays indexed by cell index
+ * (struct-of-arrays) instead of one small array per node.
+ * Instead of clearing the arrays between queries, every node carries the generation it was last written in,
+ * and reset() only bumps the current generation. Nodes from older generations read as unseen.
+ * A context is not thread safe; concurrent searches need one context each.
+ */
+public class SearchContext {
+
+    // Node status values
+    public static final byte UNSEEN = 0;
+    public static final byte OPEN = 1;
+    public static final byte CLOSED = 2;
+
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    // Number of heaps available through getHeap()
+    public static final int HEAPS = 5;
+
+    // Node state, only valid where stamp[i] == generation
+    private int[] g;
+    private int[] f;
+    private int[] parent;
+    private byte[] status;
+    private int[] stamp;
+    private int generation = 0;
+
+    // Number of nodes used by the current query
+    private int size = 0;
+
+    // Scratch FIFO queue, large enough to hold every node once
+    private int[] queue;
+
+    // Cached open lists, one per type, together with the key spread they were built for
+    private final OpenList[] openLists = new OpenList[OpenListType.values().length];
+    private final int[] openListSpreads = new int[OpenListType.values().length];
+
+    // Binary heaps for searches that keep several orderings of their nodes at once
+    private final IndexedHeap[] heaps = new IndexedHeap[HEAPS];
+
+    // Number of nodes expanded during the current query
+    private int expanded = 0;
+
+    /**
+     * Creates a context that can hold the specified number of nodes without growing.
+     * @param capacity
+     */
+    public SearchContext(int capacity) {
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        g = new int[capacity];
+        f = new int[capacity];
+        parent = new int[capacity];
+        status = new byte[capacity];
+        stamp = new int[capacity];
+        queue = new int[capacity];
+        generation = 0;
+        Arrays.fill(openLists, null);
+        Arrays.fill(heaps, null);
+    }
+
+    /**
+     * Prepares the context for a new query over the specified number of nodes.
+     * Only allocates if the context has to grow, otherwise all nodes are invalidated in O(1).
+     * @param size - number of nodes (cells) in the graph that is about to be searched.
+     */
+    public void reset(int size) {
+        if (size > stamp.length) {
+            allocate(size);
+        }
+        this.size = size;
+        this.expanded = 0;
+
+        // Start a new generation. On wrap around, clear stamps once so old generations can't match again
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the number of nodes used by the current query.
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the node has been written during the current query.
+     * @param node - cell index
+     * @return
+     */
+    public boolean isSeen(int node) {
+        return stamp[node] == generation;
+    }
+
+    /**
+     * Returns the g value (cost from start) of a node, or INFINITY if it hasn't been seen.
+     * @param node - cell index
+     * @return
+     */
+    public int getG(int node) {
+        return stamp[node] == generation ? g[node] : INFINITY;
+    }
+
+    /**
+     * Returns the f value (g plus heuristic) of a node, or INFINITY if it hasn't been seen.
+     * @param node - cell index
+     * @return
+     */
+    public int getF(int node) {
+        return stamp[node] == generation ? f[node] : INFINITY;
+    }
+
+    /**
+     * Returns the parent of a node, or -1 if it has none or hasn't been seen.
+     * @param node - cell index
+     * @return
+     */
+    public int getParent(int node) {
+        return stamp[node] == generation ? parent[node] : -1;
+    }
+
+    /**
+     * Returns the status (UNSEEN, OPEN or CLOSED) of a node.
+     * @param node - cell index
+     * @return
+     */
+    public byte getStatus(int node) {
+        return stamp[node] == generation ? status[node] : UNSEEN;
+    }
+
+    /**
+     * Writes the complete state of a node.
+     * @param node - cell index
+     * @param g - cost from start
+     * @param f - g plus heuristic
+     * @param parent - cell index of parent, -1 for none
+     * @param status - UNSEEN, OPEN or CLOSED
+     */
+    public void set(int node, int g, int f, int parent, byte status) {
+        this.stamp[node] = generation;
+        this.g[node] = g;
+        this.f[node] = f;
+        this.parent[node] = parent;
+        this.status[node] = status;
+    }
+
+    /**
+     * Updates the status of a node which has already been written in the current query.
+     * @param node - cell index
+     * @param status - UNSEEN, OPEN or CLOSED
+     */
+    public void setStatus(int node, byte status) {
+        this.status[node] = status;
+    }
+
+    /**
+     * Returns an empty open list of the specified type, reusing the one from earlier queries if possible.
+     * @param type - open list implementation
+     * @param maxKeySpread - see OpenListType.create()
+     * @return
+     */
+    public OpenList getOpenList(OpenListType type, int maxKeySpread) {
+        int t = type.ordinal();
+        if (openLists[t] == null || openListSpreads[t] < maxKeySpread) {
+            openLists[t] = type.create(stamp.length, maxKeySpread);
+            openListSpreads[t] = maxKeySpread;
+        } else {
+            openLists[t].clear();
+        }
+        return openLists[t];
+    }
+
+    /**
+     * Returns one of several empty binary heaps, reusing it from earlier queries if possible.
+     * Searches that order their nodes in more than one way, like focal search, take one heap per ordering.
+     * @param i - number of the heap, below HEAPS
+     * @return
+     */
+    public IndexedHeap getHeap(int i) {
+        if (heaps[i] == null) {
+            heaps[i] = new IndexedHeap(stamp.length, 2);
+        } else {
+            heaps[i].clear();
+        }
+        return heaps[i];
+    }
+
+    /**
+     * Returns a scratch array large enough to hold every node once, e.g. for use as a FIFO queue.
+     * @return
+     */
+    public int[] getQueue() {
+        return queue;
+    }
+
+    /**
+     * Counts one more expanded node for the current query.
+     */
+    public void countExpansion() {
+        expanded++;
+    }
+
+    /**
+     * Counts several more expanded nodes for the current query, for engines expanding many nodes at once.
+     * @param count
+     */
+    public void countExpansions(int count) {
+        expanded += count;
+    }
+
+    /**
+     * Returns the number of nodes expanded during the current query.
+     * @return
+     */
+    public int getExpandedCount() {
+        return expanded;
+    }
+
+    /**
+     * Recreates the shortest path by following parents back from the end node.
+     * Parents don't have to be adjacent: if a parent lies further away on a straight or diagonal line
+     * (as with jump points), the cells in between are filled in.
+     * @param graph - Graph that was searched
+     * @param start - Start node
+     * @param end - End node
+     * @return - Coordinates of the nodes on the path, excluding start and end, ordered from end to start.
+     *           Empty if no path has been found.
+     */
+    public ArrayList<int[]> getPath(GridGraph graph, int[] start, int[] end) {
+
+        // Prepare ArrayList to hold path
+        ArrayList<int[]> path = new ArrayList<>();
+
+        int s = graph.index(start[0], start[1]);
+        int node = graph.index(end[0], end[1]);
+
+        // If end node has no parent, no path has been found
+        if (getParent(node) == -1) {return path;}
+
+        while (node != s) {
+            int p = getParent(node);
+            int x = graph.getX(node);
+            int y = graph.getY(node);
+            int px = graph.getX(p);
+            int py = graph.getY(p);
+
+            // Walk towards parent, adding every cell on the way except the start node
+            while (x != px || y != py) {
+                x += Integer.signum(px - x);
+                y += Integer.signum(py - y);
+                if (x != start[0] || y != start[1]) {
+                    path.add(new int[] {x, y});
+                }
+            }
+
+            // Set node to parent of current node
+            node = p;
+        }
+
+        // Return path
+        return path;
+    }
+
+    /**
+     * Creates a vizualization step from the current node statuses.
+     * @param graph - Graph that is being searched
+     * @return - list holding the coordinates of all open nodes, and the coordinates of all closed nodes.
+     */
+    public ArrayList<ArrayList<int[]>> snapshot(GridGraph graph) {
+        ArrayList<int[]> open = new ArrayList<>();
+        ArrayList<int[]> closed = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            byte s = getStatus(i);
+            if (s == OPEN) {
+                open.add(new int[] {graph.getX(i), graph.getY(i)});
+            } else if (s == CLOSED) {
+                closed.add(new int[] {graph.getX(i), graph.getY(i)});
+            }
+        }
+
+        ArrayList<ArrayList<int[]>> openclosed = new ArrayList<>();
+        openclosed.add(open);
+        openclosed.add(closed);
+        return openclosed;
+    }
+}
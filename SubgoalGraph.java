@@ -0,0 +1,434 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Simple Subgoal Graph: a sparse graph over the cells where shortest paths bend around walls.
+ *
+ * Shortest paths only have to leave a straight course at the corners of walls, so subgoals are placed there:
+ * - Without diagonals, at convex corners: free cells diagonal to a wall, with both cells between them free.
+ * - With diagonals, which may cut corners, a path bends around the tip of a wall rather than its corner. Subgoals
+ *   are the free cells next to a wall whose other side is open, i.e. free cells c with a wall b orthogonally
+ *   adjacent and a free cell diagonal to c next to b.
+ * Two subgoals get an edge if one can be reached from the other along a canonical path through no other subgoal:
+ * a diagonal run followed by a straight run along one of its axes or the other way round, or without diagonals,
+ * a horizontal run and a vertical run in either order. Canonical paths are as short as the grid distance, and
+ * the shortest path that hugs the walls only turns off a canonical course at subgoals, so these edges suffice.
+ * Edges are found with one flood fill of canonical runs per subgoal, which stops at the subgoals it reaches.
+ *
+ * A query connects start and end to the subgoals reachable from them the same way, or directly to each other,
+ * and A* runs on the subgoal graph alone, with edges costing the grid distance. Every edge is then refined into
+ * cells by walking its canonical runs. Paths are optimal.
+ *
+ * Subgoal graphs assume every move costs the same, so on boards with terrain costs queries run A* on the grid
+ * instead. The graph is rebuilt on the first query after the board version changes.
+ */
+public class SubgoalGraph {
+
+    private final Board board;
+    private final boolean diagonals;
+
+    // Version of the board the graph was built for, version - 1 before the first build
+    private int version;
+
+    private GridGraph graph;
+
+    // Cell of each subgoal, and subgoal of each cell (-1 for other cells)
+    private int[] subgoals = new int[0];
+    private int[] subgoalIndex = new int[0];
+
+    // Edges of subgoal i are the cells edgeTargets[edgeStart[i]] to edgeTargets[edgeStart[i + 1] - 1]
+    private int[] edgeStart = new int[1];
+    private int[] edgeTargets = new int[0];
+
+    // Subgoals found by floods, marked with the generation of the flood
+    private int[] stamp = new int[0];
+    private int generation = 0;
+
+    // Subgoals h-reachable from the end, marked with the generation of the flood that found them
+    private int[] endMark = new int[0];
+    private int endGeneration;
+
+    // Subgoals found by the last flood
+    private int[] found = new int[16];
+    private int foundCount;
+
+    // Number of cells visited since the last reset, counted towards the expansions of a query
+    private int visited;
+
+    /**
+     * Creates a subgoal graph for a board. The graph is built lazily on the first refresh().
+     * @param board - Board to build the graph for
+     * @param diagonals - Whether diagonal moves are allowed
+     */
+    public SubgoalGraph(Board board, boolean diagonals) {
+        this.board = board;
+        this.diagonals = diagonals;
+        this.version = board.getVersion() - 1;
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by this graph.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the number of subgoals. Only valid after refresh().
+     * @return
+     */
+    public synchronized int getSubgoalCount() {
+        return subgoals.length;
+    }
+
+    /**
+     * Returns the number of directed edges between subgoals. Only valid after refresh().
+     * @return
+     */
+    public synchronized int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * Rebuilds the subgoal graph if the board has changed since it was built.
+     * @return - the graph the subgoal graph was built for
+     */
+    public synchronized GridGraph refresh() {
+        int current = board.getVersion();
+        if (current == version && graph != null) {
+            return graph;
+        }
+
+        graph = board.getGraph(diagonals);
+        version = current;
+        int size = graph.size();
+        if (stamp.length != size) {
+            stamp = new int[size];
+            endMark = new int[size];
+            generation = 0;
+            endGeneration = 0;
+        }
+
+        // Subgoals only make sense when every move costs the same
+        subgoalIndex = new int[size];
+        Arrays.fill(subgoalIndex, -1);
+        if (!graph.isUniform()) {
+            subgoals = new int[0];
+            edgeStart = new int[1];
+            edgeTargets = new int[0];
+            return graph;
+        }
+
+        int count = 0;
+        int[] cells = new int[16];
+        for (int c = 0; c < size; c++) {
+            if (isSubgoal(c)) {
+                cells = push(cells, count, c);
+                subgoalIndex[c] = count++;
+            }
+        }
+        subgoals = Arrays.copyOf(cells, count);
+
+        // One flood per subgoal finds its edges
+        edgeStart = new int[count + 1];
+        int[] targets = new int[16];
+        int edges = 0;
+        for (int i = 0; i < count; i++) {
+            edgeStart[i] = edges;
+            flood(subgoals[i], -1);
+            for (int j = 0; j < foundCount; j++) {
+                targets = push(targets, edges++, found[j]);
+            }
+        }
+        edgeStart[count] = edges;
+        edgeTargets = Arrays.copyOf(targets, edges);
+
+        return graph;
+    }
+
+    /**
+     * Computes the shortest path from start to end over the subgoal graph, refined into cells.
+     * @param start - Start node
+     * @param end - End node
+     * @param context - Search context to store node state in, reset by this method
+     * @param vizualization - Reference to linked list, to which to save each abstract step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     * @return - the path, with the number of cells visited
+     */
+    public synchronized PathResult search(int[] start, int[] end, SearchContext context, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        refresh();
+
+        if (!graph.isUniform()) {
+            // Subgoals assume uniform costs, search the grid instead
+            Algorithm.A_Star(graph, start, end, context, vizualization, saveVizualization);
+            return PathResult.fromContext(context, graph, start, end);
+        }
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+        if (s == t) {
+            return new PathResult(new ArrayList<>(), 0, 0);
+        }
+        visited = 0;
+
+        // Subgoals reachable from the end get an edge to it
+        flood(t, -1);
+        endGeneration = generation;
+        for (int j = 0; j < foundCount; j++) {
+            endMark[found[j]] = endGeneration;
+        }
+
+        // Subgoals reachable from the start, which is treated like a subgoal of its own, and the end if it is
+        // reachable without a detour
+        flood(s, t);
+        int[] startEdges = Arrays.copyOf(found, foundCount);
+
+        // A* over the subgoals, keyed by cell index
+        context.reset(graph.size());
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+        context.set(s, 0, distance(s, t), -1, SearchContext.OPEN);
+        open.insert(s, distance(s, t));
+
+        while (!open.isEmpty()) {
+            int u = open.poll();
+            if (u == t) {break;}
+
+            context.setStatus(u, SearchContext.CLOSED);
+            context.countExpansion();
+            int g = context.getG(u);
+
+            if (u == s) {
+                for (int v : startEdges) {
+                    relax(context, open, u, v, g, t);
+                }
+            } else {
+                int i = subgoalIndex[u];
+                for (int e = edgeStart[i]; e < edgeStart[i + 1]; e++) {
+                    relax(context, open, u, edgeTargets[e], g, t);
+                }
+            }
+            if (endMark[u] == endGeneration) {
+                // Edge to the end computed for this query
+                relax(context, open, u, t, g, t);
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed subgoals to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+        }
+
+        ArrayList<int[]> path = new ArrayList<>();
+        if (context.getParent(t) == -1) {
+            return new PathResult(path, -1, visited + context.getExpandedCount());
+        }
+
+        // Refine every edge, from the end back to the start
+        for (int node = t; node != s; node = context.getParent(node)) {
+            int parent = context.getParent(node);
+            if (node != t) {
+                path.add(new int[] {graph.getX(node), graph.getY(node)});
+            }
+            if (!walk(node, parent, true, path)) {
+                walk(node, parent, false, path);
+            }
+        }
+
+        return new PathResult(path, context.getG(t), visited + context.getExpandedCount());
+    }
+
+    /**
+     * Relaxes the edge from u to v, which costs the grid distance between them.
+     */
+    private void relax(SearchContext context, OpenList open, int u, int v, int g, int t) {
+        int newg = g + distance(u, v);
+        if (newg >= context.getG(v)) {return;}
+
+        int f = newg + distance(v, t);
+        boolean wasOpen = context.getStatus(v) == SearchContext.OPEN;
+        context.set(v, newg, f, u, SearchContext.OPEN);
+        if (wasOpen) {
+            open.decreaseKey(v, f);
+        } else {
+            open.insert(v, f);
+        }
+    }
+
+    /**
+     * Returns whether a free cell is a subgoal, see the class description.
+     */
+    private boolean isSubgoal(int c) {
+        int x = graph.getX(c);
+        int y = graph.getY(c);
+        if (!graph.isWalkable(x, y)) {return false;}
+
+        if (!diagonals) {
+            // Convex corner: wall diagonally adjacent, both cells in between free
+            for (int dir = 4; dir < 8; dir++) {
+                int dx = GridGraph.DX[dir];
+                int dy = GridGraph.DY[dir];
+                if (isWall(x + dx, y + dy) && graph.isWalkable(x + dx, y) && graph.isWalkable(x, y + dy)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Tip of a wall: wall orthogonally adjacent, with a free cell beside it
+        for (int dir = 0; dir < 4; dir++) {
+            int bx = x + GridGraph.DX[dir];
+            int by = y + GridGraph.DY[dir];
+            if (!isWall(bx, by)) {continue;}
+            int px = GridGraph.DY[dir];
+            int py = GridGraph.DX[dir];
+            if (graph.isWalkable(bx + px, by + py) || graph.isWalkable(bx - px, by - py)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether a cell is a wall within the board. Cells outside the board bound it with straight edges,
+     * which have no corners.
+     */
+    private boolean isWall(int x, int y) {
+        return 0 <= x && x < graph.getXSize() && 0 <= y && y < graph.getYSize() && !graph.isWalkable(x, y);
+    }
+
+    /**
+     * Collects into found every subgoal reachable from a cell along a canonical path through no other subgoal.
+     * @param source - cell to start from
+     * @param target - non-subgoal cell to stop at and collect as well, -1 for none
+     */
+    private void flood(int source, int target) {
+        generation++;
+        foundCount = 0;
+        stamp[source] = generation;
+
+        for (int first = 0; first < (diagonals ? 8 : 4); first++) {
+            for (int second = 0; second < (diagonals ? 8 : 4); second++) {
+                if (!canonical(first, second)) {continue;}
+
+                // Walk the first run, starting a second run from every cell of it
+                int c = source;
+                while (true) {
+                    int n = c;
+                    while ((graph.getMask(n) & (1 << second)) != 0) {
+                        n += graph.getOffset(second);
+                        visited++;
+                        if (subgoalIndex[n] >= 0 || n == target) {
+                            record(n);
+                            break;
+                        }
+                    }
+
+                    if ((graph.getMask(c) & (1 << first)) == 0) {break;}
+                    c += graph.getOffset(first);
+                    visited++;
+                    if (subgoalIndex[c] >= 0 || c == target) {
+                        record(c);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a run in direction first followed by a run in direction second is a canonical path.
+     */
+    private boolean canonical(int first, int second) {
+        int fx = GridGraph.DX[first];
+        int fy = GridGraph.DY[first];
+        int sx = GridGraph.DX[second];
+        int sy = GridGraph.DY[second];
+        if (!diagonals) {
+            // Perpendicular straight runs
+            return fx * sx + fy * sy == 0;
+        }
+        // A diagonal and one of its axes, in either order
+        boolean firstDiagonal = fx != 0 && fy != 0;
+        boolean secondDiagonal = sx != 0 && sy != 0;
+        if (firstDiagonal == secondDiagonal) {return false;}
+        return firstDiagonal ? (sx == fx && sy == 0) || (sx == 0 && sy == fy) : (fx == sx && fy == 0) || (fx == 0 && fy == sy);
+    }
+
+    /**
+     * Adds a subgoal to found, unless the current flood found it already.
+     */
+    private void record(int subgoal) {
+        if (stamp[subgoal] != generation) {
+            stamp[subgoal] = generation;
+            found = push(found, foundCount++, subgoal);
+        }
+    }
+
+    /**
+     * Walks the canonical path from a to b with the given run order, adding the cells strictly between them.
+     * Walking from the later cell of the path towards the earlier one adds the cells in path order.
+     * @param diagonalFirst - whether the diagonal run comes first, without diagonals whether the horizontal run does
+     * @param path - list to add the cells to, only changed if the walk succeeds
+     * @return - whether every cell of the walk is free
+     */
+    private boolean walk(int a, int b, boolean diagonalFirst, ArrayList<int[]> path) {
+        int x = graph.getX(a);
+        int y = graph.getY(a);
+        int dx = graph.getX(b) - x;
+        int dy = graph.getY(b) - y;
+        int sx = Integer.signum(dx);
+        int sy = Integer.signum(dy);
+
+        // Two runs, as step and length
+        int[] stepX = new int[2];
+        int[] stepY = new int[2];
+        int[] length = new int[2];
+        int first = diagonalFirst ? 0 : 1;
+        if (diagonals) {
+            int diagonal = Math.min(Math.abs(dx), Math.abs(dy));
+            boolean horizontal = Math.abs(dx) > Math.abs(dy);
+            stepX[first] = sx;
+            stepY[first] = sy;
+            length[first] = diagonal;
+            stepX[1 - first] = horizontal ? sx : 0;
+            stepY[1 - first] = horizontal ? 0 : sy;
+            length[1 - first] = Math.max(Math.abs(dx), Math.abs(dy)) - diagonal;
+        } else {
+            stepX[first] = sx;
+            length[first] = Math.abs(dx);
+            stepY[1 - first] = sy;
+            length[1 - first] = Math.abs(dy);
+        }
+
+        int size = path.size();
+        for (int run = 0; run < 2; run++) {
+            for (int i = 0; i < length[run]; i++) {
+                x += stepX[run];
+                y += stepY[run];
+                visited++;
+                if (!graph.isWalkable(x, y)) {
+                    path.subList(size, path.size()).clear();
+                    return false;
+                }
+                if (x != graph.getX(b) || y != graph.getY(b)) {
+                    path.add(new int[] {x, y});
+                }
+            }
+        }
+        return true;
+    }
+
+    private int distance(int a, int b) {
+        return graph.distance(graph.getX(a), graph.getY(a), graph.getX(b), graph.getY(b));
+    }
+
+    private int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+}
@@ -0,0 +1,482 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Rectangular Symmetry Reduction (RSR): A* and weighted A* that skip the interior of empty rectangles.
+ *
+ * The free cells of the board are decomposed into rectangles whose cells all cost the same. Inside such a
+ * rectangle many paths between two cells of its perimeter cost the same, and one of them can always be built
+ * from moves along the perimeter and a single macro edge through the rectangle. A search therefore only expands
+ * perimeter cells. Every perimeter cell makes the grid moves that don't lead into the interior, and cells that
+ * enter the rectangle also get macro edges:
+ * - Without diagonals, straight across to the opposite side.
+ * - With diagonals, along each inward diagonal up to the perimeter, and to the cells of each side that are as far
+ *   along the side as the side is away, which all cost the same. Of these only the cells a path can leave the
+ *   rectangle from are generated, the others are reached along the perimeter.
+ * Cells reached from within the rectangle skip the macro edges, as every cell of the rectangle is at least as
+ * cheap to reach from the cell that entered it. The start and end may lie in the interior. The start then gets
+ * macro edges to all four sides, and every cell of the end's rectangle gets a macro edge to the end. Macro edges
+ * are straight or diagonal first, so SearchContext.getPath() can follow them. Paths cost the same as with A* on
+ * the grid.
+ *
+ * This pays off on maps with large open areas. On cluttered maps the rectangles are small, and plain A* is faster.
+ *
+ * The object listens to the board. When a cell changes, only the rectangle holding it and the rectangles next to
+ * it are decomposed again, before the next query. Rectangles get smaller over many edits, which makes queries
+ * slower but not wrong, and clearing the board decomposes everything again.
+ */
+public class SymmetryReduction implements BoardListener {
+
+    private final Board board;
+    private final boolean diagonals;
+
+    // Graph kept in sync with the board through incremental updates
+    private GridGraph graph;
+
+    // Rectangle of each cell, -1 for walls
+    private int[] rectangleOf = new int[0];
+
+    // Corners of each rectangle, inclusive
+    private int[] left = new int[16];
+    private int[] top = new int[16];
+    private int[] right = new int[16];
+    private int[] bottom = new int[16];
+    private int rectangleIds = 0;
+
+    // Whether each cell has a neighbor outside its rectangle, so a path can leave the rectangle from it
+    private boolean[] exits = new boolean[0];
+
+    // Ids of removed rectangles, reused by new ones
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+
+    // Cells changed since last refresh, and whether a full rebuild is needed instead
+    private ArrayList<Integer> dirtyCells = new ArrayList<>();
+    private boolean rebuild = true;
+
+    // Successors of the node being expanded and the cost of reaching them
+    private int[] successors = new int[16];
+    private int[] successorCosts = new int[16];
+    private int successorCount;
+
+    /**
+     * Creates a symmetry reduction for a board and starts listening to its changes.
+     * The rectangles are found lazily on the first query.
+     * @param board - Board to search
+     * @param diagonals - Whether diagonal moves are allowed
+     */
+    public SymmetryReduction(Board board, boolean diagonals) {
+        this.board = board;
+        this.diagonals = diagonals;
+        board.addBoardListener(this);
+    }
+
+    /**
+     * Stops listening to the board. The object must not be used afterwards.
+     */
+    public void dispose() {
+        board.removeBoardListener(this);
+    }
+
+    public synchronized void tileChanged(int xPos, int yPos) {
+        if (!rebuild) {
+            dirtyCells.add(yPos * board.getXSize() + xPos);
+        }
+    }
+
+    public synchronized void costChanged(int xPos, int yPos) {
+        tileChanged(xPos, yPos);
+    }
+
+    public synchronized void boardCleared() {
+        rebuild = true;
+        dirtyCells.clear();
+    }
+
+    /**
+     * Returns whether diagonal moves are allowed by this instance.
+     * @return
+     */
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * Returns the graph the rectangles have been found for. Only valid after a query or refresh().
+     * @return
+     */
+    public synchronized GridGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of rectangles. Only valid after a query or refresh().
+     * @return
+     */
+    public synchronized int getRectangleCount() {
+        return rectangleIds - freeCount;
+    }
+
+    /**
+     * Brings the rectangles up to date with the board, decomposing everything only if the board was cleared.
+     */
+    public synchronized void refresh() {
+        if (rebuild) {
+            graph = board.getGraph(diagonals);
+            rectangleOf = new int[graph.size()];
+            Arrays.fill(rectangleOf, -1);
+            exits = new boolean[graph.size()];
+            rectangleIds = 0;
+            freeCount = 0;
+            decompose(0, 0, graph.getXSize() - 1, graph.getYSize() - 1);
+            rebuild = false;
+            dirtyCells.clear();
+            return;
+        }
+
+        if (dirtyCells.isEmpty()) {return;}
+
+        // Apply the changes to the graph first, so rectangles are only grown over final cells
+        for (int cell : dirtyCells) {
+            int x = graph.getX(cell);
+            int y = graph.getY(cell);
+            graph.setWall(x, y, board.isWall(x, y));
+            graph.setCost(x, y, board.getCost(x, y));
+        }
+
+        // Remove the rectangle of each changed cell, and those next to it so a free cell can join them.
+        // The area to decompose again around a cell covers the cell and every rectangle it removed
+        int[] areas = new int[4 * dirtyCells.size()];
+        for (int i = 0; i < dirtyCells.size(); i++) {
+            int cell = dirtyCells.get(i);
+            int x = graph.getX(cell);
+            int y = graph.getY(cell);
+            areas[4 * i] = x;
+            areas[4 * i + 1] = y;
+            areas[4 * i + 2] = x;
+            areas[4 * i + 3] = y;
+            remove(rectangleOf[cell], areas, i);
+            if (graph.isWalkable(x, y)) {
+                for (int dir = 0; dir < 4; dir++) {
+                    if (graph.isWalkable(x + GridGraph.DX[dir], y + GridGraph.DY[dir])) {
+                        remove(rectangleOf[cell + graph.getOffset(dir)], areas, i);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < dirtyCells.size(); i++) {
+            decompose(areas[4 * i], areas[4 * i + 1], areas[4 * i + 2], areas[4 * i + 3]);
+        }
+
+        // New rectangles update the cells around them, but neighbors of a new wall may have stopped being exits
+        for (int cell : dirtyCells) {
+            updateExits(graph.getX(cell) - 1, graph.getY(cell) - 1, graph.getX(cell) + 1, graph.getY(cell) + 1);
+        }
+        dirtyCells.clear();
+    }
+
+    /**
+     * Removes a rectangle, and widens an area to cover it.
+     * @param r - rectangle id, or -1 for none
+     * @param areas - areas as left, top, right and bottom
+     * @param area - index of the area to widen
+     */
+    private void remove(int r, int[] areas, int area) {
+        if (r == -1) {return;}
+        for (int y = top[r]; y <= bottom[r]; y++) {
+            for (int x = left[r]; x <= right[r]; x++) {
+                rectangleOf[graph.index(x, y)] = -1;
+            }
+        }
+        freeIds = push(freeIds, freeCount++, r);
+        areas[4 * area] = Math.min(areas[4 * area], left[r]);
+        areas[4 * area + 1] = Math.min(areas[4 * area + 1], top[r]);
+        areas[4 * area + 2] = Math.max(areas[4 * area + 2], right[r]);
+        areas[4 * area + 3] = Math.max(areas[4 * area + 3], bottom[r]);
+    }
+
+    /**
+     * Covers the free cells in an area that aren't in a rectangle yet with rectangles inside the area.
+     * From the first such cell in row-major order, a rectangle grows as a square as far as it can, then right,
+     * then down.
+     */
+    private void decompose(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int c = graph.index(x, y);
+                if (rectangleOf[c] != -1 || !graph.isWalkable(x, y)) {continue;}
+
+                int cost = graph.getCost(c);
+                int w = 1;
+                int h = 1;
+                while (x + w <= x1 && y + h <= y1 && isFree(x + w, y, x + w, y + h, cost) && isFree(x, y + h, x + w - 1, y + h, cost)) {
+                    w++;
+                    h++;
+                }
+                while (x + w <= x1 && isFree(x + w, y, x + w, y + h - 1, cost)) {
+                    w++;
+                }
+                while (y + h <= y1 && isFree(x, y + h, x + w - 1, y + h, cost)) {
+                    h++;
+                }
+                add(x, y, x + w - 1, y + h - 1);
+            }
+        }
+    }
+
+    /**
+     * Checks whether every cell in an area is free, costs the specified amount and isn't in a rectangle yet.
+     */
+    private boolean isFree(int x0, int y0, int x1, int y1, int cost) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int c = graph.index(x, y);
+                if (rectangleOf[c] != -1 || !graph.isWalkable(x, y) || graph.getCost(c) != cost) {return false;}
+            }
+        }
+        return true;
+    }
+
+    private void add(int x0, int y0, int x1, int y1) {
+        int r;
+        if (freeCount > 0) {
+            r = freeIds[--freeCount];
+        } else {
+            r = rectangleIds++;
+            if (r == left.length) {
+                left = Arrays.copyOf(left, 2 * r);
+                top = Arrays.copyOf(top, 2 * r);
+                right = Arrays.copyOf(right, 2 * r);
+                bottom = Arrays.copyOf(bottom, 2 * r);
+            }
+        }
+        left[r] = x0;
+        top[r] = y0;
+        right[r] = x1;
+        bottom[r] = y1;
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                rectangleOf[graph.index(x, y)] = r;
+            }
+        }
+
+        // Only the perimeter and the cells around it can be exits
+        updateExits(x0 - 1, y0 - 1, x1 + 1, y0);
+        updateExits(x0 - 1, y1, x1 + 1, y1 + 1);
+        updateExits(x0 - 1, y0 + 1, x0, y1 - 1);
+        updateExits(x1, y0 + 1, x1 + 1, y1 - 1);
+    }
+
+    /**
+     * Recomputes whether each cell of an area, clipped to the board, is an exit of its rectangle.
+     */
+    private void updateExits(int x0, int y0, int x1, int y1) {
+        for (int y = Math.max(y0, 0); y <= Math.min(y1, graph.getYSize() - 1); y++) {
+            for (int x = Math.max(x0, 0); x <= Math.min(x1, graph.getXSize() - 1); x++) {
+                int c = graph.index(x, y);
+                exits[c] = false;
+                for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                    exits[c] |= rectangleOf[c + graph.getOffset(dir)] != rectangleOf[c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the cheapest path from start to end with A* over the perimeters of the rectangles, or a path
+     * costing at most weight times as much with weighted A*.
+     * Fills the context with the g value (cost from start), as well as parent of each expanded or reached node.
+     * @param start - Start node
+     * @param end   - End node
+     * @param context - Search context to store node state in, reset by this method
+     * @param weight - Suboptimality bound w, at least 1. The heuristic is inflated by w, so 1 runs plain A*
+     * @param vizualization - Reference to linked list, to which to save each computation step, for future vizualization
+     * @param saveVizualization - Boolean indicating whether to supply computation steps to vizualization linked list.
+     * @return - the context holding the results
+     */
+    public synchronized SearchContext search(int[] start, int[] end, SearchContext context, double weight, LinkedList<ArrayList<ArrayList<int[]>>> vizualization, boolean saveVizualization) {
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("Weight must be at least 1, was " + weight);
+        }
+        refresh();
+
+        // Invalidate node information from previous runs
+        context.reset(graph.size());
+
+        // Macro edges make f grow in large steps, so use a heap rather than buckets
+        int minCost = graph.getMinCost();
+        OpenList open = context.getOpenList(OpenListType.QUATERNARY_HEAP, 0);
+
+        int s = graph.index(start[0], start[1]);
+        int t = graph.index(end[0], end[1]);
+
+        // Enqueue start node, with f = g + w * h rounded down
+        int h = (int) (weight * graph.distance(start[0], start[1], end[0], end[1]) * minCost);
+        context.set(s, 0, h, -1, SearchContext.OPEN);
+        open.insert(s, h);
+
+        // Iterate while there are still open nodes
+        while (!open.isEmpty()) {
+
+            // Remove first node in queue
+            int c = open.poll();
+
+            // Check if c is end/target node
+            if (c == t) {
+                break;
+            }
+
+            // Update node as closed. Macro edges cost at least the grid distance times the smallest cost, so the
+            // heuristic stays consistent and closed nodes are final
+            context.setStatus(c, SearchContext.CLOSED);
+            context.countExpansion();
+
+            int g = context.getG(c);
+
+            expand(c, context.getParent(c), t);
+            for (int i = 0; i < successorCount; i++) {
+                int n = successors[i];
+
+                // Closed nodes are final
+                if (context.getStatus(n) == SearchContext.CLOSED) {continue;}
+
+                // If newg isnt better than the node's previous g, dont do anything
+                int newg = g + successorCosts[i];
+                if (newg >= context.getG(n)) {continue;}
+
+                int newf = newg + (int) (weight * graph.distance(graph.getX(n), graph.getY(n), end[0], end[1]) * minCost);
+                boolean wasOpen = context.getStatus(n) == SearchContext.OPEN;
+                context.set(n, newg, newf, c, SearchContext.OPEN);
+
+                if (wasOpen) {
+                    // Move node forward in queue
+                    open.decreaseKey(n, newf);
+                } else {
+                    open.insert(n, newf);
+                }
+            }
+
+            if (saveVizualization) {
+                // Add copy of open and closed nodes to visualization list
+                vizualization.addLast(context.snapshot(graph));
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * Collects the successors of a node and the cost of reaching them.
+     * @param c - cell index of node
+     * @param parent - cell index of the node it was reached from, or -1 for the start
+     * @param t - cell index of end node
+     */
+    private void expand(int c, int parent, int t) {
+        successorCount = 0;
+
+        int r = rectangleOf[c];
+        int x0 = left[r];
+        int y0 = top[r];
+        int x1 = right[r];
+        int y1 = bottom[r];
+        int x = graph.getX(c);
+        int y = graph.getY(c);
+        int cost = graph.getCost(c);
+        boolean interior = x0 < x && x < x1 && y0 < y && y < y1;
+
+        // Macro edges of perimeter cells shorter than 2 are grid moves, but interior cells make no grid moves
+        int shortest = interior ? 1 : 2;
+
+        if (!interior) {
+            // Grid moves, except into the interior
+            for (int dir : GridGraph.DIRECTIONS[graph.getMask(c)]) {
+                int n = c + graph.getOffset(dir);
+                int nx = graph.getX(n);
+                int ny = graph.getY(n);
+                if (x0 < nx && nx < x1 && y0 < ny && ny < y1) {continue;}
+                addSuccessor(n, graph.getCost(n));
+            }
+        }
+
+        // Macro edges start at nodes entering the rectangle. A node reached from within it only walks on along the
+        // perimeter, since every cell of the rectangle is at least as cheap to reach from the node that entered it
+        if (interior || parent == -1 || rectangleOf[parent] != r) {
+            if (diagonals) {
+                // Inward diagonals, up to the perimeter
+                for (int dir = 4; dir < 8; dir++) {
+                    int dx = GridGraph.DX[dir];
+                    int dy = GridGraph.DY[dir];
+                    int k = Math.min(dx > 0 ? x1 - x : x - x0, dy > 0 ? y1 - y : y - y0);
+                    if (k >= shortest) {
+                        addSuccessor(graph.index(x + k * dx, y + k * dy), k * cost);
+                    }
+                }
+
+                // Cells of each side a path can leave from, as far along the side as the side is away
+                cone(r, x1, y, x1 - x, true, shortest, cost, t);
+                cone(r, x0, y, x - x0, true, shortest, cost, t);
+                cone(r, x, y1, y1 - y, false, shortest, cost, t);
+                cone(r, x, y0, y - y0, false, shortest, cost, t);
+            } else {
+                // Straight across to the far sides, the perimeter is walked from there
+                if ((interior || x == x0) && x1 - x >= shortest) {addSuccessor(graph.index(x1, y), (x1 - x) * cost);}
+                if ((interior || x == x1) && x - x0 >= shortest) {addSuccessor(graph.index(x0, y), (x - x0) * cost);}
+                if ((interior || y == y0) && y1 - y >= shortest) {addSuccessor(graph.index(x, y1), (y1 - y) * cost);}
+                if ((interior || y == y1) && y - y0 >= shortest) {addSuccessor(graph.index(x, y0), (y - y0) * cost);}
+            }
+        }
+
+        // Straight to the end if it is in the same rectangle. Without diagonals the move is split at a corner,
+        // so each macro edge stays straight
+        if (rectangleOf[t] == r && t != c) {
+            int tx = graph.getX(t);
+            int ty = graph.getY(t);
+            if (diagonals || tx == x || ty == y) {
+                addSuccessor(t, graph.distance(x, y, tx, ty) * cost);
+            } else {
+                addSuccessor(graph.index(tx, y), Math.abs(tx - x) * cost);
+                addSuccessor(graph.index(x, ty), Math.abs(ty - y) * cost);
+            }
+        }
+    }
+
+    /**
+     * Adds the cells of a side of a rectangle that are at most a distance away from a node along the side, which
+     * is as far as the side is from the node. Only the end and cells with a neighbor outside the rectangle are
+     * added, all at the same cost.
+     * @param r - rectangle id
+     * @param x - x-position of the cell on the side across from the node
+     * @param y - y-position of the cell on the side across from the node
+     * @param distance - distance from the node to the side
+     * @param vertical - whether the side is a column (left or right) rather than a row
+     */
+    private void cone(int r, int x, int y, int distance, boolean vertical, int shortest, int cost, int t) {
+        if (distance < shortest) {return;}
+        int from = vertical ? Math.max(top[r], y - distance) : Math.max(left[r], x - distance);
+        int to = vertical ? Math.min(bottom[r], y + distance) : Math.min(right[r], x + distance);
+        for (int i = from; i <= to; i++) {
+            int n = vertical ? graph.index(x, i) : graph.index(i, y);
+            if (n == t || exits[n]) {
+                addSuccessor(n, distance * cost);
+            }
+        }
+    }
+
+    private void addSuccessor(int n, int cost) {
+        if (successorCount == successors.length) {
+            successors = Arrays.copyOf(successors, 2 * successorCount);
+            successorCosts = Arrays.copyOf(successorCosts, 2 * successorCount);
+        }
+        successors[successorCount] = n;
+        successorCosts[successorCount++] = cost;
+    }
+
+    private int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+}